@@ -0,0 +1,81 @@
+package top;
+
+/**
+ * Núcleos aritméticos de los bucles más costosos: el cálculo de distancias euclídeas y el coste de
+ * inserción de un cliente en varias posiciones.
+ * <p>
+ * Versión multi-release para JDK 17 o superior. Si el módulo {@code jdk.incubator.vector} está
+ * cargado (opción {@code --add-modules jdk.incubator.vector}), delega en
+ * {@link VectorDistanceKernels}; en caso contrario usa los mismos bucles escalares que la versión
+ * base. Los resultados de ambos caminos coinciden bit a bit.
+ */
+public final class DistanceKernels {
+
+    /** Indica si la Vector API está disponible en la JVM actual. */
+    private static final boolean VECTORIZED = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+    private DistanceKernels() {
+    }
+
+    /**
+     * Indica si los núcleos usan instrucciones vectoriales.
+     *
+     * @return true si se usa la Vector API.
+     */
+    public static boolean isVectorized() {
+        return VECTORIZED;
+    }
+
+    /**
+     * Obtiene el número de elementos que procesa cada instrucción vectorial. Los lotes más cortos no
+     * llenan un vector y no se benefician de los núcleos.
+     *
+     * @return Número de carriles de la Vector API, o 1 si no está disponible.
+     */
+    public static int getVectorLength() {
+        return VECTORIZED ? VectorDistanceKernels.getVectorLength() : 1;
+    }
+
+    /**
+     * Calcula las distancias euclídeas desde el nodo i a los nodos 0 a n - 1.
+     *
+     * @param x Coordenadas X de los nodos.
+     * @param y Coordenadas Y de los nodos.
+     * @param i Nodo de origen.
+     * @param n Número de distancias a calcular.
+     * @param distances Arreglo de salida con al menos n posiciones.
+     */
+    public static void distances(double[] x, double[] y, int i, int n, double[] distances) {
+        if (VECTORIZED) {
+            VectorDistanceKernels.distances(x, y, i, n, distances);
+            return;
+        }
+        double xi = x[i];
+        double yi = y[i];
+        for (int j = 0; j < n; j++) {
+            double diffXs = xi - x[j];
+            double diffYs = yi - y[j];
+            distances[j] = Math.sqrt(diffXs * diffXs + diffYs * diffYs);
+        }
+    }
+
+    /**
+     * Calcula los costes de inserción {@code d(p, c) + d(c, s) - d(p, s)} de n posiciones.
+     *
+     * @param toCustomer Distancias d(p, c) de cada predecesor al cliente.
+     * @param fromCustomer Distancias d(c, s) del cliente a cada sucesor.
+     * @param replaced Distancias d(p, s) de los arcos que se sustituyen.
+     * @param n Número de posiciones.
+     * @param costs Arreglo de salida con al menos n posiciones.
+     */
+    public static void insertionCosts(double[] toCustomer, double[] fromCustomer, double[] replaced, int n,
+                                      double[] costs) {
+        if (VECTORIZED) {
+            VectorDistanceKernels.insertionCosts(toCustomer, fromCustomer, replaced, n, costs);
+            return;
+        }
+        for (int k = 0; k < n; k++) {
+            costs[k] = toCustomer[k] + fromCustomer[k] - replaced[k];
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package top;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Implementación con la Vector API de los núcleos de {@link DistanceKernels}.
+ * <p>
+ * Solo se carga cuando el módulo {@code jdk.incubator.vector} está disponible. Cada carril realiza
+ * exactamente las operaciones de la versión escalar (resta, producto, suma y raíz cuadrada, todas
+ * correctamente redondeadas y sin FMA), y los elementos finales que no llenan un vector se
+ * procesan con el bucle escalar.
+ */
+final class VectorDistanceKernels {
+
+    /** Forma de vector preferida por la plataforma. */
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    private VectorDistanceKernels() {
+    }
+
+    /**
+     * Obtiene el número de carriles de la forma de vector preferida.
+     *
+     * @return Número de elementos de cada vector.
+     */
+    static int getVectorLength() {
+        return SPECIES.length();
+    }
+
+    /**
+     * Calcula las distancias euclídeas desde el nodo i a los nodos 0 a n - 1.
+     *
+     * @param x Coordenadas X de los nodos.
+     * @param y Coordenadas Y de los nodos.
+     * @param i Nodo de origen.
+     * @param n Número de distancias a calcular.
+     * @param distances Arreglo de salida con al menos n posiciones.
+     */
+    static void distances(double[] x, double[] y, int i, int n, double[] distances) {
+        double xi = x[i];
+        double yi = y[i];
+        DoubleVector vxi = DoubleVector.broadcast(SPECIES, xi);
+        DoubleVector vyi = DoubleVector.broadcast(SPECIES, yi);
+        int j = 0;
+        for (int bound = SPECIES.loopBound(n); j < bound; j += SPECIES.length()) {
+            DoubleVector diffXs = vxi.sub(DoubleVector.fromArray(SPECIES, x, j));
+            DoubleVector diffYs = vyi.sub(DoubleVector.fromArray(SPECIES, y, j));
+            diffXs.mul(diffXs).add(diffYs.mul(diffYs)).lanewise(VectorOperators.SQRT).intoArray(distances, j);
+        }
+        for (; j < n; j++) {
+            double diffXs = xi - x[j];
+            double diffYs = yi - y[j];
+            distances[j] = Math.sqrt(diffXs * diffXs + diffYs * diffYs);
+        }
+    }
+
+    /**
+     * Calcula los costes de inserción {@code d(p, c) + d(c, s) - d(p, s)} de n posiciones.
+     *
+     * @param toCustomer Distancias d(p, c) de cada predecesor al cliente.
+     * @param fromCustomer Distancias d(c, s) del cliente a cada sucesor.
+     * @param replaced Distancias d(p, s) de los arcos que se sustituyen.
+     * @param n Número de posiciones.
+     * @param costs Arreglo de salida con al menos n posiciones.
+     */
+    static void insertionCosts(double[] toCustomer, double[] fromCustomer, double[] replaced, int n, double[] costs) {
+        int k = 0;
+        for (int bound = SPECIES.loopBound(n); k < bound; k += SPECIES.length()) {
+            DoubleVector.fromArray(SPECIES, toCustomer, k)
+                    .add(DoubleVector.fromArray(SPECIES, fromCustomer, k))
+                    .sub(DoubleVector.fromArray(SPECIES, replaced, k))
+                    .intoArray(costs, k);
+        }
+        for (; k < n; k++) {
+            costs[k] = toCustomer[k] + fromCustomer[k] - replaced[k];
+        }
+    }
+}
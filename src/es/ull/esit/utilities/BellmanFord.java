@@ -7,7 +7,7 @@ public class BellmanFord {
     /**
      * Constante que representa el valor de infinito utilizado en el algoritmo.
      */
-    private static final int INFINITY = 999999;
+    static final int INFINITY = 999999;
 
     /**
      * Matriz de distancias que representa el grafo ponderado.
@@ -15,14 +15,9 @@ public class BellmanFord {
     private final int[][] distanceMatrix;
 
     /**
-     * Lista de nodos de origen para cada arista en el grafo.
+     * Grafo en formato CSR construido una única vez a partir de la matriz de distancias.
      */
-    private ArrayList<Integer> edges1 = null;
-
-    /**
-     * Lista de nodos de destino para cada arista en el grafo.
-     */
-    private ArrayList<Integer> edges2 = null;
+    private final CSRGraph graph;
 
     /**
      * Número de nodos en el grafo.
@@ -44,6 +39,11 @@ public class BellmanFord {
      */
     private int value;
 
+    /**
+     * Indica si se ha detectado un ciclo negativo alcanzable desde el nodo inicial.
+     */
+    private boolean negativeCycle;
+
     /**
      * Constructor de la clase BellmanFord.
      *
@@ -55,24 +55,9 @@ public class BellmanFord {
         this.distanceMatrix = distanceMatrix;
         this.nodes = nodes;
         this.path = path;
-        this.calculateEdges();
+        this.graph = new CSRGraph(this.distanceMatrix, this.nodes);
         this.value = BellmanFord.INFINITY;
-    }
-
-    /**
-     * Método privado que calcula las aristas del grafo basándose en la matriz de distancias.
-     */
-    private void calculateEdges() {
-        this.edges1 = new ArrayList<>();
-        this.edges2 = new ArrayList<>();
-        for (int i = 0; i < this.nodes; i++) {
-            for (int j = 0; j < this.nodes; j++) {
-                if (this.distanceMatrix[i][j] != Integer.MAX_VALUE) {
-                    this.edges1.add(i);
-                    this.edges2.add(j);
-                }
-            }
-        }
+        this.negativeCycle = false;
     }
 
     /**
@@ -93,35 +78,100 @@ public class BellmanFord {
         return this.value;
     }
 
+    /**
+     * Indica si la última ejecución encontró un ciclo negativo alcanzable desde el nodo inicial.
+     * En ese caso no existe camino más corto y no se construye el camino.
+     *
+     * @return true si existe un ciclo negativo, false en caso contrario.
+     */
+    public boolean hasNegativeCycle() {
+        return this.negativeCycle;
+    }
+
     /**
      * Método que ejecuta el algoritmo de Bellman-Ford para encontrar el camino más corto
      * desde el nodo inicial hasta el nodo final.
+     * <p>
+     * La diagonal de la matriz no se considera arista ({@link CSRGraph}). Si el grafo es acíclico,
+     * las aristas se relajan una sola vez en orden topológico
+     * ({@link DAGShortestPath}), con coste O(V + E). En otro caso se utiliza la variante basada
+     * en cola (SPFA): solo se relajan las aristas de los nodos cuya distancia ha cambiado, y el
+     * algoritmo termina en cuanto ninguna distancia cambia. Si un camino mejorado llega a tener
+     * {@code nodes} aristas, existe un ciclo negativo y se detiene la búsqueda.
      */
     public void solve() {
-        int numEdges = this.edges1.size();
-        int[] predecessor = new int[this.nodes];
+        int[] predecessor;
+        this.negativeCycle = false;
+        int[] order = this.graph.topologicalOrder();
+        if (order != null) {
+            DAGShortestPath dag = new DAGShortestPath(this.graph, order, false);
+            dag.solve(0);
+            this.distances = dag.getDistances();
+            predecessor = dag.getPredecessors();
+        } else {
+            predecessor = new int[this.nodes];
+            this.relaxWithQueue(predecessor);
+        }
+        if (this.negativeCycle) {
+            this.value = BellmanFord.INFINITY;
+            return;
+        }
+        this.path.add(this.nodes - 1);
+        int pred = predecessor[this.nodes - 1];
+        while (pred != -1) {
+            this.path.add(pred);
+            pred = predecessor[pred];
+        }
+        this.value = -this.distances[this.nodes - 1];
+    }
+
+    /**
+     * Calcula las distancias mínimas desde el nodo inicial con la variante basada en cola (SPFA).
+     *
+     * @param predecessor Arreglo donde se guarda el predecesor de cada nodo.
+     */
+    private void relaxWithQueue(int[] predecessor) {
+        int[] rowStart = this.graph.getRowStart();
+        int[] columns = this.graph.getColumns();
+        int[] weights = this.graph.getWeights();
+        int[] edgesInPath = new int[this.nodes];
+        boolean[] inQueue = new boolean[this.nodes];
+        int[] queue = new int[this.nodes];
         this.distances = new int[this.nodes];
         for (int i = 0; i < this.nodes; i++) {
             this.distances[i] = BellmanFord.INFINITY;
             predecessor[i] = -1;
         }
         this.distances[0] = 0;
-        for (int i = 0; i < (this.nodes - 1); i++) {
-            for (int j = 0; j < numEdges; j++) {
-                int u = this.edges1.get(j);
-                int v = this.edges2.get(j);
-                if (this.distances[v] > this.distances[u] + this.distanceMatrix[u][v]) {
-                    this.distances[v] = this.distances[u] + this.distanceMatrix[u][v];
+
+        // Cola circular: cada nodo está como mucho una vez en la cola.
+        int head = 0;
+        int size = 1;
+        queue[0] = 0;
+        inQueue[0] = true;
+        while (size > 0 && !this.negativeCycle) {
+            int u = queue[head];
+            head = (head + 1) % this.nodes;
+            size--;
+            inQueue[u] = false;
+            for (int e = rowStart[u]; e < rowStart[u + 1]; e++) {
+                int v = columns[e];
+                int candidate = this.distances[u] + weights[e];
+                if (this.distances[v] > candidate) {
+                    this.distances[v] = candidate;
                     predecessor[v] = u;
+                    edgesInPath[v] = edgesInPath[u] + 1;
+                    if (edgesInPath[v] >= this.nodes) {
+                        this.negativeCycle = true;
+                        break;
+                    }
+                    if (!inQueue[v]) {
+                        queue[(head + size) % this.nodes] = v;
+                        size++;
+                        inQueue[v] = true;
+                    }
                 }
             }
         }
-        this.path.add(this.nodes - 1);
-        int pred = predecessor[this.nodes - 1];
-        while (pred != -1) {
-            this.path.add(pred);
-            pred = predecessor[pred];
-        }
-        this.value = -this.distances[this.nodes - 1];
     }
 }
@@ -0,0 +1,207 @@
+package es.ull.esit.utilities;
+
+import java.util.Arrays;
+
+/**
+ * La clase {@code CSRGraph} representa un grafo dirigido y ponderado en formato CSR
+ * (compressed sparse row).
+ * <p>
+ * Las aristas de cada nodo se almacenan de forma contigua en arreglos primitivos, de modo que
+ * recorrer los sucesores de un nodo cuesta un tiempo proporcional a su grado y no al número
+ * total de nodos.
+ */
+public class CSRGraph {
+
+    /** Número de nodos del grafo. */
+    private final int nodes;
+
+    /** Posición en {@code columns} de la primera arista de cada nodo; tiene {@code nodes + 1} elementos. */
+    private final int[] rowStart;
+
+    /** Nodo destino de cada arista. */
+    private final int[] columns;
+
+    /** Peso de cada arista. */
+    private final int[] weights;
+
+    /**
+     * Construye el grafo a partir de una matriz de distancias densa.
+     * <p>
+     * Las posiciones con valor {@code Integer.MAX_VALUE} se interpretan como ausencia de arista. La
+     * diagonal no genera aristas: es la distancia de cada nodo a sí mismo (normalmente 0), no un
+     * bucle, de modo que el grafo nunca contiene bucles.
+     *
+     * @param distanceMatrix Matriz de distancias que representa el grafo.
+     * @param nodes Número de nodos en el grafo.
+     */
+    public CSRGraph(int[][] distanceMatrix, int nodes) {
+        this.nodes = nodes;
+        this.rowStart = new int[nodes + 1];
+        for (int i = 0; i < nodes; i++) {
+            int degree = 0;
+            for (int j = 0; j < nodes; j++) {
+                if (i != j && distanceMatrix[i][j] != Integer.MAX_VALUE) {
+                    degree++;
+                }
+            }
+            this.rowStart[i + 1] = this.rowStart[i] + degree;
+        }
+        this.columns = new int[this.rowStart[nodes]];
+        this.weights = new int[this.rowStart[nodes]];
+        for (int i = 0; i < nodes; i++) {
+            int edge = this.rowStart[i];
+            for (int j = 0; j < nodes; j++) {
+                if (i != j && distanceMatrix[i][j] != Integer.MAX_VALUE) {
+                    this.columns[edge] = j;
+                    this.weights[edge] = distanceMatrix[i][j];
+                    edge++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Obtiene el número de nodos del grafo.
+     *
+     * @return Número de nodos.
+     */
+    public int getNodes() {
+        return this.nodes;
+    }
+
+    /**
+     * Obtiene el número de aristas del grafo.
+     *
+     * @return Número de aristas.
+     */
+    public int getEdges() {
+        return this.columns.length;
+    }
+
+    /**
+     * Obtiene el arreglo de inicios de fila: las aristas del nodo {@code i} ocupan las posiciones
+     * {@code rowStart[i]} a {@code rowStart[i + 1] - 1}.
+     *
+     * @return Arreglo de inicios de fila.
+     */
+    public int[] getRowStart() {
+        return this.rowStart;
+    }
+
+    /**
+     * Obtiene el arreglo con el nodo destino de cada arista.
+     *
+     * @return Arreglo de destinos.
+     */
+    public int[] getColumns() {
+        return this.columns;
+    }
+
+    /**
+     * Obtiene el arreglo con el peso de cada arista.
+     *
+     * @return Arreglo de pesos.
+     */
+    public int[] getWeights() {
+        return this.weights;
+    }
+
+    /**
+     * Calcula un orden topológico del grafo mediante el algoritmo de Kahn en tiempo O(V + E).
+     * <p>
+     * El grafo no contiene bucles (la diagonal de la matriz se ignora), así que un grafo sin ciclos
+     * entre nodos distintos siempre tiene orden topológico.
+     *
+     * @return Arreglo con los nodos en orden topológico, o null si el grafo contiene algún ciclo.
+     */
+    public int[] topologicalOrder() {
+        int[] inDegree = new int[this.nodes];
+        for (int e = 0; e < this.columns.length; e++) {
+            inDegree[this.columns[e]]++;
+        }
+        int[] order = new int[this.nodes];
+        int head = 0;
+        int tail = 0;
+        for (int i = 0; i < this.nodes; i++) {
+            if (inDegree[i] == 0) {
+                order[tail++] = i;
+            }
+        }
+        while (head < tail) {
+            int u = order[head++];
+            for (int e = this.rowStart[u]; e < this.rowStart[u + 1]; e++) {
+                int v = this.columns[e];
+                inDegree[v]--;
+                if (inDegree[v] == 0) {
+                    order[tail++] = v;
+                }
+            }
+        }
+        return tail == this.nodes ? order : null;
+    }
+
+    /**
+     * Calcula las componentes fuertemente conexas del grafo mediante el algoritmo de Tarjan.
+     * <p>
+     * La implementación es iterativa (no recursiva), por lo que admite grafos con miles de nodos
+     * sin desbordar la pila, y recorre cada arista una sola vez.
+     *
+     * @return Arreglo con el identificador de componente de cada nodo. Las componentes se numeran
+     *         en orden topológico inverso.
+     */
+    public int[] stronglyConnectedComponents() {
+        int[] index = new int[this.nodes];
+        int[] low = new int[this.nodes];
+        int[] component = new int[this.nodes];
+        int[] nextEdge = new int[this.nodes];
+        int[] stack = new int[this.nodes];
+        int[] callStack = new int[this.nodes];
+        boolean[] onStack = new boolean[this.nodes];
+        Arrays.fill(index, -1);
+        int counter = 0;
+        int components = 0;
+        int sp = 0;
+        for (int s = 0; s < this.nodes; s++) {
+            if (index[s] != -1) {
+                continue;
+            }
+            int csp = 0;
+            index[s] = low[s] = counter++;
+            stack[sp++] = s;
+            onStack[s] = true;
+            nextEdge[s] = this.rowStart[s];
+            callStack[csp++] = s;
+            while (csp > 0) {
+                int u = callStack[csp - 1];
+                if (nextEdge[u] < this.rowStart[u + 1]) {
+                    int v = this.columns[nextEdge[u]++];
+                    if (index[v] == -1) {
+                        index[v] = low[v] = counter++;
+                        stack[sp++] = v;
+                        onStack[v] = true;
+                        nextEdge[v] = this.rowStart[v];
+                        callStack[csp++] = v;
+                    } else if (onStack[v]) {
+                        low[u] = Math.min(low[u], index[v]);
+                    }
+                } else {
+                    csp--;
+                    if (csp > 0) {
+                        int parent = callStack[csp - 1];
+                        low[parent] = Math.min(low[parent], low[u]);
+                    }
+                    if (low[u] == index[u]) {
+                        int w;
+                        do {
+                            w = stack[--sp];
+                            onStack[w] = false;
+                            component[w] = components;
+                        } while (w != u);
+                        components++;
+                    }
+                }
+            }
+        }
+        return component;
+    }
+}
@@ -9,8 +9,9 @@ import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashSet;
-import java.util.Iterator;
+import java.util.Collections;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -25,6 +26,12 @@ public class ExpositoUtilities {
     /** Constante para alinear texto a la derecha. */
     public static final int ALIGNMENT_RIGHT = 2;
 
+    /** Tamaño de bloque (filas y columnas) de la multiplicación de matrices. */
+    private static final int MATRIX_BLOCK_SIZE = 64;
+
+    /** Número de multiplicaciones a partir del cual el producto de matrices se reparte entre hilos. */
+    private static final long PARALLEL_MULTIPLY_THRESHOLD = 1L << 21;
+
     /**
      * Encuentra la primera aparición de un elemento en un vector.
      *
@@ -82,6 +89,12 @@ public class ExpositoUtilities {
 
     /**
      * Multiplica dos matrices de tipo double.
+     * <p>
+     * Se trabaja sobre la traspuesta de {@code b}, de modo que cada producto escalar recorre
+     * memoria contigua, y por bloques de {@link #MATRIX_BLOCK_SIZE} para reutilizar la caché. Las
+     * multiplicaciones grandes se reparten por filas entre las tareas del fork-join pool común.
+     * Cada elemento del resultado acumula los productos en el mismo orden que el algoritmo
+     * i-j-k clásico, por lo que el resultado es idéntico bit a bit.
      *
      * @param a Primera matriz.
      * @param b Segunda matriz.
@@ -98,16 +111,90 @@ public class ExpositoUtilities {
         int m = a.length;
         int p = b[0].length;
         double ans[][] = new double[m][p];
-        for (int i = 0; i < m; i++) {
+        double bt[][] = new double[p][n];
+        for (int k = 0; k < n; k++) {
             for (int j = 0; j < p; j++) {
-                for (int k = 0; k < n; k++) {
-                    ans[i][j] += a[i][k] * b[k][j];
-                }
+                bt[j][k] = b[k][j];
             }
         }
+        if ((long) m * n * p < ExpositoUtilities.PARALLEL_MULTIPLY_THRESHOLD) {
+            ExpositoUtilities.multiplyRows(a, bt, ans, 0, m);
+        } else {
+            ForkJoinPool.commonPool().invoke(new MultiplyRowsTask(a, bt, ans, 0, m));
+        }
         return ans;
     }
 
+    /**
+     * Calcula las filas {@code [from, to)} del producto de {@code a} por la traspuesta {@code bt},
+     * recorriendo las matrices por bloques.
+     *
+     * @param a Primera matriz.
+     * @param bt Traspuesta de la segunda matriz.
+     * @param ans Matriz resultado.
+     * @param from Primera fila a calcular.
+     * @param to Fila final (excluida).
+     */
+    private static void multiplyRows(double a[][], double bt[][], double ans[][], int from, int to) {
+        int n = bt.length == 0 ? 0 : bt[0].length;
+        int p = bt.length;
+        for (int ii = from; ii < to; ii += MATRIX_BLOCK_SIZE) {
+            int iMax = Math.min(ii + MATRIX_BLOCK_SIZE, to);
+            for (int jj = 0; jj < p; jj += MATRIX_BLOCK_SIZE) {
+                int jMax = Math.min(jj + MATRIX_BLOCK_SIZE, p);
+                for (int kk = 0; kk < n; kk += MATRIX_BLOCK_SIZE) {
+                    int kMax = Math.min(kk + MATRIX_BLOCK_SIZE, n);
+                    for (int i = ii; i < iMax; i++) {
+                        double[] rowA = a[i];
+                        double[] rowAns = ans[i];
+                        for (int j = jj; j < jMax; j++) {
+                            double[] rowBt = bt[j];
+                            double sum = rowAns[j];
+                            for (int k = kk; k < kMax; k++) {
+                                sum += rowA[k] * rowBt[k];
+                            }
+                            rowAns[j] = sum;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Tarea fork-join que reparte por filas el producto de matrices.
+     */
+    private static class MultiplyRowsTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final double[][] a; ///< Primera matriz.
+        private final double[][] bt; ///< Traspuesta de la segunda matriz.
+        private final double[][] ans; ///< Matriz resultado.
+        private final int from; ///< Primera fila a calcular.
+        private final int to; ///< Fila final (excluida).
+
+        MultiplyRowsTask(double[][] a, double[][] bt, double[][] ans, int from, int to) {
+            this.a = a;
+            this.bt = bt;
+            this.ans = ans;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            long work = (long) (this.to - this.from) * this.bt.length * (this.bt.length == 0 ? 0 : this.bt[0].length);
+            if (this.to - this.from <= MATRIX_BLOCK_SIZE || work < PARALLEL_MULTIPLY_THRESHOLD) {
+                ExpositoUtilities.multiplyRows(this.a, this.bt, this.ans, this.from, this.to);
+            } else {
+                int middle = (this.from + this.to) >>> 1;
+                RecursiveAction.invokeAll(new MultiplyRowsTask(this.a, this.bt, this.ans, this.from, middle),
+                        new MultiplyRowsTask(this.a, this.bt, this.ans, middle, this.to));
+            }
+        }
+    }
+
     /**
      * Escribe texto en un archivo.
      *
@@ -171,6 +258,26 @@ public class ExpositoUtilities {
         return decimalFormatter.format(value);
     }
 
+    /**
+     * Aplica formato a una fila de valores, alineando cada uno a la izquierda en una columna del
+     * ancho indicado. Los valores numéricos se formatean con {@link #getFormat(String)}.
+     *
+     * @param strings Valores de la fila.
+     * @param width Ancho de cada columna.
+     * @return Fila formateada.
+     */
+    public static String getFormat(String[] strings, int[] width) {
+        StringBuilder format = new StringBuilder();
+        for (int i = 0; i < width.length; i++) {
+            format.append("%").append(i + 1).append("$-").append(width[i]).append("s");
+        }
+        String[] data = new String[width.length];
+        for (int i = 0; i < width.length; i++) {
+            data[i] = i < strings.length && strings[i] != null ? ExpositoUtilities.getFormat(strings[i]) : "";
+        }
+        return String.format(format.toString(), (Object[]) data);
+    }
+
     // (Otros métodos similares)
 
     /**
@@ -205,21 +312,93 @@ public class ExpositoUtilities {
 
     /**
      * Determina si una matriz de distancias representa un grafo acíclico.
+     * <p>
+     * Se comprueba que ninguna tarea real (nodos 1 a n-2) pertenezca a un ciclo. La diagonal de la
+     * matriz es la distancia de cada nodo a sí mismo y no se considera un bucle, igual que en
+     * {@link #topologicalOrder(int[][])} y {@link CSRGraph}. Las componentes fuertemente conexas se calculan en una única
+     * pasada de Tarjan sobre un grafo CSR, con coste O(V + E) tras construir el grafo.
      *
      * @param distanceMatrix Matriz de distancias.
      * @return true si el grafo es acíclico, false en caso contrario.
      */
     public static boolean isAcyclic(int[][] distanceMatrix) {
-        int numRealTasks = distanceMatrix.length - 2;
-        int node = 1;
-        boolean acyclic = true;
-        while (acyclic && node <= numRealTasks) {
-            if (ExpositoUtilities.thereIsPath(distanceMatrix, node)) {
-                return false;
+        return ExpositoUtilities.findCycle(distanceMatrix).isEmpty();
+    }
+
+    /**
+     * Busca un ciclo que pase por alguna tarea real (nodos 1 a n-2) de la matriz de distancias.
+     * <p>
+     * La diagonal de la matriz no se considera un bucle, igual que en {@link #isAcyclic(int[][])}.
+     *
+     * @param distanceMatrix Matriz de distancias.
+     * @return Lista con los nodos del ciclo en orden de recorrido (la arista de cierre vuelve al
+     *         primero), o una lista vacía si no existe ninguno.
+     */
+    public static ArrayList<Integer> findCycle(int[][] distanceMatrix) {
+        int nodes = distanceMatrix.length;
+        ArrayList<Integer> cycle = new ArrayList<>();
+        CSRGraph graph = new CSRGraph(distanceMatrix, nodes);
+        int[] component = graph.stronglyConnectedComponents();
+        int[] componentSize = new int[nodes];
+        for (int i = 0; i < nodes; i++) {
+            componentSize[component[i]]++;
+        }
+        int start = -1;
+        for (int node = 1; node <= nodes - 2 && start == -1; node++) {
+            if (componentSize[component[node]] > 1) {
+                start = node;
             }
-            node++;
         }
-        return true;
+        if (start == -1) {
+            return cycle;
+        }
+
+        // Búsqueda en anchura dentro de la componente hasta volver al nodo inicial.
+        int[] rowStart = graph.getRowStart();
+        int[] columns = graph.getColumns();
+        int[] parent = new int[nodes];
+        Arrays.fill(parent, -1);
+        int[] queue = new int[nodes];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = start;
+        int last = -1;
+        while (head < tail && last == -1) {
+            int u = queue[head++];
+            for (int e = rowStart[u]; e < rowStart[u + 1]; e++) {
+                int v = columns[e];
+                if (component[v] != component[start]) {
+                    continue;
+                }
+                if (v == start) {
+                    last = u;
+                    break;
+                }
+                if (parent[v] == -1) {
+                    parent[v] = u;
+                    queue[tail++] = v;
+                }
+            }
+        }
+        for (int node = last; node != start; node = parent[node]) {
+            cycle.add(node);
+        }
+        cycle.add(start);
+        Collections.reverse(cycle);
+        return cycle;
+    }
+
+    /**
+     * Calcula un orden topológico de la matriz de distancias en tiempo O(V + E).
+     * <p>
+     * La diagonal de la matriz no se considera un bucle, igual que en {@link #isAcyclic(int[][])}:
+     * existe orden topológico si y solo si no hay ciclos entre nodos distintos.
+     *
+     * @param distanceMatrix Matriz de distancias.
+     * @return Arreglo con los nodos en orden topológico, o null si el grafo contiene algún ciclo.
+     */
+    public static int[] topologicalOrder(int[][] distanceMatrix) {
+        return new CSRGraph(distanceMatrix, distanceMatrix.length).topologicalOrder();
     }
 
     /**
@@ -230,26 +409,22 @@ public class ExpositoUtilities {
      * @return true si existe un camino cíclico, false en caso contrario.
      */
     public static boolean thereIsPath(int[][] distanceMatrix, int node) {
-        HashSet<Integer> visits = new HashSet<>();
-        HashSet<Integer> noVisits = new HashSet<>();
-        for (int i = 0; i < distanceMatrix.length; i++) {
-            if (i != node) {
-                noVisits.add(i);
-            }
-        }
-        visits.add(node);
-        while (!visits.isEmpty()) {
-            Iterator<Integer> it = visits.iterator();
-            int toCheck = it.next();
-            visits.remove(toCheck);
-            for (int i = 0; i < distanceMatrix.length; i++) {
+        int nodes = distanceMatrix.length;
+        boolean[] visited = new boolean[nodes];
+        int[] stack = new int[nodes];
+        int size = 0;
+        stack[size++] = node;
+        visited[node] = true;
+        while (size > 0) {
+            int toCheck = stack[--size];
+            for (int i = 0; i < nodes; i++) {
                 if (toCheck != i && distanceMatrix[toCheck][i] != Integer.MAX_VALUE) {
                     if (i == node) {
                         return true;
                     }
-                    if (noVisits.contains(i)) {
-                        noVisits.remove(i);
-                        visits.add(i);
+                    if (!visited[i]) {
+                        visited[i] = true;
+                        stack[size++] = i;
                     }
                 }
             }
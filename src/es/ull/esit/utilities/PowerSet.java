@@ -2,17 +2,28 @@ package es.ull.esit.utilities;
 
 import java.util.BitSet;
 import java.util.Iterator;
+import java.util.PrimitiveIterator;
 import java.util.Set;
+import java.util.Spliterators;
 import java.util.TreeSet;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
 
 /**
  * La clase {@code PowerSet} permite calcular todos los subconjuntos posibles de un conjunto dado.
  * Utiliza una {@code BitSet} para iterar sobre todos los subconjuntos posibles.
+ * <p>
+ * Para conjuntos de hasta {@link #MAX_MASK_SIZE} elementos dispone además de un modo primitivo
+ * que representa cada subconjunto como una máscara {@code long} (el bit i indica si contiene el
+ * elemento i), opcionalmente en orden de código Gray, sin reservar memoria por subconjunto.
  *
  * @param <E> El tipo de elementos en el conjunto de entrada.
  */
 public class PowerSet<E> implements Iterator<Set<E>>, Iterable<Set<E>> {
 
+    /** Número máximo de elementos admitido por el modo de máscaras {@code long}. */
+    public static final int MAX_MASK_SIZE = 62;
+
     /** Arreglo que contiene los elementos del conjunto original. */
     private E[] arr = null;
 
@@ -83,4 +94,86 @@ public class PowerSet<E> implements Iterator<Set<E>>, Iterable<Set<E>> {
     public Iterator<Set<E>> iterator() {
         return this;
     }
+
+    /**
+     * Retorna los subconjuntos del conjunto original como máscaras de bits.
+     *
+     * @param grayCode true para recorrerlos en orden de código Gray.
+     * @return Flujo secuencial de máscaras; puede paralelizarse con {@code parallel()}.
+     */
+    public LongStream masks(boolean grayCode) {
+        return PowerSet.masks(this.arr.length, grayCode);
+    }
+
+    /**
+     * Convierte una máscara de bits en el subconjunto de elementos que representa.
+     *
+     * @param mask Máscara del subconjunto.
+     * @return El subconjunto como un {@code Set<E>}.
+     */
+    public Set<E> toSet(long mask) {
+        Set<E> returnSet = new TreeSet<>();
+        for (long bits = mask; bits != 0; bits &= bits - 1) {
+            returnSet.add(this.arr[Long.numberOfTrailingZeros(bits)]);
+        }
+        return returnSet;
+    }
+
+    /**
+     * Retorna todos los subconjuntos de un conjunto de {@code size} elementos como máscaras de bits.
+     *
+     * @param size Número de elementos del conjunto.
+     * @param grayCode true para recorrerlos en orden de código Gray.
+     * @return Flujo secuencial de máscaras; puede paralelizarse con {@code parallel()}.
+     */
+    public static LongStream masks(int size, boolean grayCode) {
+        return StreamSupport.longStream(PowerSet.spliterator(size, grayCode), false);
+    }
+
+    /**
+     * Retorna un iterador primitivo sobre todos los subconjuntos de {@code size} elementos.
+     *
+     * @param size Número de elementos del conjunto.
+     * @param grayCode true para recorrerlos en orden de código Gray.
+     * @return Iterador de máscaras que no reserva memoria por subconjunto.
+     */
+    public static PrimitiveIterator.OfLong maskIterator(int size, boolean grayCode) {
+        return Spliterators.iterator(PowerSet.spliterator(size, grayCode));
+    }
+
+    /**
+     * Retorna un spliterator divisible sobre todos los subconjuntos de {@code size} elementos.
+     *
+     * @param size Número de elementos del conjunto.
+     * @param grayCode true para recorrerlos en orden de código Gray.
+     * @return Spliterator de máscaras.
+     * @throws IllegalArgumentException Si el tamaño es negativo o mayor que {@link #MAX_MASK_SIZE}.
+     */
+    public static SubsetMaskSpliterator spliterator(int size, boolean grayCode) {
+        if (size < 0 || size > PowerSet.MAX_MASK_SIZE) {
+            throw new IllegalArgumentException("Size must be between 0 and " + PowerSet.MAX_MASK_SIZE + ": " + size);
+        }
+        return new SubsetMaskSpliterator(0, 1L << size, grayCode);
+    }
+
+    /**
+     * Calcula el código Gray del índice dado.
+     *
+     * @param index Índice en el recorrido.
+     * @return Máscara del subconjunto que ocupa esa posición en orden de código Gray.
+     */
+    public static long grayCode(long index) {
+        return index ^ (index >>> 1);
+    }
+
+    /**
+     * Obtiene el elemento que cambia entre los subconjuntos {@code index - 1} e {@code index} del
+     * orden de código Gray, lo que permite actualizar incrementalmente cualquier valor acumulado.
+     *
+     * @param index Índice en el recorrido (mayor que cero).
+     * @return Posición del único bit que cambia.
+     */
+    public static int grayCodeChangedElement(long index) {
+        return Long.numberOfTrailingZeros(index);
+    }
 }
@@ -0,0 +1,86 @@
+package es.ull.esit.utilities;
+
+import java.util.Spliterator;
+import java.util.function.LongConsumer;
+
+/**
+ * La clase {@code SubsetMaskSpliterator} recorre los subconjuntos de un conjunto de hasta 62
+ * elementos representados como máscaras de bits de tipo {@code long}.
+ * <p>
+ * Recorre un rango de índices [inicio, fin) y, para cada índice, produce la máscara binaria
+ * correspondiente o su código Gray. No reserva memoria por subconjunto y puede dividirse en
+ * mitades, de modo que los flujos paralelos reparten el recorrido entre los hilos del
+ * fork-join pool.
+ */
+public class SubsetMaskSpliterator implements Spliterator.OfLong {
+
+    /** Siguiente índice a recorrer. */
+    private long index;
+
+    /** Índice final (excluido) del rango. */
+    private final long end;
+
+    /** Indica si se producen las máscaras en orden de código Gray. */
+    private final boolean grayCode;
+
+    /**
+     * Constructor de la clase SubsetMaskSpliterator.
+     *
+     * @param start Primer índice del rango (incluido).
+     * @param end Último índice del rango (excluido).
+     * @param grayCode true para producir las máscaras en orden de código Gray.
+     */
+    public SubsetMaskSpliterator(long start, long end, boolean grayCode) {
+        this.index = start;
+        this.end = end;
+        this.grayCode = grayCode;
+    }
+
+    @Override
+    public boolean tryAdvance(LongConsumer action) {
+        if (this.index >= this.end) {
+            return false;
+        }
+        long i = this.index++;
+        action.accept(this.grayCode ? PowerSet.grayCode(i) : i);
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(LongConsumer action) {
+        long i = this.index;
+        long last = this.end;
+        this.index = last;
+        if (this.grayCode) {
+            for (; i < last; i++) {
+                action.accept(i ^ (i >>> 1));
+            }
+        } else {
+            for (; i < last; i++) {
+                action.accept(i);
+            }
+        }
+    }
+
+    @Override
+    public Spliterator.OfLong trySplit() {
+        long middle = this.index + (this.end - this.index) / 2;
+        if (middle <= this.index) {
+            return null;
+        }
+        long start = this.index;
+        this.index = middle;
+        return new SubsetMaskSpliterator(start, middle, this.grayCode);
+    }
+
+    @Override
+    public long estimateSize() {
+        return this.end - this.index;
+    }
+
+    @Override
+    public int characteristics() {
+        return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.IMMUTABLE
+                | Spliterator.NONNULL | Spliterator.DISTINCT;
+    }
+}
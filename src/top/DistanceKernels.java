@@ -0,0 +1,71 @@
+package top;
+
+/**
+ * Núcleos aritméticos de los bucles más costosos: el cálculo de distancias euclídeas y el coste de
+ * inserción de un cliente en varias posiciones.
+ * <p>
+ * Esta es la implementación escalar, compilada con {@code release 11}. En el perfil Maven
+ * {@code vector} (JDK 17 o superior) se añade al JAR multi-release una versión de esta clase que usa
+ * la Vector API cuando la JVM se arranca con {@code --add-modules jdk.incubator.vector}, y que vuelve
+ * a estos bucles en caso contrario. Ambas versiones realizan las mismas operaciones IEEE 754 en el
+ * mismo orden (sin FMA), por lo que sus resultados coinciden bit a bit.
+ */
+public final class DistanceKernels {
+
+    private DistanceKernels() {
+    }
+
+    /**
+     * Indica si los núcleos usan instrucciones vectoriales.
+     *
+     * @return false en la implementación escalar.
+     */
+    public static boolean isVectorized() {
+        return false;
+    }
+
+    /**
+     * Obtiene el número de elementos que procesa cada instrucción vectorial. Los lotes más cortos no
+     * llenan un vector y no se benefician de los núcleos.
+     *
+     * @return 1 en la implementación escalar.
+     */
+    public static int getVectorLength() {
+        return 1;
+    }
+
+    /**
+     * Calcula las distancias euclídeas desde el nodo i a los nodos 0 a n - 1.
+     *
+     * @param x Coordenadas X de los nodos.
+     * @param y Coordenadas Y de los nodos.
+     * @param i Nodo de origen.
+     * @param n Número de distancias a calcular.
+     * @param distances Arreglo de salida con al menos n posiciones.
+     */
+    public static void distances(double[] x, double[] y, int i, int n, double[] distances) {
+        double xi = x[i];
+        double yi = y[i];
+        for (int j = 0; j < n; j++) {
+            double diffXs = xi - x[j];
+            double diffYs = yi - y[j];
+            distances[j] = Math.sqrt(diffXs * diffXs + diffYs * diffYs);
+        }
+    }
+
+    /**
+     * Calcula los costes de inserción {@code d(p, c) + d(c, s) - d(p, s)} de n posiciones.
+     *
+     * @param toCustomer Distancias d(p, c) de cada predecesor al cliente.
+     * @param fromCustomer Distancias d(c, s) del cliente a cada sucesor.
+     * @param replaced Distancias d(p, s) de los arcos que se sustituyen.
+     * @param n Número de posiciones.
+     * @param costs Arreglo de salida con al menos n posiciones.
+     */
+    public static void insertionCosts(double[] toCustomer, double[] fromCustomer, double[] replaced, int n,
+                                      double[] costs) {
+        for (int k = 0; k < n; k++) {
+            costs[k] = toCustomer[k] + fromCustomer[k] - replaced[k];
+        }
+    }
+}
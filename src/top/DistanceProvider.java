@@ -0,0 +1,45 @@
+package top;
+
+/**
+ * Interfaz que abstrae el almacenamiento de las distancias entre los nodos de una instancia TOPTW.
+ * <p>
+ * Permite elegir entre distintas representaciones de la matriz de distancias (doble precisión,
+ * precisión simple, cuantizada a 16 bits, fuera del heap o calculada bajo demanda) sin cambiar el
+ * código del resolutor.
+ */
+public interface DistanceProvider {
+
+    /**
+     * Obtiene la distancia entre dos nodos.
+     *
+     * @param i Nodo de origen.
+     * @param j Nodo de destino.
+     * @return Distancia entre ambos nodos.
+     */
+    double getDistance(int i, int j);
+
+    /**
+     * Establece la distancia entre dos nodos.
+     *
+     * @param i Nodo de origen.
+     * @param j Nodo de destino.
+     * @param distance Distancia entre ambos nodos.
+     */
+    void setDistance(int i, int j, double distance);
+
+    /**
+     * Obtiene el número de nodos que cubre la matriz.
+     *
+     * @return Número de nodos.
+     */
+    int getSize();
+
+    /**
+     * Indica si varios hilos pueden consultar las distancias a la vez.
+     *
+     * @return true si {@link #getDistance(int, int)} puede llamarse de forma concurrente.
+     */
+    default boolean isConcurrent() {
+        return true;
+    }
+}
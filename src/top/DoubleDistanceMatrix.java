@@ -0,0 +1,36 @@
+package top;
+
+/**
+ * Matriz de distancias completa en doble precisión almacenada en el heap.
+ * <p>
+ * Es la representación por defecto: exacta, pero ocupa 8·n² bytes.
+ */
+public class DoubleDistanceMatrix implements DistanceProvider {
+
+    /** Distancias entre cada par de nodos. */
+    private final double[][] distances;
+
+    /**
+     * Constructor de la clase DoubleDistanceMatrix.
+     *
+     * @param size Número de nodos.
+     */
+    public DoubleDistanceMatrix(int size) {
+        this.distances = new double[size][size];
+    }
+
+    @Override
+    public double getDistance(int i, int j) {
+        return this.distances[i][j];
+    }
+
+    @Override
+    public void setDistance(int i, int j, double distance) {
+        this.distances[i][j] = distance;
+    }
+
+    @Override
+    public int getSize() {
+        return this.distances.length;
+    }
+}
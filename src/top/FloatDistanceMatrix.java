@@ -0,0 +1,61 @@
+package top;
+
+/**
+ * Matriz de distancias simétrica en precisión simple almacenada en el heap.
+ * <p>
+ * Solo se guarda el triángulo inferior (sin diagonal), por lo que ocupa unos 2·n² bytes,
+ * la cuarta parte que {@link DoubleDistanceMatrix}. Cada distancia se redondea hacia arriba al
+ * {@code float} más cercano, de modo que nunca se subestima un tiempo de viaje: una ruta factible con
+ * esta matriz también lo es con las distancias exactas. El error relativo es el de un {@code float}.
+ */
+public class FloatDistanceMatrix implements DistanceProvider {
+
+    /** Filas del triángulo inferior: la fila i contiene las distancias a los nodos 0..i-1. */
+    private final float[][] rows;
+
+    /**
+     * Constructor de la clase FloatDistanceMatrix.
+     *
+     * @param size Número de nodos.
+     */
+    public FloatDistanceMatrix(int size) {
+        this.rows = new float[size][];
+        for (int i = 0; i < size; i++) {
+            this.rows[i] = new float[i];
+        }
+    }
+
+    @Override
+    public double getDistance(int i, int j) {
+        if (i == j) {
+            return 0.0;
+        }
+        return i > j ? this.rows[i][j] : this.rows[j][i];
+    }
+
+    @Override
+    public void setDistance(int i, int j, double distance) {
+        if (i > j) {
+            this.rows[i][j] = FloatDistanceMatrix.roundUp(distance);
+        } else if (j > i) {
+            this.rows[j][i] = FloatDistanceMatrix.roundUp(distance);
+        }
+    }
+
+    /**
+     * Convierte una distancia a precisión simple redondeando hacia arriba: el menor {@code float}
+     * que no es menor que la distancia.
+     *
+     * @param distance Distancia en doble precisión.
+     * @return Distancia en precisión simple, mayor o igual que la original.
+     */
+    static float roundUp(double distance) {
+        float rounded = (float) distance;
+        return rounded < distance ? Math.nextUp(rounded) : rounded;
+    }
+
+    @Override
+    public int getSize() {
+        return this.rows.length;
+    }
+}
@@ -0,0 +1,195 @@
+package top;
+
+import java.util.Arrays;
+
+/**
+ * Matriz de distancias que calcula las distancias euclídeas bajo demanda a partir de las
+ * coordenadas de los nodos y guarda las filas más usadas en una caché acotada.
+ * <p>
+ * No reserva ni rellena la matriz completa, por lo que la preparación de la instancia es
+ * prácticamente inmediata y la memoria queda limitada a {@code cachedRows} filas aunque la instancia
+ * tenga decenas de miles de nodos. Cuando se pide una distancia, se busca en la fila del origen o,
+ * al ser simétrica, en la del destino. Si ninguna está en caché, la distancia se calcula
+ * directamente; solo cuando una fila acumula {@link #ADMISSION_MISSES} fallos se calcula completa
+ * con {@link DistanceKernels} y se guarda sustituyendo a otra con el algoritmo del reloj (segunda
+ * oportunidad). Así, los accesos dispersos no expulsan de la caché las filas más usadas ni obligan a
+ * calcular filas enteras. Se registran los aciertos, los fallos y las filas calculadas.
+ * <p>
+ * Las distancias no pueden modificarse y la clase no es segura para hilos: cada instancia debe
+ * usarse desde un único hilo de resolución.
+ */
+public class LazyDistanceMatrix implements DistanceProvider {
+
+    /** Fallos de una fila a partir de los cuales se calcula completa y se guarda en caché. */
+    public static final int ADMISSION_MISSES = 4;
+
+    private final double[] x; ///< Coordenada X de cada nodo.
+    private final double[] y; ///< Coordenada Y de cada nodo.
+    private final int size; ///< Número de nodos.
+    private final int scale; ///< Factor de escala con el que se truncan las distancias, o 0 si no se truncan.
+    private final double[][] rows; ///< Filas en caché.
+    private final int[] slotRow; ///< Nodo cuya fila ocupa cada hueco de la caché, o -1.
+    private final boolean[] referenced; ///< Bit de referencia del reloj de cada hueco.
+    private final int[] rowSlot; ///< Hueco que ocupa la fila de cada nodo, o -1.
+    private final byte[] rowMisses; ///< Fallos acumulados por cada fila fuera de la caché.
+    private int hand; ///< Posición de la manecilla del reloj.
+    private long hits; ///< Consultas resueltas con una fila en caché.
+    private long misses; ///< Consultas no resueltas con una fila en caché.
+    private long loadedRows; ///< Filas calculadas y guardadas en caché.
+
+    /**
+     * Constructor de la clase LazyDistanceMatrix.
+     *
+     * @param x Coordenada X de cada nodo (no se copia).
+     * @param y Coordenada Y de cada nodo (no se copia).
+     * @param size Número de nodos.
+     * @param cachedRows Número máximo de filas en caché (al menos 1).
+     * @param scale Factor de escala (10^decimales) con el que se truncan las distancias, o 0.
+     */
+    public LazyDistanceMatrix(double[] x, double[] y, int size, int cachedRows, int scale) {
+        this.x = x;
+        this.y = y;
+        this.size = size;
+        this.scale = scale;
+        int capacity = Math.max(1, Math.min(cachedRows, size));
+        this.rows = new double[capacity][];
+        this.slotRow = new int[capacity];
+        this.referenced = new boolean[capacity];
+        this.rowSlot = new int[size];
+        this.rowMisses = new byte[size];
+        Arrays.fill(this.slotRow, -1);
+        Arrays.fill(this.rowSlot, -1);
+        this.hand = 0;
+    }
+
+    @Override
+    public double getDistance(int i, int j) {
+        int slot = this.rowSlot[i];
+        if (slot >= 0) {
+            this.hits++;
+            this.referenced[slot] = true;
+            return this.rows[slot][j];
+        }
+        slot = this.rowSlot[j];
+        if (slot >= 0) {
+            this.hits++;
+            this.referenced[slot] = true;
+            return this.rows[slot][i];
+        }
+        this.misses++;
+        if (++this.rowMisses[i] >= ADMISSION_MISSES) {
+            this.rowMisses[i] = 0;
+            return this.loadRow(i)[j];
+        }
+        double diffXs = this.x[i] - this.x[j];
+        double diffYs = this.y[i] - this.y[j];
+        double distance = Math.sqrt(diffXs * diffXs + diffYs * diffYs);
+        return this.scale > 0 ? Math.floor(distance * this.scale) / this.scale : distance;
+    }
+
+    /**
+     * Las distancias se derivan de las coordenadas y no pueden modificarse.
+     *
+     * @throws UnsupportedOperationException Siempre.
+     */
+    @Override
+    public void setDistance(int i, int j, double distance) {
+        throw new UnsupportedOperationException("Lazy distances are derived from the coordinates");
+    }
+
+    @Override
+    public int getSize() {
+        return this.size;
+    }
+
+    /**
+     * La caché se modifica en cada consulta, por lo que no admite consultas concurrentes.
+     *
+     * @return false.
+     */
+    @Override
+    public boolean isConcurrent() {
+        return false;
+    }
+
+    /**
+     * Calcula la fila de un nodo y la guarda en la caché, sustituyendo a la primera fila sin
+     * referencia reciente que encuentre la manecilla del reloj.
+     *
+     * @param i Nodo cuya fila se calcula.
+     * @return La fila calculada.
+     */
+    private double[] loadRow(int i) {
+        while (this.referenced[this.hand]) {
+            this.referenced[this.hand] = false;
+            this.hand = (this.hand + 1) % this.rows.length;
+        }
+        int slot = this.hand;
+        this.hand = (this.hand + 1) % this.rows.length;
+        if (this.slotRow[slot] >= 0) {
+            this.rowSlot[this.slotRow[slot]] = -1;
+        }
+        double[] row = this.rows[slot];
+        if (row == null) {
+            row = new double[this.size];
+            this.rows[slot] = row;
+        }
+        DistanceKernels.distances(this.x, this.y, i, this.size, row);
+        if (this.scale > 0) {
+            for (int j = 0; j < this.size; j++) {
+                row[j] = Math.floor(row[j] * this.scale) / this.scale;
+            }
+        }
+        this.slotRow[slot] = i;
+        this.rowSlot[i] = slot;
+        this.referenced[slot] = true;
+        this.loadedRows++;
+        return row;
+    }
+
+    /**
+     * Obtiene el número de consultas resueltas con una fila en caché.
+     *
+     * @return Número de aciertos.
+     */
+    public long getHits() {
+        return this.hits;
+    }
+
+    /**
+     * Obtiene el número de consultas no resueltas con una fila en caché.
+     *
+     * @return Número de fallos.
+     */
+    public long getMisses() {
+        return this.misses;
+    }
+
+    /**
+     * Obtiene el número de filas calculadas y guardadas en caché.
+     *
+     * @return Número de filas calculadas.
+     */
+    public long getLoadedRows() {
+        return this.loadedRows;
+    }
+
+    /**
+     * Obtiene la proporción de consultas resueltas con una fila en caché.
+     *
+     * @return Tasa de aciertos entre 0 y 1 (0 si no ha habido consultas).
+     */
+    public double getHitRate() {
+        long total = this.hits + this.misses;
+        return total > 0 ? (double) this.hits / total : 0.0;
+    }
+
+    /**
+     * Pone a cero los contadores de aciertos, fallos y filas calculadas.
+     */
+    public void resetStatistics() {
+        this.hits = 0;
+        this.misses = 0;
+        this.loadedRows = 0;
+    }
+}
@@ -0,0 +1,138 @@
+package top;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * Matriz de distancias simétrica en precisión simple almacenada fuera del heap.
+ * <p>
+ * El triángulo inferior (sin diagonal) se reparte en bloques de {@link ByteBuffer} directos o
+ * proyectados en memoria desde un fichero, de modo que la matriz no cuenta para el heap ni es
+ * recorrida por el recolector de basura. Con un fichero proyectado, el sistema operativo pagina
+ * las distancias a disco cuando no caben en memoria física. Como en {@link FloatDistanceMatrix},
+ * cada distancia se redondea hacia arriba al {@code float} más cercano.
+ */
+public class OffHeapDistanceMatrix implements DistanceProvider {
+
+    /** Bytes que ocupa cada distancia. */
+    private static final int FLOAT_BYTES = 4;
+
+    /** Número de distancias por bloque (1 GiB por bloque). */
+    private static final long CHUNK_FLOATS = 1L << 28;
+
+    /** Bloques de memoria que contienen el triángulo inferior de la matriz. */
+    private final ByteBuffer[] chunks;
+
+    /** Número de nodos. */
+    private final int size;
+
+    /**
+     * Constructor que reserva la matriz en buffers directos.
+     *
+     * @param size Número de nodos.
+     */
+    public OffHeapDistanceMatrix(int size) {
+        this.size = size;
+        long entries = OffHeapDistanceMatrix.entries(size);
+        this.chunks = new ByteBuffer[OffHeapDistanceMatrix.chunkCount(entries)];
+        for (int c = 0; c < this.chunks.length; c++) {
+            int bytes = (int) (OffHeapDistanceMatrix.chunkFloats(entries, c) * FLOAT_BYTES);
+            this.chunks[c] = ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+        }
+    }
+
+    /**
+     * Constructor que proyecta la matriz en memoria desde un fichero.
+     *
+     * @param size Número de nodos.
+     * @param file Fichero que respalda la matriz; se crea o se amplía si es necesario.
+     * @throws IOException Si no se puede crear o proyectar el fichero.
+     */
+    public OffHeapDistanceMatrix(int size, File file) throws IOException {
+        this.size = size;
+        long entries = OffHeapDistanceMatrix.entries(size);
+        this.chunks = new ByteBuffer[OffHeapDistanceMatrix.chunkCount(entries)];
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            FileChannel channel = raf.getChannel();
+            for (int c = 0; c < this.chunks.length; c++) {
+                long offset = c * CHUNK_FLOATS * FLOAT_BYTES;
+                long bytes = OffHeapDistanceMatrix.chunkFloats(entries, c) * FLOAT_BYTES;
+                this.chunks[c] = channel.map(FileChannel.MapMode.READ_WRITE, offset, bytes)
+                        .order(ByteOrder.nativeOrder());
+            }
+        } finally {
+            raf.close(); // Las proyecciones siguen siendo válidas tras cerrar el fichero.
+        }
+    }
+
+    @Override
+    public double getDistance(int i, int j) {
+        if (i == j) {
+            return 0.0;
+        }
+        long index = i > j ? OffHeapDistanceMatrix.index(i, j) : OffHeapDistanceMatrix.index(j, i);
+        return this.chunks[(int) (index / CHUNK_FLOATS)].getFloat((int) (index % CHUNK_FLOATS) * FLOAT_BYTES);
+    }
+
+    @Override
+    public void setDistance(int i, int j, double distance) {
+        if (i == j) {
+            return;
+        }
+        long index = i > j ? OffHeapDistanceMatrix.index(i, j) : OffHeapDistanceMatrix.index(j, i);
+        this.chunks[(int) (index / CHUNK_FLOATS)].putFloat((int) (index % CHUNK_FLOATS) * FLOAT_BYTES,
+                FloatDistanceMatrix.roundUp(distance));
+    }
+
+    @Override
+    public int getSize() {
+        return this.size;
+    }
+
+    /**
+     * Calcula la posición lineal del par (i, j), con i mayor que j, dentro del triángulo inferior.
+     *
+     * @param i Fila (mayor índice).
+     * @param j Columna (menor índice).
+     * @return Posición lineal.
+     */
+    private static long index(int i, int j) {
+        return (long) i * (i - 1) / 2 + j;
+    }
+
+    /**
+     * Calcula el número de distancias del triángulo inferior.
+     *
+     * @param size Número de nodos.
+     * @return Número de distancias almacenadas.
+     */
+    private static long entries(int size) {
+        return (long) size * (size - 1) / 2;
+    }
+
+    /**
+     * Calcula el número de bloques necesarios (al menos uno).
+     *
+     * @param entries Número de distancias almacenadas.
+     * @return Número de bloques.
+     */
+    private static int chunkCount(long entries) {
+        return (int) Math.max(1, (entries + CHUNK_FLOATS - 1) / CHUNK_FLOATS);
+    }
+
+    /**
+     * Calcula el número de distancias del bloque indicado.
+     *
+     * @param entries Número total de distancias almacenadas.
+     * @param chunk Índice del bloque.
+     * @return Número de distancias del bloque.
+     */
+    private static long chunkFloats(long entries, int chunk) {
+        return Math.max(0, Math.min(CHUNK_FLOATS, entries - chunk * CHUNK_FLOATS));
+    }
+}
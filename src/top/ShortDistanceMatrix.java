@@ -0,0 +1,68 @@
+package top;
+
+/**
+ * Matriz de distancias simétrica cuantizada a 16 bits sin signo almacenada en el heap.
+ * <p>
+ * Solo se guarda el triángulo inferior (sin diagonal), por lo que ocupa aproximadamente n² bytes.
+ * Cada distancia se redondea hacia arriba al siguiente múltiplo de {@code maxDistance / 65535}, de
+ * modo que nunca se subestima un tiempo de viaje (una ruta factible con esta matriz también lo es con
+ * las distancias exactas) y el error absoluto está acotado por ese paso.
+ */
+public class ShortDistanceMatrix implements DistanceProvider {
+
+    /** Mayor valor representable con 16 bits sin signo. */
+    private static final int MAX_LEVEL = 0xFFFF;
+
+    /** Filas del triángulo inferior: la fila i contiene las distancias a los nodos 0..i-1. */
+    private final char[][] rows;
+
+    /** Distancia que representa cada nivel de cuantización. */
+    private final double step;
+
+    /**
+     * Constructor de la clase ShortDistanceMatrix.
+     *
+     * @param size Número de nodos.
+     * @param maxDistance Cota superior de las distancias a almacenar.
+     */
+    public ShortDistanceMatrix(int size, double maxDistance) {
+        this.rows = new char[size][];
+        for (int i = 0; i < size; i++) {
+            this.rows[i] = new char[i];
+        }
+        this.step = maxDistance > 0.0 ? maxDistance / MAX_LEVEL : 1.0;
+    }
+
+    @Override
+    public double getDistance(int i, int j) {
+        if (i == j) {
+            return 0.0;
+        }
+        return (i > j ? this.rows[i][j] : this.rows[j][i]) * this.step;
+    }
+
+    @Override
+    public void setDistance(int i, int j, double distance) {
+        long level = (long) Math.ceil(distance / this.step);
+        char quantized = (char) Math.max(0, Math.min(MAX_LEVEL, level));
+        if (i > j) {
+            this.rows[i][j] = quantized;
+        } else if (j > i) {
+            this.rows[j][i] = quantized;
+        }
+    }
+
+    @Override
+    public int getSize() {
+        return this.rows.length;
+    }
+
+    /**
+     * Obtiene la distancia que representa cada nivel de cuantización.
+     *
+     * @return Paso de cuantización.
+     */
+    public double getStep() {
+        return this.step;
+    }
+}
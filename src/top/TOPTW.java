@@ -11,6 +11,16 @@ import es.ull.esit.utilities.ExpositoUtilities;
  * necesarios para resolver el problema.
  */
 public class TOPTW {
+    public static final int SOLOMON_DECIMALS = 1; ///< Decimales de las distancias en las instancias de Solomon.
+    public static final int CORDEAU_DECIMALS = 2; ///< Decimales de las distancias en las instancias de Cordeau et al.
+    public static final int MATRIX_DOUBLE = 0; ///< Matriz de distancias completa en doble precisión.
+    public static final int MATRIX_FLOAT = 1; ///< Matriz de distancias simétrica en precisión simple.
+    public static final int MATRIX_SHORT = 2; ///< Matriz de distancias simétrica cuantizada a 16 bits.
+    public static final int MATRIX_OFF_HEAP = 3; ///< Matriz de distancias simétrica fuera del heap.
+    public static final int MATRIX_LAZY = 4; ///< Distancias calculadas bajo demanda con caché de filas.
+    public static final long LAZY_CACHE_BYTES = 64L << 20; ///< Memoria máxima de la caché de filas bajo demanda.
+    public static final long COMPATIBILITY_MAX_BYTES = 64L << 20; ///< Memoria máxima de la matriz de compatibilidad.
+
     private int nodes; ///< Número de nodos (puntos de interés).
     private double[] x; ///< Coordenada X de cada nodo.
     private double[] y; ///< Coordenada Y de cada nodo.
@@ -22,7 +32,15 @@ public class TOPTW {
     private int depots; ///< Número de depósitos.
     private double maxTimePerRoute; ///< Tiempo máximo permitido por ruta.
     private double maxRoutes; ///< Máximo número de rutas permitidas.
-    private double[][] distanceMatrix; ///< Matriz de distancias entre los nodos.
+    private int distanceBackend; ///< Representación de la matriz de distancias (constantes MATRIX_*).
+    private DistanceProvider distanceMatrix; ///< Matriz de distancias entre los nodos.
+    private int distanceScale; ///< Factor de escala (10^decimales) de la aritmética entera; 0 si está desactivada.
+    private int[][] scaledDistanceMatrix; ///< Matriz de distancias escaladas a enteros (solo con MATRIX_DOUBLE).
+    private int[] scaledReadyTime; ///< Inicio de las ventanas de tiempo escalado a enteros.
+    private int[] scaledDueTime; ///< Fin de las ventanas de tiempo escalado a enteros.
+    private int[] scaledServiceTime; ///< Tiempos de servicio escalados a enteros.
+    private long[] compatibility; ///< Bits "j puede seguir a i", por filas de compatibilityWords palabras.
+    private int compatibilityWords; ///< Palabras de 64 bits por fila de la matriz de compatibilidad.
 
     /**
      * Constructor de la clase TOPTW.
@@ -39,14 +57,11 @@ public class TOPTW {
         this.readyTime = new double[this.nodes + 1];
         this.dueTime = new double[this.nodes + 1];
         this.serviceTime = new double[this.nodes + 1];
-        this.distanceMatrix = new double[this.nodes + 1][this.nodes + 1];
-        for (int i = 0; i < this.nodes + 1; i++) {
-            for (int j = 0; j < this.nodes + 1; j++) {
-                this.distanceMatrix[i][j] = 0.0;
-            }
-        }
+        this.distanceBackend = TOPTW.MATRIX_DOUBLE;
+        this.distanceMatrix = null; // Se reserva al calcular las distancias.
         this.maxRoutes = routes;
         this.vehicles = routes;
+        this.distanceScale = 0;
     }
 
     /**
@@ -107,20 +122,332 @@ public class TOPTW {
 
     /**
      * Calcula la matriz de distancias entre los nodos en base a sus coordenadas.
+     * <p>
+     * Si la aritmética entera está activada, las distancias se truncan al número de decimales
+     * configurado, tal y como se hace en la literatura, y se construyen también las versiones
+     * escaladas a enteros de distancias, ventanas y tiempos de servicio. La matriz de distancias
+     * escaladas solo se guarda con {@link #MATRIX_DOUBLE}: con las representaciones compactas
+     * duplicaría su memoria, así que las distancias escaladas se obtienen de la representación elegida
+     * (véase {@link #getScaledDistance(int, int)}).
+     * <p>
+     * Con {@link #MATRIX_LAZY} no se calcula ninguna distancia por adelantado ni la matriz de
+     * compatibilidad (todos los pares se consideran compatibles), y las distancias escaladas se
+     * obtienen bajo demanda. Tampoco se calcula la matriz de compatibilidad si ocuparía más de
+     * {@link #COMPATIBILITY_MAX_BYTES}.
      */
     public void calculateDistanceMatrix() {
-        for (int i = 0; i < this.nodes + 1; i++) {
-            for (int j = 0; j < this.nodes + 1; j++) {
-                if (i != j) {
-                    double diffXs = this.x[i] - this.x[j];
-                    double diffYs = this.y[i] - this.y[j];
-                    this.distanceMatrix[i][j] = Math.sqrt(diffXs * diffXs + diffYs * diffYs);
-                    this.distanceMatrix[j][i] = this.distanceMatrix[i][j];
-                } else {
-                    this.distanceMatrix[i][j] = 0.0;
+        if (this.distanceMatrix == null || this.distanceMatrix.getSize() != this.nodes + 1) {
+            this.distanceMatrix = this.createDistanceProvider();
+        }
+        boolean lazy = this.distanceMatrix instanceof LazyDistanceMatrix;
+        this.scaledDistanceMatrix = null;
+        if (this.isScaled() && this.distanceBackend == TOPTW.MATRIX_DOUBLE) {
+            this.scaledDistanceMatrix = new int[this.nodes + 1][this.nodes + 1];
+        }
+        double[] row = new double[lazy ? 0 : this.nodes + 1];
+        for (int i = 0; i < this.nodes + 1 && !lazy; i++) {
+            DistanceKernels.distances(this.x, this.y, i, i, row);
+            for (int j = 0; j < i; j++) {
+                double distance = row[j];
+                if (this.isScaled()) {
+                    int scaled = (int) Math.floor(distance * this.distanceScale);
+                    if (this.scaledDistanceMatrix != null) {
+                        this.scaledDistanceMatrix[i][j] = scaled;
+                        this.scaledDistanceMatrix[j][i] = scaled;
+                    }
+                    distance = this.fromScaled(scaled);
                 }
+                this.distanceMatrix.setDistance(i, j, distance);
+                this.distanceMatrix.setDistance(j, i, distance);
+            }
+            this.distanceMatrix.setDistance(i, i, 0.0);
+        }
+        if (this.isScaled()) {
+            this.scaledReadyTime = new int[this.nodes + 1];
+            this.scaledDueTime = new int[this.nodes + 1];
+            this.scaledServiceTime = new int[this.nodes + 1];
+            for (int i = 0; i < this.nodes + 1; i++) {
+                this.scaledReadyTime[i] = this.toScaled(this.readyTime[i]);
+                this.scaledDueTime[i] = this.toScaled(this.dueTime[i]);
+                this.scaledServiceTime[i] = this.toScaled(this.serviceTime[i]);
             }
         }
+        this.compatibility = null;
+        if (!lazy) {
+            this.calculateCompatibility();
+        }
+    }
+
+    /**
+     * Precalcula qué pares de nodos pueden visitarse de forma consecutiva.
+     * <p>
+     * El nodo j no puede seguir al nodo i si, aun empezando el servicio de i en la apertura de su
+     * ventana, se llega a j después del cierre de la suya:
+     * {@code readyTime[i] + serviceTime[i] + d(i, j) > dueTime[j]}. El resultado se guarda como una
+     * matriz de bits de (nodos + 1)^2 bits (unos 1,3 KB para 100 clientes). Por encima de
+     * {@link #COMPATIBILITY_MAX_BYTES} (unos 23.000 nodos) no se calcula, igual que con las
+     * distancias bajo demanda, para no anular el ahorro de las representaciones compactas.
+     * <p>
+     * La vuelta al depósito (columna 0) no se guarda: la limita el tiempo máximo por ruta, que puede
+     * cambiar después de calcular la matriz, y no el fin de la ventana del depósito.
+     */
+    private void calculateCompatibility() {
+        int size = this.nodes + 1;
+        int words = (size + 63) >>> 6;
+        if ((long) size * words * Long.BYTES > COMPATIBILITY_MAX_BYTES) {
+            return;
+        }
+        this.compatibilityWords = words;
+        this.compatibility = new long[(int) ((long) size * words)];
+        for (int i = 0; i < size; i++) {
+            long row = (long) i * words;
+            if (this.isScaled()) {
+                // Comparación exacta con las ventanas escaladas, como en la factibilidad de las rutas.
+                long earliestLeave = (long) this.scaledReadyTime[i] + this.scaledServiceTime[i];
+                for (int j = 1; j < size; j++) {
+                    if (earliestLeave + this.getScaledDistance(i, j) <= this.scaledDueTime[j]) {
+                        this.compatibility[(int) (row + (j >>> 6))] |= 1L << j;
+                    }
+                }
+                continue;
+            }
+            double earliestLeave = this.readyTime[i] + this.serviceTime[i];
+            for (int j = 1; j < size; j++) {
+                if (earliestLeave + this.distanceMatrix.getDistance(i, j) <= this.dueTime[j]) {
+                    this.compatibility[(int) (row + (j >>> 6))] |= 1L << j;
+                }
+            }
+        }
+    }
+
+    /**
+     * Indica si el nodo j puede visitarse inmediatamente después del nodo i según las ventanas de
+     * tiempo. Es una condición necesaria (no suficiente) para insertar j a continuación de i.
+     *
+     * @param i Nodo anterior (los depósitos se tratan como el nodo 0).
+     * @param j Nodo siguiente (la vuelta a un depósito siempre es compatible; la limita el tiempo
+     *          máximo por ruta).
+     * @return false si j nunca puede seguir a i; true en caso contrario o si no se ha calculado la
+     *         matriz de compatibilidad.
+     */
+    public boolean isCompatible(int i, int j) {
+        if (this.compatibility == null || j == 0 || this.isDepot(j)) {
+            return true;
+        }
+        if (this.isDepot(i)) {
+            i = 0;
+        }
+        return (this.compatibility[(int) ((long) i * this.compatibilityWords + (j >>> 6))] & (1L << j)) != 0;
+    }
+
+    /**
+     * Crea la matriz de distancias vacía según la representación configurada.
+     *
+     * @return Matriz de distancias para todos los nodos de la instancia.
+     */
+    private DistanceProvider createDistanceProvider() {
+        int size = this.nodes + 1;
+        switch (this.distanceBackend) {
+            case TOPTW.MATRIX_FLOAT:
+                return new FloatDistanceMatrix(size);
+            case TOPTW.MATRIX_SHORT:
+                // La diagonal de la caja que contiene todos los nodos acota cualquier distancia.
+                double minX = Double.MAX_VALUE, maxX = -Double.MAX_VALUE;
+                double minY = Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+                for (int i = 0; i < size; i++) {
+                    minX = Math.min(minX, this.x[i]);
+                    maxX = Math.max(maxX, this.x[i]);
+                    minY = Math.min(minY, this.y[i]);
+                    maxY = Math.max(maxY, this.y[i]);
+                }
+                return new ShortDistanceMatrix(size, Math.hypot(maxX - minX, maxY - minY));
+            case TOPTW.MATRIX_OFF_HEAP:
+                return new OffHeapDistanceMatrix(size);
+            case TOPTW.MATRIX_LAZY:
+                return new LazyDistanceMatrix(this.x, this.y, size, (int) Math.min(size, LAZY_CACHE_BYTES / (8L * size)),
+                        this.distanceScale);
+            default:
+                return new DoubleDistanceMatrix(size);
+        }
+    }
+
+    /**
+     * Configura la representación de la matriz de distancias.
+     * <p>
+     * Las representaciones en precisión simple ({@link #MATRIX_FLOAT}, {@link #MATRIX_OFF_HEAP}) y
+     * cuantizada ({@link #MATRIX_SHORT}) redondean cada distancia hacia arriba, de modo que las rutas
+     * que construyen son factibles también con las distancias exactas, aunque pueden descartar alguna
+     * inserción que cabría por muy poco.
+     * <p>
+     * Debe llamarse antes de {@link #calculateDistanceMatrix()}.
+     *
+     * @param distanceBackend Una de las constantes {@code MATRIX_*}.
+     */
+    public void setDistanceBackend(int distanceBackend) {
+        this.distanceBackend = distanceBackend;
+    }
+
+    /**
+     * Retorna la representación configurada de la matriz de distancias.
+     *
+     * @return Una de las constantes {@code MATRIX_*}.
+     */
+    public int getDistanceBackend() {
+        return this.distanceBackend;
+    }
+
+    /**
+     * Retorna la matriz de distancias de la instancia.
+     *
+     * @return Proveedor de distancias, o null si aún no se han calculado.
+     */
+    public DistanceProvider getDistanceProvider() {
+        return this.distanceMatrix;
+    }
+
+    /**
+     * Establece una matriz de distancias ya creada, por ejemplo una proyectada desde un fichero.
+     * <p>
+     * Si su tamaño coincide con el de la instancia, {@link #calculateDistanceMatrix()} la rellena
+     * en lugar de reservar una nueva.
+     *
+     * @param distanceMatrix Proveedor de distancias.
+     */
+    public void setDistanceProvider(DistanceProvider distanceMatrix) {
+        this.distanceMatrix = distanceMatrix;
+    }
+
+    /**
+     * Activa la aritmética entera escalada con el número de decimales indicado.
+     * <p>
+     * Debe llamarse antes de {@link #calculateDistanceMatrix()}. Las instancias de Solomon usan
+     * {@link #SOLOMON_DECIMALS} y las de Cordeau et al. {@link #CORDEAU_DECIMALS}.
+     *
+     * @param decimals Número de decimales a conservar en las distancias.
+     */
+    public void setScaledDecimals(int decimals) {
+        int scale = 1;
+        for (int i = 0; i < decimals; i++) {
+            scale *= 10;
+        }
+        this.distanceScale = scale;
+    }
+
+    /**
+     * Indica si la instancia utiliza aritmética entera escalada.
+     *
+     * @return true si las distancias y tiempos se almacenan escalados a enteros.
+     */
+    public boolean isScaled() {
+        return this.distanceScale > 0;
+    }
+
+    /**
+     * Retorna el factor de escala de la aritmética entera.
+     *
+     * @return Factor de escala (10^decimales), o 0 si está desactivada.
+     */
+    public int getDistanceScale() {
+        return this.distanceScale;
+    }
+
+    /**
+     * Convierte un tiempo o distancia a su valor entero escalado.
+     *
+     * @param value Valor a convertir.
+     * @return Valor escalado a entero.
+     */
+    public int toScaled(double value) {
+        return (int) Math.round(value * this.distanceScale);
+    }
+
+    /**
+     * Convierte un valor entero escalado a su valor real.
+     *
+     * @param value Valor escalado.
+     * @return Valor real correspondiente.
+     */
+    public double fromScaled(long value) {
+        return (double) value / this.distanceScale;
+    }
+
+    /**
+     * Retorna la distancia entre dos nodos. Los depósitos de cada ruta se tratan como el nodo 0.
+     *
+     * @param i Nodo de origen.
+     * @param j Nodo de destino.
+     * @return Distancia entre ambos nodos.
+     */
+    public double getDistance(int i, int j) {
+        if (this.isDepot(i)) {
+            i = 0;
+        }
+        if (this.isDepot(j)) {
+            j = 0;
+        }
+        return this.distanceMatrix.getDistance(i, j);
+    }
+
+    /**
+     * Retorna el tiempo de viaje entre dos nodos, que coincide con su distancia.
+     *
+     * @param i Nodo de origen.
+     * @param j Nodo de destino.
+     * @return Tiempo de viaje entre ambos nodos.
+     */
+    public double getTime(int i, int j) {
+        return this.getDistance(i, j);
+    }
+
+    /**
+     * Retorna la distancia escalada a entero entre dos nodos.
+     *
+     * @param i Nodo de origen.
+     * @param j Nodo de destino.
+     * @return Distancia truncada y escalada.
+     */
+    public int getScaledDistance(int i, int j) {
+        if (this.isDepot(i)) {
+            i = 0;
+        }
+        if (this.isDepot(j)) {
+            j = 0;
+        }
+        if (this.scaledDistanceMatrix == null) {
+            // Representaciones compactas y distancias bajo demanda: se escala la distancia guardada.
+            return this.toScaled(this.distanceMatrix.getDistance(i, j));
+        }
+        return this.scaledDistanceMatrix[i][j];
+    }
+
+    /**
+     * Retorna el inicio escalado de la ventana de tiempo de un nodo.
+     *
+     * @param i Nodo.
+     * @return Inicio de la ventana escalado a entero.
+     */
+    public int getScaledReadyTime(int i) {
+        return this.scaledReadyTime[this.isDepot(i) ? 0 : i];
+    }
+
+    /**
+     * Retorna el fin escalado de la ventana de tiempo de un nodo.
+     *
+     * @param i Nodo.
+     * @return Fin de la ventana escalado a entero.
+     */
+    public int getScaledDueTime(int i) {
+        return this.scaledDueTime[this.isDepot(i) ? 0 : i];
+    }
+
+    /**
+     * Retorna el tiempo de servicio escalado de un nodo.
+     *
+     * @param i Nodo.
+     * @return Tiempo de servicio escalado a entero.
+     */
+    public int getScaledServiceTime(int i) {
+        return this.scaledServiceTime[this.isDepot(i) ? 0 : i];
     }
 
     // Métodos getter y setter para maxTimePerRoute, maxRoutes y vehicles
@@ -157,7 +484,141 @@ public class TOPTW {
         this.maxRoutes = maxRoutes;
     }
 
-    // Otros métodos como getPOIs(), getDistance(), getTime(), y getters y setters para coordenadas y tiempos...
+    // Métodos getter y setter de las coordenadas, puntuaciones y tiempos de cada nodo. Los depósitos
+    // de cada ruta se tratan como el nodo 0, igual que en getDistance(int, int).
+
+    /**
+     * Retorna la coordenada X de un nodo.
+     *
+     * @param i Nodo.
+     * @return Coordenada X del nodo.
+     */
+    public double getX(int i) {
+        return this.x[this.isDepot(i) ? 0 : i];
+    }
+
+    /**
+     * Configura la coordenada X de un nodo.
+     *
+     * @param i Nodo.
+     * @param value Coordenada X del nodo.
+     */
+    public void setX(int i, double value) {
+        this.x[i] = value;
+    }
+
+    /**
+     * Retorna la coordenada Y de un nodo.
+     *
+     * @param i Nodo.
+     * @return Coordenada Y del nodo.
+     */
+    public double getY(int i) {
+        return this.y[this.isDepot(i) ? 0 : i];
+    }
+
+    /**
+     * Configura la coordenada Y de un nodo.
+     *
+     * @param i Nodo.
+     * @param value Coordenada Y del nodo.
+     */
+    public void setY(int i, double value) {
+        this.y[i] = value;
+    }
+
+    /**
+     * Retorna la puntuación de un nodo.
+     *
+     * @param i Nodo.
+     * @return Puntuación del nodo.
+     */
+    public double getScore(int i) {
+        return this.score[this.isDepot(i) ? 0 : i];
+    }
+
+    /**
+     * Configura la puntuación de un nodo.
+     *
+     * @param i Nodo.
+     * @param value Puntuación del nodo.
+     */
+    public void setScore(int i, double value) {
+        this.score[i] = value;
+    }
+
+    /**
+     * Retorna el inicio de la ventana de tiempo de un nodo.
+     *
+     * @param i Nodo.
+     * @return Inicio de la ventana de tiempo del nodo.
+     */
+    public double getReadyTime(int i) {
+        return this.readyTime[this.isDepot(i) ? 0 : i];
+    }
+
+    /**
+     * Configura el inicio de la ventana de tiempo de un nodo.
+     *
+     * @param i Nodo.
+     * @param value Inicio de la ventana de tiempo del nodo.
+     */
+    public void setReadyTime(int i, double value) {
+        this.readyTime[i] = value;
+    }
+
+    /**
+     * Retorna el fin de la ventana de tiempo de un nodo.
+     *
+     * @param i Nodo.
+     * @return Fin de la ventana de tiempo del nodo.
+     */
+    public double getDueTime(int i) {
+        return this.dueTime[this.isDepot(i) ? 0 : i];
+    }
+
+    /**
+     * Configura el fin de la ventana de tiempo de un nodo.
+     *
+     * @param i Nodo.
+     * @param value Fin de la ventana de tiempo del nodo.
+     */
+    public void setDueTime(int i, double value) {
+        this.dueTime[i] = value;
+    }
+
+    /**
+     * Retorna el tiempo de servicio de un nodo.
+     *
+     * @param i Nodo.
+     * @return Tiempo de servicio del nodo.
+     */
+    public double getServiceTime(int i) {
+        return this.serviceTime[this.isDepot(i) ? 0 : i];
+    }
+
+    /**
+     * Configura el tiempo de servicio de un nodo.
+     *
+     * @param i Nodo.
+     * @param value Tiempo de servicio del nodo.
+     */
+    public void setServiceTime(int i, double value) {
+        this.serviceTime[i] = value;
+    }
+
+    /**
+     * Retorna la mayor puntuación de los nodos de la instancia.
+     *
+     * @return Puntuación máxima.
+     */
+    public double getMaxScore() {
+        double maxScore = 0.0;
+        for (int i = 0; i <= this.nodes; i++) {
+            maxScore = Math.max(maxScore, this.score[i]);
+        }
+        return maxScore;
+    }
 
     @Override
     public String toString() {
@@ -166,7 +627,7 @@ public class TOPTW {
         String[] strings = new String[]{"CUST NO.", "XCOORD.", "YCOORD.", "SCORE", "READY TIME", "DUE DATE", "SERVICE TIME"};
         int[] width = new int[strings.length];
         Arrays.fill(width, COLUMN_WIDTH);
-        text += ExpositoUtilities.getFormat(strings, width.length) + "\n";
+        text += ExpositoUtilities.getFormat(strings, width) + "\n";
         for (int i = 0; i < this.nodes; i++) {
             strings = new String[strings.length];
             int index = 0;
@@ -210,6 +671,15 @@ public class TOPTW {
         return vehicles;
     }
 
+    /**
+     * Configura el número de vehículos (rutas) disponibles.
+     * @param vehicles Número de vehículos.
+     */
+    public void setVehicles(int vehicles) {
+        this.vehicles = vehicles;
+        this.maxRoutes = vehicles;
+    }
+
     public int getPOIs() {
         return nodes;
     }
@@ -0,0 +1,416 @@
+package top;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Búsqueda adaptativa en vecindarios grandes (ALNS) para el problema TOPTW.
+ * <p>
+ * En cada iteración se destruye parte de la solución actual con uno de los operadores de
+ * eliminación y se repara con la construcción voraz de {@link TOPTWGRASP}: los clientes que quedan
+ * se conservan en sus rutas y en su orden, y los eliminados y los no visitados se vuelven a
+ * insertar mediante la selección difusa en la RCL. Los operadores son:
+ * <ul>
+ *   <li>{@link #REMOVAL_RANDOM}: clientes al azar.</li>
+ *   <li>{@link #REMOVAL_WORST_RATIO}: clientes con menor puntuación por unidad de desvío.</li>
+ *   <li>{@link #REMOVAL_RELATED}: los clientes más cercanos a uno elegido al azar.</li>
+ *   <li>{@link #REMOVAL_TIME_WINDOW}: los clientes con la ventana de tiempo más próxima a la de uno
+ *       elegido al azar.</li>
+ * </ul>
+ * El operador se elige por ruleta según su peso, que se ajusta cada {@link #SEGMENT_ITERATIONS}
+ * iteraciones según el éxito obtenido en el segmento (nueva mejor solución, mejora de la actual o
+ * aceptación de una peor). Las soluciones peores se aceptan con el criterio de recocido simulado, y
+ * la búsqueda termina al agotar las iteraciones o al alcanzar la cota superior de la instancia.
+ */
+public class TOPTWALNS {
+
+    public static final int REMOVAL_RANDOM = 0; ///< Eliminación aleatoria.
+    public static final int REMOVAL_WORST_RATIO = 1; ///< Eliminación de los clientes con peor relación puntuación/desvío.
+    public static final int REMOVAL_RELATED = 2; ///< Eliminación de clientes cercanos en el espacio.
+    public static final int REMOVAL_TIME_WINDOW = 3; ///< Eliminación de clientes con ventanas de tiempo próximas.
+    public static final int OPERATORS = 4; ///< Número de operadores de eliminación.
+
+    /** Iteraciones entre dos actualizaciones de los pesos de los operadores. */
+    public static final int SEGMENT_ITERATIONS = 100;
+
+    /** Recompensa de un operador que encuentra una nueva mejor solución. */
+    private static final double SCORE_BEST = 33.0;
+
+    /** Recompensa de un operador que mejora la solución actual. */
+    private static final double SCORE_IMPROVED = 9.0;
+
+    /** Recompensa de un operador cuya solución peor se acepta. */
+    private static final double SCORE_ACCEPTED = 13.0;
+
+    /** Peso del historial frente al último segmento en la actualización de los pesos. */
+    private static final double REACTION = 0.1;
+
+    /** Fracciones mínima y máxima de los clientes visitados que se eliminan. */
+    private static final double MIN_REMOVAL = 0.1, MAX_REMOVAL = 0.4;
+
+    /** Empeoramiento relativo que se acepta con probabilidad 1/2 al comienzo del recocido. */
+    private static final double START_WORSENING = 0.05;
+
+    /** Temperatura final respecto a la inicial. */
+    private static final double FINAL_TEMPERATURE = 0.001;
+
+    /** Exponente de aleatorización de las eliminaciones ordenadas (mayor es más determinista). */
+    private static final double RANDOMIZATION = 3.0;
+
+    private final TOPTWSolution solution; ///< Solución de trabajo, compartida con la construcción voraz.
+    private final TOPTWGRASP grasp; ///< Construcción voraz con la que se reparan las soluciones.
+    private final TOPTW problem; ///< Instancia del problema.
+    private SplittableRandom random; ///< Generador aleatorio.
+    private final double[] weights; ///< Peso de cada operador de eliminación.
+    private final long[] uses; ///< Veces que se ha aplicado cada operador.
+    private double bestFitness; ///< Mejor fitness encontrado.
+    private ArrayList<ArrayList<Integer>> bestRoutes; ///< Rutas de la mejor solución.
+    private int iterations; ///< Iteraciones realizadas.
+    private long solutionTime; ///< Tiempo (ms) de la última búsqueda.
+
+    /**
+     * Constructor de la clase TOPTWALNS.
+     *
+     * @param solution Solución de trabajo del problema.
+     */
+    public TOPTWALNS(TOPTWSolution solution) {
+        this.solution = solution;
+        this.problem = solution.getProblem();
+        this.grasp = new TOPTWGRASP(solution);
+        this.grasp.setVerbose(false);
+        this.random = new SplittableRandom();
+        this.weights = new double[OPERATORS];
+        this.uses = new long[OPERATORS];
+        this.bestRoutes = new ArrayList<>();
+    }
+
+    /**
+     * Establece la semilla de los generadores aleatorios, para obtener búsquedas reproducibles.
+     *
+     * @param seed Semilla.
+     */
+    public void setSeed(long seed) {
+        this.random = new SplittableRandom(seed);
+        this.grasp.setSeed(seed);
+    }
+
+    /**
+     * Ejecuta la búsqueda a partir de una solución construida con la RCL.
+     *
+     * @param maxIterations Número máximo de iteraciones de destrucción y reparación.
+     * @param maxSizeRCL Tamaño máximo de la RCL de la construcción y de las reparaciones.
+     */
+    public void solve(int maxIterations, int maxSizeRCL) {
+        long startTime = System.currentTimeMillis();
+        Arrays.fill(this.weights, 1.0);
+        Arrays.fill(this.uses, 0L);
+        double[] segmentScore = new double[OPERATORS];
+        int[] segmentUses = new int[OPERATORS];
+        double upperBound = this.grasp.getUpperBound();
+
+        this.grasp.computeGreedySolution(maxSizeRCL);
+        double currentFitness = this.solution.evaluateFitness();
+        ArrayList<ArrayList<Integer>> current = this.solution.getRoutes();
+        this.bestFitness = currentFitness;
+        this.bestRoutes = current;
+
+        double temperature = -START_WORSENING * Math.max(1.0, currentFitness) / Math.log(0.5);
+        double cooling = Math.pow(FINAL_TEMPERATURE, 1.0 / Math.max(1, maxIterations));
+        int i = 0;
+        for (; i < maxIterations && this.bestFitness < upperBound; i++) {
+            int operator = this.selectOperator();
+            ArrayList<ArrayList<Integer>> partial = this.destroy(operator, current);
+            this.grasp.computeGreedySolution(maxSizeRCL, partial);
+            double fitness = this.solution.evaluateFitness();
+            this.uses[operator]++;
+            segmentUses[operator]++;
+
+            boolean accepted = true;
+            if (fitness > this.bestFitness) {
+                this.bestFitness = fitness;
+                this.bestRoutes = this.solution.getRoutes();
+                segmentScore[operator] += SCORE_BEST;
+            } else if (fitness > currentFitness) {
+                segmentScore[operator] += SCORE_IMPROVED;
+            } else if (fitness < currentFitness) {
+                accepted = this.random.nextDouble() < Math.exp((fitness - currentFitness) / temperature);
+                if (accepted) {
+                    segmentScore[operator] += SCORE_ACCEPTED;
+                }
+            }
+            if (accepted) { // Las soluciones de igual fitness también se aceptan.
+                currentFitness = fitness;
+                current = this.solution.getRoutes();
+            }
+            temperature *= cooling;
+
+            if ((i + 1) % SEGMENT_ITERATIONS == 0) {
+                for (int o = 0; o < OPERATORS; o++) {
+                    if (segmentUses[o] > 0) {
+                        this.weights[o] = (1 - REACTION) * this.weights[o] + REACTION * segmentScore[o] / segmentUses[o];
+                    }
+                    this.weights[o] = Math.max(this.weights[o], 0.01); // Ningún operador queda excluido.
+                    segmentScore[o] = 0.0;
+                    segmentUses[o] = 0;
+                }
+            }
+        }
+        this.iterations = i;
+        this.solutionTime = System.currentTimeMillis() - startTime;
+    }
+
+    /**
+     * Elige un operador de eliminación por ruleta según los pesos.
+     *
+     * @return Operador elegido.
+     */
+    private int selectOperator() {
+        double total = 0.0;
+        for (double weight : this.weights) {
+            total += weight;
+        }
+        double r = this.random.nextDouble() * total;
+        for (int o = 0; o < OPERATORS - 1; o++) {
+            r -= this.weights[o];
+            if (r < 0) {
+                return o;
+            }
+        }
+        return OPERATORS - 1;
+    }
+
+    /**
+     * Elimina clientes de una solución con un operador y garantiza que las rutas resultantes sean
+     * factibles.
+     *
+     * @param operator Operador de eliminación.
+     * @param routes Clientes de cada ruta de la solución (no se modifica).
+     * @return Clientes que quedan en cada ruta.
+     */
+    private ArrayList<ArrayList<Integer>> destroy(int operator, ArrayList<ArrayList<Integer>> routes) {
+        ArrayList<Integer> visited = new ArrayList<>();
+        for (ArrayList<Integer> route : routes) {
+            visited.addAll(route);
+        }
+        boolean[] removed = new boolean[this.problem.getPOIs() + 1];
+        if (!visited.isEmpty()) {
+            int minRemoval = Math.max(1, (int) (MIN_REMOVAL * visited.size()));
+            int maxRemoval = Math.max(minRemoval, (int) (MAX_REMOVAL * visited.size()));
+            int count = minRemoval + this.random.nextInt(maxRemoval - minRemoval + 1);
+            switch (operator) {
+                case REMOVAL_WORST_RATIO:
+                    this.removeWorstRatio(routes, count, removed);
+                    break;
+                case REMOVAL_RELATED:
+                case REMOVAL_TIME_WINDOW:
+                    this.removeRelated(operator, visited, count, removed);
+                    break;
+                default:
+                    for (int r = 0; r < count; r++) {
+                        int last = visited.size() - 1;
+                        int k = this.random.nextInt(last + 1);
+                        removed[visited.get(k)] = true;
+                        visited.set(k, visited.get(last));
+                        visited.remove(last);
+                    }
+                    break;
+            }
+        }
+
+        ArrayList<ArrayList<Integer>> partial = new ArrayList<>();
+        for (ArrayList<Integer> route : routes) {
+            ArrayList<Integer> kept = new ArrayList<>();
+            for (int customer : route) {
+                if (!removed[customer]) {
+                    kept.add(customer);
+                }
+            }
+            this.makeFeasible(kept);
+            partial.add(kept);
+        }
+        return partial;
+    }
+
+    /**
+     * Marca los clientes con menor puntuación por unidad de desvío (lo que la ruta se alarga por
+     * visitarlos), con cierta aleatoriedad.
+     *
+     * @param routes Clientes de cada ruta.
+     * @param count Número de clientes a eliminar.
+     * @param removed Marcas de los clientes eliminados.
+     */
+    private void removeWorstRatio(ArrayList<ArrayList<Integer>> routes, int count, boolean[] removed) {
+        ArrayList<double[]> ratios = new ArrayList<>();
+        for (ArrayList<Integer> route : routes) {
+            for (int k = 0; k < route.size(); k++) {
+                int pre = k > 0 ? route.get(k - 1) : 0;
+                int customer = route.get(k);
+                int suc = k < route.size() - 1 ? route.get(k + 1) : 0;
+                double detour = this.problem.getDistance(pre, customer) + this.problem.getServiceTime(customer)
+                        + this.problem.getDistance(customer, suc) - this.problem.getDistance(pre, suc);
+                ratios.add(new double[]{customer, this.problem.getScore(customer) / Math.max(detour, 1e-9)});
+            }
+        }
+        ratios.sort((a, b) -> Double.compare(a[1], b[1]));
+        this.removeOrdered(ratios, count, removed);
+    }
+
+    /**
+     * Marca los clientes más próximos a uno elegido al azar, en el espacio o por el centro de su
+     * ventana de tiempo.
+     *
+     * @param operator {@link #REMOVAL_RELATED} o {@link #REMOVAL_TIME_WINDOW}.
+     * @param visited Clientes visitados.
+     * @param count Número de clientes a eliminar.
+     * @param removed Marcas de los clientes eliminados.
+     */
+    private void removeRelated(int operator, ArrayList<Integer> visited, int count, boolean[] removed) {
+        int seed = visited.get(this.random.nextInt(visited.size()));
+        double seedCenter = (this.problem.getReadyTime(seed) + this.problem.getDueTime(seed)) / 2;
+        ArrayList<double[]> relatedness = new ArrayList<>();
+        for (int customer : visited) {
+            double distance;
+            if (operator == REMOVAL_RELATED) {
+                distance = this.problem.getDistance(seed, customer);
+            } else {
+                distance = Math.abs((this.problem.getReadyTime(customer) + this.problem.getDueTime(customer)) / 2
+                        - seedCenter);
+            }
+            relatedness.add(new double[]{customer, distance});
+        }
+        relatedness.sort((a, b) -> Double.compare(a[1], b[1]));
+        this.removeOrdered(relatedness, count, removed);
+    }
+
+    /**
+     * Marca clientes de una lista ordenada eligiendo con más probabilidad los primeros.
+     *
+     * @param ordered Pares {cliente, criterio} ordenados por el criterio.
+     * @param count Número de clientes a eliminar.
+     * @param removed Marcas de los clientes eliminados.
+     */
+    private void removeOrdered(ArrayList<double[]> ordered, int count, boolean[] removed) {
+        for (int r = 0; r < count && !ordered.isEmpty(); r++) {
+            int k = (int) (Math.pow(this.random.nextDouble(), RANDOMIZATION) * ordered.size());
+            removed[(int) ordered.get(k)[0]] = true;
+            ordered.remove(k);
+        }
+    }
+
+    /**
+     * Elimina de una ruta los clientes que ya no pueden visitarse a tiempo. Al quitar clientes de una
+     * ruta factible los demás no llegan más tarde salvo por el redondeo de las distancias, por lo que
+     * normalmente la ruta no cambia.
+     *
+     * @param route Clientes de la ruta, en orden de visita.
+     */
+    private void makeFeasible(ArrayList<Integer> route) {
+        while (true) {
+            double leave = 0.0;
+            int pre = 0;
+            int late = -1;
+            for (int k = 0; k < route.size() && late < 0; k++) {
+                int customer = route.get(k);
+                double arrival = leave + this.problem.getDistance(pre, customer);
+                if (arrival > this.problem.getDueTime(customer)) {
+                    late = k;
+                }
+                leave = Math.max(arrival, this.problem.getReadyTime(customer)) + this.problem.getServiceTime(customer);
+                pre = customer;
+            }
+            if (late < 0 && leave + this.problem.getDistance(pre, 0) > this.problem.getMaxTimePerRoute()) {
+                late = route.size() - 1;
+            }
+            if (late < 0) {
+                return;
+            }
+            route.remove(late);
+        }
+    }
+
+    /**
+     * Obtiene el fitness de la mejor solución encontrada.
+     *
+     * @return Mejor fitness.
+     */
+    public double getBestFitness() {
+        return this.bestFitness;
+    }
+
+    /**
+     * Obtiene las rutas de la mejor solución encontrada.
+     *
+     * @return Lista con los clientes de cada ruta, en orden de visita.
+     */
+    public ArrayList<ArrayList<Integer>> getBestRoutes() {
+        return this.bestRoutes;
+    }
+
+    /**
+     * Obtiene el número de iteraciones realizadas en la última búsqueda.
+     *
+     * @return Iteraciones realizadas.
+     */
+    public int getIterations() {
+        return this.iterations;
+    }
+
+    /**
+     * Obtiene el tiempo (en milisegundos) de la última búsqueda.
+     *
+     * @return Tiempo de la búsqueda.
+     */
+    public long getSolutionTime() {
+        return this.solutionTime;
+    }
+
+    /**
+     * Obtiene el peso actual de un operador de eliminación.
+     *
+     * @param operator Operador.
+     * @return Peso del operador.
+     */
+    public double getWeight(int operator) {
+        return this.weights[operator];
+    }
+
+    /**
+     * Obtiene las veces que se ha aplicado un operador de eliminación en la última búsqueda.
+     *
+     * @param operator Operador.
+     * @return Número de aplicaciones.
+     */
+    public long getUses(int operator) {
+        return this.uses[operator];
+    }
+
+    /**
+     * Método principal de la búsqueda.
+     *
+     * @param args Ruta de la instancia, iteraciones, tamaño de la RCL y, opcionalmente, la semilla.
+     */
+    public static void main(String[] args) {
+        if (args.length < 3) {
+            System.err.println("Usage: TOPTWALNS <instance> <iterations> <rcl> [seed]");
+            System.exit(1);
+        }
+        TOPTW problem = TOPTWReader.readProblem(args[0]);
+        TOPTWALNS alns = new TOPTWALNS(new TOPTWSolution(problem));
+        if (args.length > 3) {
+            alns.setSeed(Long.parseLong(args[3]));
+        }
+        alns.solve(Integer.parseInt(args[1]), Integer.parseInt(args[2]));
+
+        System.out.println(" --> Instance: " + args[0]);
+        System.out.println(" --> ITERACIONES: " + alns.getIterations());
+        System.out.println(" --> MEJOR SOLUCION: " + alns.getBestFitness());
+        System.out.println(" --> GAP: " + TOPTWUpperBound.getGap(new TOPTWUpperBound(problem).getUpperBound(),
+                alns.getBestFitness()));
+        System.out.println(" --> RUTAS: " + alns.getBestRoutes());
+        System.out.println(" --> PESOS: RANDOM " + alns.getWeight(REMOVAL_RANDOM) + " WORST RATIO "
+                + alns.getWeight(REMOVAL_WORST_RATIO) + " RELATED " + alns.getWeight(REMOVAL_RELATED)
+                + " TIME WINDOW " + alns.getWeight(REMOVAL_TIME_WINDOW));
+        System.out.println(" --> TIEMPO: " + alns.getSolutionTime() + " ms");
+    }
+}
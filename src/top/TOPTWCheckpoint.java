@@ -0,0 +1,361 @@
+package top;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+
+/**
+ * Estado de una ejecución de GRASP guardado en disco para poder reanudarla.
+ * <p>
+ * El fichero usa un formato binario compacto: una cabecera con un número mágico y la versión, la
+ * identidad de la instancia (ruta canónica, número de clientes, número de vehículos y tiempo máximo
+ * por ruta, que pueden cambiar sobre el mismo fichero), la semilla y los parámetros de la ejecución
+ * (para no reanudar ni combinar ejecuciones distintas), el contador de iteraciones, el estado del
+ * generador aleatorio, la suma de fitness, el mejor fitness, el tiempo consumido, las rutas de la
+ * mejor solución y el conjunto élite con su fitness. Se escribe primero en un fichero temporal que
+ * después se renombra sobre el definitivo, de modo que una caída durante la escritura no deja un
+ * punto de control corrupto.
+ */
+public class TOPTWCheckpoint {
+
+    /** Número mágico que identifica los ficheros de punto de control ("TOPC"). */
+    private static final int MAGIC = 0x544F5043;
+
+    /** Versión del formato del fichero. */
+    private static final int VERSION = 4;
+
+    private final String instance; ///< Ruta canónica de la instancia, o cadena vacía si se desconoce.
+    private final int customers; ///< Número de clientes de la instancia.
+    private final int vehicles; ///< Número de vehículos de la instancia.
+    private final double maxTimePerRoute; ///< Tiempo máximo por ruta de la instancia.
+    private final boolean seeded; ///< Indica si la ejecución usa una semilla fija.
+    private final long seed; ///< Semilla fija de la ejecución (solo si seeded).
+    private final int maxIterations; ///< Número total de iteraciones de la ejecución.
+    private final int maxSizeRCL; ///< Tamaño máximo de la RCL de la ejecución.
+    private final int iteration; ///< Número de iteraciones completadas.
+    private final long randomState; ///< Estado del generador aleatorio.
+    private final double fitnessSum; ///< Suma del fitness de las iteraciones completadas.
+    private final double bestFitness; ///< Mejor fitness encontrado.
+    private final long elapsedTime; ///< Tiempo consumido (ms) hasta el punto de control.
+    private final ArrayList<ArrayList<Integer>> bestRoutes; ///< Rutas de la mejor solución.
+    private final ArrayList<ArrayList<ArrayList<Integer>>> elite; ///< Rutas de las soluciones élite.
+    private final ArrayList<Double> eliteFitness; ///< Fitness de cada solución élite.
+
+    /**
+     * Constructor de la clase TOPTWCheckpoint.
+     *
+     * @param instance Ruta canónica de la instancia (véase {@link #getInstanceId(String)}).
+     * @param customers Número de clientes de la instancia.
+     * @param vehicles Número de vehículos de la instancia.
+     * @param maxTimePerRoute Tiempo máximo por ruta de la instancia.
+     * @param seeded Indica si la ejecución usa una semilla fija.
+     * @param seed Semilla fija de la ejecución (se ignora si seeded es false).
+     * @param maxIterations Número total de iteraciones de la ejecución.
+     * @param maxSizeRCL Tamaño máximo de la RCL de la ejecución.
+     * @param iteration Número de iteraciones completadas.
+     * @param randomState Estado del generador aleatorio.
+     * @param fitnessSum Suma del fitness de las iteraciones completadas.
+     * @param bestFitness Mejor fitness encontrado.
+     * @param elapsedTime Tiempo consumido en milisegundos.
+     * @param bestRoutes Rutas de la mejor solución.
+     * @param elite Rutas de las soluciones élite, de mayor a menor fitness.
+     * @param eliteFitness Fitness de cada solución élite.
+     */
+    public TOPTWCheckpoint(String instance, int customers, int vehicles, double maxTimePerRoute,
+                           boolean seeded, long seed, int maxIterations, int maxSizeRCL, int iteration,
+                           long randomState, double fitnessSum, double bestFitness, long elapsedTime,
+                           ArrayList<ArrayList<Integer>> bestRoutes,
+                           ArrayList<ArrayList<ArrayList<Integer>>> elite, ArrayList<Double> eliteFitness) {
+        this.instance = instance;
+        this.customers = customers;
+        this.vehicles = vehicles;
+        this.maxTimePerRoute = maxTimePerRoute;
+        this.seeded = seeded;
+        this.seed = seeded ? seed : 0L;
+        this.maxIterations = maxIterations;
+        this.maxSizeRCL = maxSizeRCL;
+        this.iteration = iteration;
+        this.randomState = randomState;
+        this.fitnessSum = fitnessSum;
+        this.bestFitness = bestFitness;
+        this.elapsedTime = elapsedTime;
+        this.bestRoutes = bestRoutes;
+        this.elite = elite;
+        this.eliteFitness = eliteFitness;
+    }
+
+    /**
+     * Escribe el punto de control de forma atómica.
+     *
+     * @param file Fichero de destino.
+     * @throws IOException Si no se puede escribir el fichero.
+     */
+    public void write(File file) throws IOException {
+        File temporary = new File(file.getPath() + ".tmp");
+        DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(temporary)));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(this.instance);
+            out.writeInt(this.customers);
+            out.writeInt(this.vehicles);
+            out.writeDouble(this.maxTimePerRoute);
+            out.writeBoolean(this.seeded);
+            out.writeLong(this.seed);
+            out.writeInt(this.maxIterations);
+            out.writeInt(this.maxSizeRCL);
+            out.writeInt(this.iteration);
+            out.writeLong(this.randomState);
+            out.writeDouble(this.fitnessSum);
+            out.writeDouble(this.bestFitness);
+            out.writeLong(this.elapsedTime);
+            writeRoutes(out, this.bestRoutes);
+            out.writeInt(this.elite.size());
+            for (int k = 0; k < this.elite.size(); k++) {
+                writeRoutes(out, this.elite.get(k));
+                out.writeDouble(this.eliteFitness.get(k));
+            }
+        } finally {
+            out.close();
+        }
+        Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Lee un punto de control.
+     *
+     * @param file Fichero de origen.
+     * @return El punto de control leído.
+     * @throws IOException Si no se puede leer el fichero o su formato no es válido.
+     */
+    public static TOPTWCheckpoint read(File file) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        try {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Invalid checkpoint file: " + file);
+            }
+            String instance = in.readUTF();
+            int customers = in.readInt();
+            int vehicles = in.readInt();
+            double maxTimePerRoute = in.readDouble();
+            boolean seeded = in.readBoolean();
+            long seed = in.readLong();
+            int maxIterations = in.readInt();
+            int maxSizeRCL = in.readInt();
+            int iteration = in.readInt();
+            long randomState = in.readLong();
+            double fitnessSum = in.readDouble();
+            double bestFitness = in.readDouble();
+            long elapsedTime = in.readLong();
+            ArrayList<ArrayList<Integer>> bestRoutes = readRoutes(in);
+            int eliteSize = in.readInt();
+            ArrayList<ArrayList<ArrayList<Integer>>> elite = new ArrayList<>();
+            ArrayList<Double> eliteFitness = new ArrayList<>();
+            for (int k = 0; k < eliteSize; k++) {
+                elite.add(readRoutes(in));
+                eliteFitness.add(in.readDouble());
+            }
+            return new TOPTWCheckpoint(instance, customers, vehicles, maxTimePerRoute, seeded, seed,
+                    maxIterations, maxSizeRCL, iteration, randomState, fitnessSum, bestFitness, elapsedTime,
+                    bestRoutes, elite, eliteFitness);
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Escribe las rutas de una solución: el número de rutas y, para cada una, su longitud y sus
+     * clientes.
+     *
+     * @param out Flujo de salida.
+     * @param routes Rutas de la solución.
+     * @throws IOException Si no se puede escribir.
+     */
+    private static void writeRoutes(DataOutputStream out, ArrayList<ArrayList<Integer>> routes)
+            throws IOException {
+        out.writeInt(routes.size());
+        for (ArrayList<Integer> route : routes) {
+            out.writeInt(route.size());
+            for (int customer : route) {
+                out.writeInt(customer);
+            }
+        }
+    }
+
+    /**
+     * Lee las rutas de una solución escritas con {@link #writeRoutes(DataOutputStream, ArrayList)}.
+     *
+     * @param in Flujo de entrada.
+     * @return Rutas de la solución.
+     * @throws IOException Si no se puede leer.
+     */
+    private static ArrayList<ArrayList<Integer>> readRoutes(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        ArrayList<ArrayList<Integer>> routes = new ArrayList<>();
+        for (int k = 0; k < size; k++) {
+            int length = in.readInt();
+            ArrayList<Integer> route = new ArrayList<>();
+            for (int i = 0; i < length; i++) {
+                route.add(in.readInt());
+            }
+            routes.add(route);
+        }
+        return routes;
+    }
+
+    /**
+     * Obtiene la identidad de una instancia a partir de su ruta: la ruta canónica, o la absoluta si
+     * no se puede resolver.
+     *
+     * @param path Ruta del fichero de la instancia.
+     * @return Identidad de la instancia.
+     */
+    public static String getInstanceId(String path) {
+        File file = new File(path);
+        try {
+            return file.getCanonicalPath();
+        } catch (IOException e) {
+            return file.getAbsolutePath();
+        }
+    }
+
+    /**
+     * Indica si el punto de control corresponde a una ejecución con la instancia, la semilla y los
+     * parámetros indicados. La instancia debe coincidir en ruta, número de clientes, número de
+     * vehículos y tiempo máximo por ruta. Una ejecución sin semilla fija solo coincide con otra sin
+     * semilla fija.
+     *
+     * @param instance Ruta canónica de la instancia.
+     * @param problem Instancia, con el número de vehículos y el tiempo máximo por ruta de la
+     *                ejecución.
+     * @param seeded Indica si la ejecución usa una semilla fija.
+     * @param seed Semilla fija de la ejecución (se ignora si seeded es false).
+     * @param maxIterations Número total de iteraciones.
+     * @param maxSizeRCL Tamaño máximo de la RCL.
+     * @return true si coinciden la instancia, la semilla y todos los parámetros.
+     */
+    public boolean matches(String instance, TOPTW problem, boolean seeded, long seed, int maxIterations,
+                           int maxSizeRCL) {
+        return this.isSameInstance(instance, problem)
+                && this.seeded == seeded && (!seeded || this.seed == seed)
+                && this.maxIterations == maxIterations && this.maxSizeRCL == maxSizeRCL;
+    }
+
+    /**
+     * Indica si el punto de control corresponde a la instancia indicada, con independencia de la
+     * semilla y los parámetros de la ejecución.
+     *
+     * @param instance Ruta canónica de la instancia.
+     * @param problem Instancia, con el número de vehículos y el tiempo máximo por ruta de la
+     *                ejecución.
+     * @return true si coinciden la ruta, el número de clientes, el número de vehículos y el tiempo
+     *         máximo por ruta.
+     */
+    public boolean isSameInstance(String instance, TOPTW problem) {
+        return this.instance.equals(instance) && this.customers == problem.getPOIs()
+                && this.vehicles == problem.getVehicles()
+                && this.maxTimePerRoute == problem.getMaxTimePerRoute();
+    }
+
+    /**
+     * Obtiene el número total de iteraciones de la ejecución.
+     *
+     * @return Número total de iteraciones.
+     */
+    public int getMaxIterations() {
+        return this.maxIterations;
+    }
+
+    /**
+     * Obtiene el tamaño máximo de la RCL de la ejecución.
+     *
+     * @return Tamaño máximo de la RCL.
+     */
+    public int getMaxSizeRCL() {
+        return this.maxSizeRCL;
+    }
+
+    /**
+     * Obtiene el número de iteraciones completadas al guardar el punto de control, desde el que
+     * continúa la ejecución reanudada.
+     *
+     * @return Número de iteraciones completadas.
+     */
+    public int getIteration() {
+        return this.iteration;
+    }
+
+    /**
+     * Obtiene el estado del generador aleatorio SplitMix64 de la ejecución.
+     *
+     * @return Estado del generador aleatorio.
+     */
+    public long getRandomState() {
+        return this.randomState;
+    }
+
+    /**
+     * Obtiene la suma del fitness de las iteraciones completadas, a partir de la que se calcula el
+     * fitness medio al terminar.
+     *
+     * @return Suma del fitness de las iteraciones completadas.
+     */
+    public double getFitnessSum() {
+        return this.fitnessSum;
+    }
+
+    /**
+     * Obtiene el fitness de la mejor solución encontrada.
+     *
+     * @return Mejor fitness encontrado.
+     */
+    public double getBestFitness() {
+        return this.bestFitness;
+    }
+
+    /**
+     * Obtiene el tiempo consumido por la ejecución hasta el punto de control.
+     *
+     * @return Tiempo consumido en milisegundos.
+     */
+    public long getElapsedTime() {
+        return this.elapsedTime;
+    }
+
+    /**
+     * Obtiene las rutas de la mejor solución encontrada.
+     *
+     * @return Rutas de la mejor solución.
+     */
+    public ArrayList<ArrayList<Integer>> getBestRoutes() {
+        return this.bestRoutes;
+    }
+
+    /**
+     * Obtiene las rutas de las soluciones élite.
+     *
+     * @return Rutas de las soluciones élite, de mayor a menor fitness.
+     */
+    public ArrayList<ArrayList<ArrayList<Integer>>> getElite() {
+        return this.elite;
+    }
+
+    /**
+     * Obtiene el fitness de cada solución élite, en el mismo orden que {@link #getElite()}.
+     *
+     * @return Fitness de cada solución élite.
+     */
+    public ArrayList<Double> getEliteFitness() {
+        return this.eliteFitness;
+    }
+}
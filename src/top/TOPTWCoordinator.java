@@ -0,0 +1,353 @@
+package top;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coordinador que reparte una ejecución de GRASP entre varias JVM trabajadoras locales.
+ * <p>
+ * Cada trabajador ({@link TOPTWWorker}) ejecuta una parte del presupuesto de iteraciones con una
+ * semilla distinta, de modo que el heap y el recolector de basura de cada proceso son
+ * independientes y los procesos pueden asignarse a distintos nodos NUMA. Los trabajadores y el
+ * coordinador se comunican mediante ficheros en un directorio de intercambio: cada trabajador publica
+ * periódicamente su estado y su mejor solución, el coordinador mantiene en {@code incumbent.ckpt} la
+ * mejor solución global y los trabajadores la consultan para terminar en cuanto alcanza la cota
+ * superior de la instancia; al empezar una ejecución nueva se descarta la de ejecuciones anteriores.
+ * Al terminar, el coordinador combina las estadísticas de todos. Los trabajadores que ya dejaron su
+ * resultado en el directorio no se vuelven a lanzar, y los demás continúan desde su último punto de
+ * control.
+ */
+public class TOPTWCoordinator {
+
+    /** Milisegundos entre dos consultas del estado de los trabajadores. */
+    private static final long POLL_INTERVAL = 1000;
+
+    private final String instance; ///< Ruta de la instancia.
+    private final int workers; ///< Número de JVM trabajadoras.
+    private final File directory; ///< Directorio de intercambio.
+    private final List<String> jvmOptions; ///< Opciones adicionales de las JVM trabajadoras.
+    private boolean verbose; ///< Indica si se muestra el progreso de la mejor solución global.
+
+    private int iterations; ///< Iteraciones totales de la última ejecución.
+    private double averageFitness; ///< Fitness medio de la última ejecución.
+    private double bestFitness; ///< Mejor fitness de la última ejecución.
+    private ArrayList<ArrayList<Integer>> bestRoutes; ///< Rutas de la mejor solución de la última ejecución.
+    private long solutionTime; ///< Tiempo real (ms) de la última ejecución.
+    private long workersTime; ///< Suma de los tiempos (ms) de los trabajadores.
+
+    /**
+     * Constructor de la clase TOPTWCoordinator.
+     *
+     * @param instance Ruta de la instancia.
+     * @param workers Número de JVM trabajadoras.
+     * @param directory Directorio de intercambio (se crea si no existe).
+     * @param jvmOptions Opciones adicionales de las JVM trabajadoras (por ejemplo, {@code -Xmx2g}).
+     */
+    public TOPTWCoordinator(String instance, int workers, File directory, List<String> jvmOptions) {
+        this.instance = instance;
+        this.workers = workers;
+        this.directory = directory;
+        this.jvmOptions = jvmOptions;
+        this.verbose = true;
+        this.bestRoutes = new ArrayList<>();
+    }
+
+    /**
+     * Obtiene el fichero en el que el coordinador publica la mejor solución global.
+     *
+     * @param directory Directorio de intercambio.
+     * @return Fichero de la mejor solución global.
+     */
+    public static File getIncumbentFile(File directory) {
+        return new File(directory, "incumbent.ckpt");
+    }
+
+    /**
+     * Ejecuta GRASP repartiendo las iteraciones entre los trabajadores y combina sus resultados.
+     *
+     * @param maxIterations Número total de iteraciones.
+     * @param maxSizeRCL Tamaño máximo de la RCL.
+     * @param seed Semilla base; el trabajador {@code w} usa {@code seed + w}.
+     * @throws IOException Si no se puede lanzar algún trabajador o alguno termina con error.
+     */
+    public void run(int maxIterations, int maxSizeRCL, long seed) throws IOException {
+        long startTime = System.currentTimeMillis();
+        if (!this.directory.isDirectory() && !this.directory.mkdirs()) {
+            throw new IOException("Cannot create exchange directory: " + this.directory);
+        }
+        // Solo se necesita la identidad de la instancia: la matriz de distancias no se calcula.
+        TOPTW problem = TOPTWReader.readProblem(this.instance, false, TOPTW.MATRIX_LAZY);
+        // La mejor solución global solo se conserva al reanudar esta misma ejecución: la de otra
+        // ejecución sobre la instancia haría terminar a los trabajadores sin iterar.
+        boolean resuming = false;
+        for (int w = 0; w < this.workers && !resuming; w++) {
+            resuming = this.readWorkerState(TOPTWWorker.getResultFile(this.directory, w), w, problem,
+                    maxIterations, maxSizeRCL, seed) != null
+                    || this.readWorkerState(TOPTWWorker.getCheckpointFile(this.directory, w), w, problem,
+                    maxIterations, maxSizeRCL, seed) != null;
+        }
+        if (!resuming) {
+            TOPTWCoordinator.getIncumbentFile(this.directory).delete();
+        }
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        Process[] processes = new Process[this.workers];
+        for (int w = 0; w < this.workers; w++) {
+            int slice = this.getSlice(maxIterations, w);
+            if (slice == 0 || this.readWorkerState(TOPTWWorker.getResultFile(this.directory, w), w, problem,
+                    maxIterations, maxSizeRCL, seed) != null) {
+                continue; // Sin iteraciones, o ya terminado en una ejecución anterior.
+            }
+            ArrayList<String> command = new ArrayList<>();
+            command.add(java);
+            command.addAll(this.jvmOptions);
+            command.add("-cp");
+            command.add(System.getProperty("java.class.path"));
+            command.add(TOPTWWorker.class.getName());
+            command.add(this.instance);
+            command.add(Integer.toString(slice));
+            command.add(Integer.toString(maxSizeRCL));
+            command.add(Long.toString(seed + w));
+            command.add(this.directory.getPath());
+            command.add(Integer.toString(w));
+            processes[w] = new ProcessBuilder(command).inheritIO().start();
+        }
+
+        double incumbent = 0.0;
+        boolean finished = false;
+        try {
+            for (int w = 0; w < this.workers; w++) {
+                while (processes[w] != null && !processes[w].waitFor(POLL_INTERVAL, TimeUnit.MILLISECONDS)) {
+                    incumbent = this.publishIncumbent(incumbent, problem, maxIterations, maxSizeRCL, seed);
+                }
+                if (processes[w] != null && processes[w].exitValue() != 0) {
+                    throw new IOException("Worker " + w + " failed with exit code " + processes[w].exitValue());
+                }
+            }
+            finished = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } finally {
+            if (!finished) {
+                // Los trabajadores restantes se detienen; sus puntos de control permiten reanudarlos.
+                for (Process process : processes) {
+                    if (process != null) {
+                        process.destroy();
+                    }
+                }
+            }
+        }
+
+        // Combinación de las estadísticas de todos los trabajadores
+        this.iterations = 0;
+        double fitnessSum = 0.0;
+        this.bestFitness = 0.0;
+        this.bestRoutes = new ArrayList<>();
+        this.workersTime = 0;
+        for (int w = 0; w < this.workers; w++) {
+            TOPTWCheckpoint result = this.readWorkerState(TOPTWWorker.getResultFile(this.directory, w), w,
+                    problem, maxIterations, maxSizeRCL, seed);
+            if (result == null) {
+                continue;
+            }
+            this.iterations += result.getIteration();
+            fitnessSum += result.getFitnessSum();
+            this.workersTime += result.getElapsedTime();
+            if (this.bestFitness < result.getBestFitness()) {
+                this.bestFitness = result.getBestFitness();
+                this.bestRoutes = result.getBestRoutes();
+            }
+        }
+        this.averageFitness = this.iterations > 0 ? fitnessSum / this.iterations : 0.0;
+        this.publishIncumbent(incumbent, problem, maxIterations, maxSizeRCL, seed);
+        this.solutionTime = System.currentTimeMillis() - startTime;
+    }
+
+    /**
+     * Calcula el número de iteraciones asignadas a un trabajador.
+     *
+     * @param maxIterations Número total de iteraciones.
+     * @param worker Identificador del trabajador.
+     * @return Iteraciones del trabajador.
+     */
+    private int getSlice(int maxIterations, int worker) {
+        return maxIterations / this.workers + (worker < maxIterations % this.workers ? 1 : 0);
+    }
+
+    /**
+     * Lee el estado publicado por un trabajador (su punto de control o su resultado final) si
+     * corresponde a la instancia, la semilla y los parámetros de la ejecución.
+     *
+     * @param file Fichero de punto de control o de resultado.
+     * @param worker Identificador del trabajador.
+     * @param problem Instancia, leída sin matriz de distancias.
+     * @param maxIterations Número total de iteraciones.
+     * @param maxSizeRCL Tamaño máximo de la RCL.
+     * @param seed Semilla base de la ejecución.
+     * @return El estado, o null si no existe o es de otra ejecución.
+     */
+    private TOPTWCheckpoint readWorkerState(File file, int worker, TOPTW problem, int maxIterations, int maxSizeRCL,
+                                            long seed) {
+        TOPTWCheckpoint state = this.readState(file);
+        if (state == null || !state.matches(TOPTWCheckpoint.getInstanceId(this.instance), problem, true,
+                seed + worker, this.getSlice(maxIterations, worker), maxSizeRCL)) {
+            return null;
+        }
+        return state;
+    }
+
+    /**
+     * Recorre el estado publicado por los trabajadores y, si alguno mejora la mejor solución global,
+     * la guarda en {@code incumbent.ckpt}.
+     *
+     * @param incumbent Fitness de la mejor solución global conocida.
+     * @param problem Instancia, leída sin matriz de distancias.
+     * @param maxIterations Número total de iteraciones.
+     * @param maxSizeRCL Tamaño máximo de la RCL.
+     * @param seed Semilla base de la ejecución.
+     * @return Fitness de la mejor solución global tras la consulta.
+     * @throws IOException Si no se puede escribir la mejor solución global.
+     */
+    private double publishIncumbent(double incumbent, TOPTW problem, int maxIterations, int maxSizeRCL, long seed)
+            throws IOException {
+        TOPTWCheckpoint best = null;
+        for (int w = 0; w < this.workers; w++) {
+            TOPTWCheckpoint state = this.readWorkerState(TOPTWWorker.getResultFile(this.directory, w), w,
+                    problem, maxIterations, maxSizeRCL, seed);
+            if (state == null) {
+                state = this.readWorkerState(TOPTWWorker.getCheckpointFile(this.directory, w), w,
+                        problem, maxIterations, maxSizeRCL, seed);
+            }
+            if (state != null && state.getBestFitness() > incumbent
+                    && (best == null || state.getBestFitness() > best.getBestFitness())) {
+                best = state;
+            }
+        }
+        if (best == null) {
+            return incumbent;
+        }
+        best.write(TOPTWCoordinator.getIncumbentFile(this.directory));
+        if (this.verbose) {
+            System.out.println(" --> INCUMBENT: " + best.getBestFitness());
+        }
+        return best.getBestFitness();
+    }
+
+    /**
+     * Lee el estado publicado por un trabajador.
+     *
+     * @param file Fichero de punto de control o de resultado.
+     * @return El estado leído, o null si el fichero no existe o no se puede leer.
+     */
+    private TOPTWCheckpoint readState(File file) {
+        if (!file.isFile()) {
+            return null;
+        }
+        try {
+            return TOPTWCheckpoint.read(file);
+        } catch (IOException e) {
+            return null; // El trabajador puede estar reemplazándolo en este momento.
+        }
+    }
+
+    /**
+     * Indica si se muestra el progreso de la mejor solución global.
+     *
+     * @param verbose true para mostrar el progreso.
+     */
+    public void setVerbose(boolean verbose) {
+        this.verbose = verbose;
+    }
+
+    /**
+     * Obtiene el número total de iteraciones realizadas por los trabajadores en la última ejecución.
+     *
+     * @return Iteraciones realizadas.
+     */
+    public int getIterations() {
+        return this.iterations;
+    }
+
+    /**
+     * Obtiene el fitness medio de todas las iteraciones de la última ejecución.
+     *
+     * @return Fitness medio.
+     */
+    public double getAverageFitness() {
+        return this.averageFitness;
+    }
+
+    /**
+     * Obtiene el mejor fitness encontrado por los trabajadores en la última ejecución.
+     *
+     * @return Mejor fitness.
+     */
+    public double getBestFitness() {
+        return this.bestFitness;
+    }
+
+    /**
+     * Obtiene las rutas de la mejor solución de la última ejecución.
+     *
+     * @return Lista con los clientes de cada ruta, en orden de visita.
+     */
+    public ArrayList<ArrayList<Integer>> getBestRoutes() {
+        return this.bestRoutes;
+    }
+
+    /**
+     * Obtiene el tiempo real (en milisegundos) de la última ejecución, incluido el lanzamiento de
+     * los trabajadores.
+     *
+     * @return Tiempo de la ejecución.
+     */
+    public long getSolutionTime() {
+        return this.solutionTime;
+    }
+
+    /**
+     * Obtiene la suma de los tiempos (en milisegundos) de GRASP en cada trabajador.
+     *
+     * @return Tiempo acumulado de los trabajadores.
+     */
+    public long getWorkersTime() {
+        return this.workersTime;
+    }
+
+    /**
+     * Método principal del coordinador.
+     *
+     * @param args Ruta de la instancia, iteraciones totales, tamaño de la RCL, número de
+     *             trabajadores, y opcionalmente la semilla base, el directorio de intercambio y
+     *             opciones adicionales para las JVM trabajadoras.
+     */
+    public static void main(String[] args) {
+        if (args.length < 4) {
+            System.err.println("Usage: TOPTWCoordinator <instance> <iterations> <rcl> <workers> [seed] [directory] [jvm options...]");
+            System.exit(1);
+        }
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : System.nanoTime();
+        File directory = new File(args.length > 5 ? args[5] : "workersTOPTW");
+        ArrayList<String> jvmOptions = new ArrayList<>();
+        for (int i = 6; i < args.length; i++) {
+            jvmOptions.add(args[i]);
+        }
+        TOPTWCoordinator coordinator = new TOPTWCoordinator(args[0], Integer.parseInt(args[3]), directory, jvmOptions);
+        try {
+            coordinator.run(Integer.parseInt(args[1]), Integer.parseInt(args[2]), seed);
+        } catch (IOException e) {
+            System.err.println(e);
+            System.exit(1);
+        }
+        System.out.println(" --> Instance: " + args[0]);
+        System.out.println(" --> ITERACIONES: " + coordinator.getIterations());
+        System.out.println(" --> MEDIA: " + coordinator.getAverageFitness());
+        System.out.println(" --> MEJOR SOLUCION: " + coordinator.getBestFitness());
+        System.out.println(" --> RUTAS: " + coordinator.getBestRoutes());
+        System.out.println(" --> TIEMPO: " + coordinator.getSolutionTime() + " ms (trabajadores: "
+                + coordinator.getWorkersTime() + " ms)");
+    }
+}
@@ -0,0 +1,411 @@
+package top;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import es.ull.esit.utilities.ExpositoUtilities;
+
+/**
+ * Resolución por descomposición espacial de instancias TOPTW muy grandes.
+ * <p>
+ * Los clientes alcanzables se ordenan por su ángulo alrededor del depósito (barrido) y se reparten
+ * en sectores consecutivos de como mucho {@code clusterSize} clientes. Como toda ruta sale del
+ * depósito y vuelve a él, un sector contiene rutas completas. Las ventanas de tiempo no separan los
+ * sectores, porque cada ruta recorre todo el horizonte, pero deciden cuántas rutas recibe cada uno:
+ * los vehículos se asignan de uno en uno al sector cuya cota superior ({@link TOPTWUpperBound}, que
+ * descarta los clientes inalcanzables y acota el tiempo disponible) más aumenta con una ruta más, y
+ * a igual aumento al sector con más clientes por ruta.
+ * <p>
+ * Cada sector con vehículos se resuelve con {@link TOPTWGRASP} como una subinstancia independiente
+ * ({@link TOPTWReduction}), en paralelo con los demás. Las subinstancias se construyen en el hilo
+ * que llama a {@link #solve(int, int)}, porque leen las distancias de la instancia completa, cuya
+ * matriz puede no admitir accesos concurrentes (véase {@link DistanceProvider#isConcurrent()}); cada
+ * hilo solo usa después la matriz de su propia subinstancia. Las rutas de todos los sectores se unen en
+ * una solución de la instancia completa, que se repara en las fronteras: una construcción voraz
+ * parte de las rutas unidas e inserta los clientes libres de cada sector resuelto y de sus dos
+ * vecinos, abriendo las rutas que hayan quedado sin asignar. El trabajo de cada sector y el de la
+ * reparación dependen del tamaño de los sectores y del número de vehículos, no del número total de
+ * clientes.
+ */
+public class TOPTWDecomposition {
+
+    /** Tamaño máximo de sector por defecto. */
+    public static final int DEFAULT_CLUSTER_SIZE = 500;
+
+    private final TOPTW problem; ///< Instancia completa.
+    private final int clusterSize; ///< Número máximo de clientes por sector.
+    private int threads; ///< Número de hilos con los que se resuelven los sectores.
+    private long seed; ///< Semilla de la ejecución.
+    private boolean seeded; ///< Indica si se ha fijado la semilla.
+    private int[][] clusters; ///< Clientes de cada sector, en orden de barrido.
+    private int[] clusterVehicles; ///< Vehículos asignados a cada sector.
+    private double clustersFitness; ///< Fitness de las rutas unidas antes de la reparación.
+    private double bestFitness; ///< Fitness de la solución reparada.
+    private ArrayList<ArrayList<Integer>> bestRoutes; ///< Rutas de la solución reparada.
+    private long partitionTime; ///< Tiempo (ms) de la partición y la asignación de vehículos.
+    private long clustersTime; ///< Tiempo (ms) de la resolución de los sectores.
+    private long repairTime; ///< Tiempo (ms) de la reparación.
+
+    /**
+     * Constructor de la clase TOPTWDecomposition.
+     *
+     * @param problem Instancia completa, con su matriz de distancias calculada.
+     * @param clusterSize Número máximo de clientes por sector.
+     */
+    public TOPTWDecomposition(TOPTW problem, int clusterSize) {
+        this.problem = problem;
+        this.clusterSize = Math.max(1, clusterSize);
+        this.threads = Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Resuelve la instancia: partición, resolución de los sectores y reparación.
+     *
+     * @param maxIterations Iteraciones de GRASP en cada sector.
+     * @param maxSizeRCL Tamaño máximo de la RCL en cada sector.
+     * @throws InterruptedException Si se interrumpe la espera de los sectores.
+     */
+    public void solve(int maxIterations, int maxSizeRCL) throws InterruptedException {
+        long startTime = System.currentTimeMillis();
+        this.partition();
+        this.assignVehicles();
+        long clustersStart = System.currentTimeMillis();
+        this.partitionTime = clustersStart - startTime;
+
+        ArrayList<ArrayList<Integer>> routes = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(this.threads);
+        try {
+            List<Future<ArrayList<ArrayList<Integer>>>> results = new ArrayList<>();
+            for (int c = 0; c < this.clusters.length; c++) {
+                if (this.clusterVehicles[c] > 0) {
+                    int cluster = c;
+                    TOPTWReduction reduction = new TOPTWReduction(this.problem, this.clusters[c],
+                            this.clusterVehicles[c]);
+                    results.add(executor.submit(() -> this.solveCluster(cluster, reduction, maxIterations,
+                            maxSizeRCL)));
+                }
+            }
+            for (Future<ArrayList<ArrayList<Integer>>> result : results) {
+                routes.addAll(result.get());
+            }
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause()
+                    : new IllegalStateException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        this.clustersFitness = 0.0;
+        for (ArrayList<Integer> route : routes) {
+            for (int customer : route) {
+                this.clustersFitness += this.problem.getScore(customer);
+            }
+        }
+        long repairStart = System.currentTimeMillis();
+        this.clustersTime = repairStart - clustersStart;
+
+        this.repair(routes);
+        this.repairTime = System.currentTimeMillis() - repairStart;
+    }
+
+    /**
+     * Reparte los clientes alcanzables en sectores consecutivos del barrido alrededor del depósito,
+     * todos con el mismo número de clientes salvo uno.
+     */
+    private void partition() {
+        int[] reachable = TOPTWReduction.getReachableCustomers(this.problem);
+        double depotX = this.problem.getX(0);
+        double depotY = this.problem.getY(0);
+        double[] angle = new double[this.problem.getPOIs() + 1];
+        Integer[] order = new Integer[reachable.length];
+        for (int k = 0; k < reachable.length; k++) {
+            int i = reachable[k];
+            angle[i] = Math.atan2(this.problem.getY(i) - depotY, this.problem.getX(i) - depotX);
+            order[k] = i;
+        }
+        Arrays.sort(order, Comparator.<Integer>comparingDouble(i -> angle[i]).thenComparingInt(i -> i));
+
+        int count = Math.max(1, (reachable.length + this.clusterSize - 1) / this.clusterSize);
+        this.clusters = new int[count][];
+        for (int c = 0; c < count; c++) {
+            int from = (int) ((long) reachable.length * c / count);
+            int to = (int) ((long) reachable.length * (c + 1) / count);
+            this.clusters[c] = new int[to - from];
+            for (int k = from; k < to; k++) {
+                this.clusters[c][k - from] = order[k];
+            }
+            // La subinstancia conserva el orden de los identificadores originales.
+            Arrays.sort(this.clusters[c]);
+        }
+    }
+
+    /**
+     * Asigna los vehículos de uno en uno al sector cuya cota superior más aumenta con una ruta más.
+     * La cota deja de crecer en cuanto cubre todos los clientes del sector, así que, a igual
+     * aumento, el vehículo va al sector con más clientes por ruta.
+     */
+    private void assignVehicles() {
+        this.clusterVehicles = new int[this.clusters.length];
+        double[] bound = new double[this.clusters.length];
+        double[] gain = new double[this.clusters.length];
+        for (int c = 0; c < this.clusters.length; c++) {
+            gain[c] = this.clusterBound(c, 1);
+        }
+        for (int v = 0; v < this.problem.getVehicles(); v++) {
+            int best = -1;
+            for (int c = 0; c < this.clusters.length; c++) {
+                if (this.clusterVehicles[c] < this.clusters[c].length && (best < 0 || gain[c] > gain[best]
+                        || gain[c] == gain[best] && this.clusters[c].length * (this.clusterVehicles[best] + 1)
+                        > this.clusters[best].length * (this.clusterVehicles[c] + 1))) {
+                    best = c;
+                }
+            }
+            if (best < 0) {
+                break;
+            }
+            this.clusterVehicles[best]++;
+            bound[best] += gain[best];
+            gain[best] = this.clusterVehicles[best] < this.clusters[best].length
+                    ? this.clusterBound(best, this.clusterVehicles[best] + 1) - bound[best] : 0.0;
+        }
+    }
+
+    /**
+     * Calcula la cota superior de un sector con un número de vehículos.
+     *
+     * @param cluster Sector.
+     * @param vehicles Número de vehículos.
+     * @return Cota superior de la puntuación del sector.
+     */
+    private double clusterBound(int cluster, int vehicles) {
+        if (this.clusters[cluster].length == 0) {
+            return 0.0;
+        }
+        TOPTW subproblem = new TOPTWReduction(this.problem, this.clusters[cluster], vehicles).getReducedProblem();
+        return new TOPTWUpperBound(subproblem).getUpperBound();
+    }
+
+    /**
+     * Resuelve un sector con GRASP. Solo accede a la subinstancia del sector, de modo que puede
+     * ejecutarse en paralelo con los demás sectores.
+     *
+     * @param cluster Sector.
+     * @param reduction Subinstancia del sector, construida en el hilo que reparte los sectores.
+     * @param maxIterations Iteraciones de GRASP.
+     * @param maxSizeRCL Tamaño máximo de la RCL.
+     * @return Rutas de la mejor solución del sector, con los identificadores de la instancia completa.
+     */
+    private ArrayList<ArrayList<Integer>> solveCluster(int cluster, TOPTWReduction reduction, int maxIterations,
+                                                       int maxSizeRCL) {
+        TOPTWGRASP grasp = new TOPTWGRASP(new TOPTWSolution(reduction.getReducedProblem()));
+        grasp.setVerbose(false);
+        if (this.seeded) {
+            grasp.setSeed(this.seed + cluster);
+        }
+        grasp.GRASP(maxIterations, maxSizeRCL);
+        return reduction.toOriginalRoutes(grasp.getBestRoutes());
+    }
+
+    /**
+     * Repara la unión de las rutas de los sectores: completa la solución con los clientes libres de
+     * los sectores resueltos y de sus vecinos en el barrido, con una construcción voraz que elige
+     * siempre el mejor candidato.
+     *
+     * @param routes Rutas de los sectores, con los identificadores de la instancia completa.
+     */
+    private void repair(ArrayList<ArrayList<Integer>> routes) {
+        boolean[] border = new boolean[this.clusters.length];
+        for (int c = 0; c < this.clusters.length; c++) {
+            if (this.clusterVehicles[c] > 0) {
+                border[c] = true;
+                border[(c + 1) % this.clusters.length] = true;
+                border[(c + this.clusters.length - 1) % this.clusters.length] = true;
+            }
+        }
+        int size = 0;
+        for (int c = 0; c < this.clusters.length; c++) {
+            size += border[c] ? this.clusters[c].length : 0;
+        }
+        int[] customers = new int[size];
+        size = 0;
+        for (int c = 0; c < this.clusters.length; c++) {
+            if (border[c]) {
+                System.arraycopy(this.clusters[c], 0, customers, size, this.clusters[c].length);
+                size += this.clusters[c].length;
+            }
+        }
+        Arrays.sort(customers);
+
+        // Las rutas de los sectores se traducen a la subinstancia de la reparación.
+        ArrayList<ArrayList<Integer>> seed = new ArrayList<>();
+        for (ArrayList<Integer> route : routes) {
+            ArrayList<Integer> seedRoute = new ArrayList<>();
+            for (int customer : route) {
+                seedRoute.add(Arrays.binarySearch(customers, customer) + 1);
+            }
+            seed.add(seedRoute);
+        }
+        TOPTWReduction reduction = new TOPTWReduction(this.problem, customers, this.problem.getVehicles());
+        TOPTWSolution solution = new TOPTWSolution(reduction.getReducedProblem());
+        TOPTWGRASP grasp = new TOPTWGRASP(solution);
+        grasp.setVerbose(false);
+        grasp.computeGreedySolution(1, seed);
+        this.bestFitness = solution.evaluateFitness();
+        this.bestRoutes = reduction.toOriginalRoutes(solution.getRoutes());
+    }
+
+    /**
+     * Establece el número de hilos con los que se resuelven los sectores.
+     *
+     * @param threads Número de hilos (por defecto, el número de procesadores).
+     */
+    public void setThreads(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Fija la semilla de la ejecución; cada sector usa una semilla derivada de ella.
+     *
+     * @param seed Semilla.
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+        this.seeded = true;
+    }
+
+    /**
+     * Obtiene el número de sectores de la última descomposición.
+     *
+     * @return Número de sectores.
+     */
+    public int getClusters() {
+        return this.clusters.length;
+    }
+
+    /**
+     * Obtiene los clientes de un sector.
+     *
+     * @param cluster Sector, en orden de barrido.
+     * @return Clientes del sector, con los identificadores de la instancia completa.
+     */
+    public int[] getClusterCustomers(int cluster) {
+        return this.clusters[cluster];
+    }
+
+    /**
+     * Obtiene los vehículos asignados a un sector.
+     *
+     * @param cluster Sector, en orden de barrido.
+     * @return Número de vehículos del sector.
+     */
+    public int getClusterVehicles(int cluster) {
+        return this.clusterVehicles[cluster];
+    }
+
+    /**
+     * Obtiene el fitness de la unión de las rutas de los sectores, antes de la reparación.
+     *
+     * @return Fitness de las rutas unidas.
+     */
+    public double getClustersFitness() {
+        return this.clustersFitness;
+    }
+
+    /**
+     * Obtiene el fitness de la solución reparada.
+     *
+     * @return Mejor fitness.
+     */
+    public double getBestFitness() {
+        return this.bestFitness;
+    }
+
+    /**
+     * Obtiene las rutas de la solución reparada.
+     *
+     * @return Lista con los clientes de cada ruta, en orden de visita.
+     */
+    public ArrayList<ArrayList<Integer>> getBestRoutes() {
+        return this.bestRoutes;
+    }
+
+    /**
+     * Obtiene el tiempo de la partición en sectores y de la asignación de vehículos.
+     *
+     * @return Tiempo en milisegundos.
+     */
+    public long getPartitionTime() {
+        return this.partitionTime;
+    }
+
+    /**
+     * Obtiene el tiempo de la resolución de los sectores.
+     *
+     * @return Tiempo en milisegundos.
+     */
+    public long getClustersTime() {
+        return this.clustersTime;
+    }
+
+    /**
+     * Obtiene el tiempo de la reparación de las fronteras.
+     *
+     * @return Tiempo en milisegundos.
+     */
+    public long getRepairTime() {
+        return this.repairTime;
+    }
+
+    /**
+     * Obtiene el tiempo total de la última descomposición: partición, sectores y reparación.
+     *
+     * @return Tiempo en milisegundos.
+     */
+    public long getSolutionTime() {
+        return this.partitionTime + this.clustersTime + this.repairTime;
+    }
+
+    /**
+     * Método principal de la descomposición.
+     *
+     * @param args Ruta de la instancia, iteraciones de GRASP por sector, tamaño de la RCL y,
+     *             opcionalmente, el tamaño máximo de sector y la semilla.
+     * @throws InterruptedException Si se interrumpe la espera de los sectores.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        if (args.length < 3) {
+            System.err.println("Usage: TOPTWDecomposition <instance> <iterations> <rcl> [cluster size] [seed]");
+            System.exit(1);
+        }
+        TOPTW problem = TOPTWReader.readProblem(args[0], false, TOPTW.MATRIX_LAZY);
+        int clusterSize = args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_CLUSTER_SIZE;
+        TOPTWDecomposition decomposition = new TOPTWDecomposition(problem, clusterSize);
+        if (args.length > 4) {
+            decomposition.setSeed(Long.parseLong(args[4]));
+        }
+        decomposition.solve(Integer.parseInt(args[1]), Integer.parseInt(args[2]));
+
+        System.out.println(" --> Instance: " + args[0]);
+        for (int c = 0; c < decomposition.getClusters(); c++) {
+            System.out.println(" --> SECTOR " + c + ": CLIENTES " + decomposition.getClusterCustomers(c).length
+                    + " VEHICULOS " + decomposition.getClusterVehicles(c));
+        }
+        System.out.println(" --> SECTORES: " + decomposition.getClustersFitness());
+        System.out.println(" --> MEJOR SOLUCION: " + decomposition.getBestFitness());
+        System.out.println(" --> RUTAS: " + decomposition.getBestRoutes());
+        System.out.println(" --> TIEMPO: PARTICION " + decomposition.getPartitionTime() + " ms SECTORES "
+                + decomposition.getClustersTime() + " ms REPARACION " + decomposition.getRepairTime() + " ms");
+        if (problem.getDistanceProvider() instanceof LazyDistanceMatrix) {
+            // Consultas a las distancias de la instancia completa (los sectores usan sus propias matrices).
+            LazyDistanceMatrix distances = (LazyDistanceMatrix) problem.getDistanceProvider();
+            System.out.println(" --> CACHE DE DISTANCIAS: ACIERTOS " + distances.getHits() + " FALLOS "
+                    + distances.getMisses() + " FILAS " + distances.getLoadedRows() + " TASA "
+                    + ExpositoUtilities.getFormat(100.0 * distances.getHitRate()) + " %");
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package top;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Eventos de JDK Flight Recorder (JFR) emitidos por la construcción GRASP y por la solución.
+ * <p>
+ * Permiten situar en una grabación de JFR cada iteración (con su duración y su fitness), cada
+ * elección en la RCL, cada nueva mejor solución y cada ruta abierta. Como el resto de eventos de
+ * JFR, cada uno se activa y se filtra por duración mínima desde la configuración de la grabación,
+ * por ejemplo con el fichero {@code src/top/toptw.jfc} que acompaña a esta clase (Maven lo copia
+ * también a {@code target/classes/top/toptw.jfc}). JFR busca el fichero de configuración relativo al
+ * directorio de trabajo, así que desde la raíz del repositorio:
+ * <pre>
+ * java -cp target/classes:jxl-2.6.12.jar -XX:StartFlightRecording:settings=default,settings=src/top/toptw.jfc,filename=toptw.jfr top.mainTOPTW
+ * </pre>
+ * Las selecciones en la RCL y las rutas abiertas se producen varias veces por iteración, por lo que
+ * están desactivadas por defecto. Los eventos se crean y rellenan solo si la grabación los acepta
+ * ({@link Event#shouldCommit()}), de modo que sin grabación su coste es despreciable. No guardan la
+ * pila de llamadas.
+ */
+public final class TOPTWEvents {
+
+    private TOPTWEvents() {
+    }
+
+    /**
+     * Iteración de GRASP: construcción de una solución y su evaluación.
+     */
+    @Name("top.Iteration")
+    @Label("GRASP Iteration")
+    @Category({"TOPTW", "GRASP"})
+    @Description("Construction and evaluation of one GRASP solution")
+    @StackTrace(false)
+    @Threshold("0 ms")
+    public static class Iteration extends Event {
+
+        @Label("Instance")
+        String instance;
+
+        @Label("Iteration")
+        int iteration;
+
+        @Label("RCL Size")
+        int sizeRCL;
+
+        @Label("Fitness")
+        double fitness;
+
+        @Label("Routes")
+        int routes;
+    }
+
+    /**
+     * Elección de un candidato de la RCL durante la construcción.
+     */
+    @Name("top.RCLSelection")
+    @Label("RCL Selection")
+    @Category({"TOPTW", "GRASP"})
+    @Description("Candidate chosen from the restricted candidate list")
+    @StackTrace(false)
+    @Enabled(false)
+    public static class Selection extends Event {
+
+        @Label("Instance")
+        String instance;
+
+        @Label("Customer")
+        int customer;
+
+        @Label("Route")
+        int route;
+
+        @Label("Incremental Cost")
+        double cost;
+
+        @Label("Position in RCL")
+        int position;
+
+        @Label("RCL Size")
+        int sizeRCL;
+    }
+
+    /**
+     * Nueva mejor solución de una ejecución de GRASP.
+     */
+    @Name("top.Incumbent")
+    @Label("New Incumbent")
+    @Category({"TOPTW", "GRASP"})
+    @Description("A GRASP iteration improved the best solution of the run")
+    @StackTrace(false)
+    public static class Incumbent extends Event {
+
+        @Label("Instance")
+        String instance;
+
+        @Label("Iteration")
+        int iteration;
+
+        @Label("Fitness")
+        double fitness;
+
+        @Label("Previous Fitness")
+        double previousFitness;
+    }
+
+    /**
+     * Ruta abierta en una solución con {@link TOPTWSolution#addRoute()}.
+     */
+    @Name("top.RouteOpened")
+    @Label("Route Opened")
+    @Category({"TOPTW", "Solution"})
+    @Description("A new route was added to a solution")
+    @StackTrace(false)
+    @Enabled(false)
+    public static class RouteOpened extends Event {
+
+        @Label("Route")
+        int route;
+
+        @Label("Depot")
+        int depot;
+
+        @Label("Available Vehicles")
+        int availableVehicles;
+    }
+}
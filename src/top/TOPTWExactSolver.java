@@ -0,0 +1,320 @@
+package top;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PrimitiveIterator;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+import es.ull.esit.utilities.PowerSet;
+
+/**
+ * Resolutor exacto para instancias pequeñas del problema TOPTW basado en programación dinámica
+ * sobre subconjuntos.
+ * <p>
+ * En lugar de recorrer todos los subconjuntos de clientes con {@link PowerSet}, la programación
+ * dinámica extiende etiquetas desde el depósito, de modo que solo se generan los subconjuntos que
+ * pueden recorrerse respetando las ventanas de tiempo, que en instancias con ventanas ajustadas son
+ * una fracción mínima de los 2^n posibles. El recorrido de máscaras de {@link PowerSet} se usa para
+ * precalcular la puntuación de cada subconjunto en las instancias de hasta
+ * {@link #SCORE_TABLE_MAX_CUSTOMERS} clientes.
+ * <p>
+ * Cada etiqueta representa una ruta parcial mediante el conjunto de clientes visitados (máscara
+ * de bits), el último cliente visitado y el instante de salida de ese cliente. Para un mismo par
+ * (conjunto, último cliente) solo se conserva la etiqueta que sale antes, porque domina a las
+ * demás. Las rutas se construyen una tras otra y, para eliminar soluciones simétricas, el primer
+ * cliente de cada ruta debe ser mayor que el de la ruta anterior. Las etiquetas de cada ruta se
+ * reparten en tareas paralelas según su primer cliente. En la última ruta se descartan las etiquetas
+ * cuya cota superior (puntuación actual más la de los clientes aún alcanzables) no mejora la mejor
+ * solución, y la búsqueda termina en cuanto se visitan todos los clientes.
+ * <p>
+ * Se consideran factibles las llegadas que no superan el cierre de la ventana de tiempo (se espera
+ * hasta su apertura si se llega antes) y las rutas que vuelven al depósito dentro del tiempo máximo
+ * por ruta. Está pensado como oráculo de calidad para instancias de unos 20-25 clientes.
+ */
+public class TOPTWExactSolver {
+
+    /** Número máximo de clientes admitido (las claves de las etiquetas usan 6 bits para el último nodo). */
+    public static final int MAX_CUSTOMERS = 56;
+
+    /** Número máximo de clientes para los que se precalcula la puntuación de cada subconjunto (8 MB). */
+    public static final int SCORE_TABLE_MAX_CUSTOMERS = 20;
+
+    /** Número de rutas con el que se resuelven las instancias en formato de Solomon. */
+    public static final int SOLOMON_VEHICLES = 2;
+
+    private final TOPTW problem; ///< Instancia a resolver.
+    private final int customers; ///< Número de clientes (POIs sin el depósito).
+    private final double[] subsetScores; ///< Puntuación de cada subconjunto de clientes, o null si no se precalcula.
+    private final double totalScore; ///< Suma de las puntuaciones de todos los clientes.
+    private volatile double bestScore; ///< Puntuación óptima encontrada.
+    private long bestVisited; ///< Máscara de los clientes visitados en la solución óptima.
+    private long labels; ///< Número total de etiquetas generadas.
+    private long solutionTime; ///< Tiempo de resolución en milisegundos.
+
+    /**
+     * Constructor de la clase TOPTWExactSolver.
+     *
+     * @param problem Instancia del problema TOPTW.
+     * @throws IllegalArgumentException Si la instancia tiene más de {@link #MAX_CUSTOMERS} clientes.
+     */
+    public TOPTWExactSolver(TOPTW problem) {
+        if (problem.getPOIs() > TOPTWExactSolver.MAX_CUSTOMERS || problem.getPOIs() > PowerSet.MAX_MASK_SIZE) {
+            throw new IllegalArgumentException("Too many customers for the exact solver: " + problem.getPOIs());
+        }
+        this.problem = problem;
+        this.customers = problem.getPOIs();
+        this.subsetScores = this.customers <= TOPTWExactSolver.SCORE_TABLE_MAX_CUSTOMERS
+                ? this.computeSubsetScores() : null;
+        this.totalScore = this.getScore(this.customers == 0 ? 0L : -1L >>> (64 - this.customers));
+        this.bestScore = 0.0;
+        this.bestVisited = 0L;
+    }
+
+    /**
+     * Resuelve la instancia de forma exacta.
+     *
+     * @return La puntuación óptima.
+     */
+    public double solve() {
+        long startTime = System.currentTimeMillis();
+        this.bestScore = 0.0;
+        this.bestVisited = 0L;
+        this.labels = 0;
+
+        // Conjuntos visitados al cerrar cada ruta, con el menor primer cliente de la última ruta.
+        Map<Long, Integer> starts = new HashMap<>();
+        starts.put(0L, 0);
+        for (int route = 0; route < this.problem.getVehicles() && !starts.isEmpty(); route++) {
+            final Map<Long, Integer> routeStarts = starts;
+            final boolean lastRoute = route == this.problem.getVehicles() - 1;
+            ConcurrentHashMap<Long, Integer> closed = new ConcurrentHashMap<>();
+            long[] routeLabels = IntStream.rangeClosed(1, this.customers).parallel()
+                    .mapToLong(first -> this.expandRoute(first, routeStarts, closed, lastRoute))
+                    .toArray();
+            for (long count : routeLabels) {
+                this.labels += count;
+            }
+            if (this.bestScore >= this.totalScore) {
+                break; // Se visitan todos los clientes: no puede mejorarse.
+            }
+            starts = closed;
+        }
+        this.solutionTime = System.currentTimeMillis() - startTime;
+        return this.bestScore;
+    }
+
+    /**
+     * Genera todas las rutas no dominadas que comienzan por el cliente indicado.
+     *
+     * @param first Primer cliente de la ruta.
+     * @param starts Conjuntos visitados por las rutas anteriores y primer cliente de la última.
+     * @param closed Conjuntos visitados alcanzables al cerrar esta ruta (se actualiza).
+     * @param lastRoute Indica si es la última ruta, en cuyo caso se aplica la cota superior.
+     * @return Número de etiquetas generadas.
+     */
+    private long expandRoute(int first, Map<Long, Integer> starts, ConcurrentHashMap<Long, Integer> closed,
+                             boolean lastRoute) {
+        long generated = 0;
+        HashMap<Long, Double> layer = new HashMap<>();
+        double[] times = new double[this.customers + 1];
+        long firstBit = 1L << (first - 1);
+        double departure = this.departure(0, 0.0, first);
+        if (departure < 0.0) {
+            return generated;
+        }
+        for (Map.Entry<Long, Integer> start : starts.entrySet()) {
+            if (start.getValue() < first && (start.getKey() & firstBit) == 0) {
+                layer.put(TOPTWExactSolver.key(start.getKey() | firstBit, first), departure);
+            }
+        }
+        while (!layer.isEmpty() && this.bestScore < this.totalScore) {
+            HashMap<Long, Double> next = new HashMap<>();
+            for (Map.Entry<Long, Double> label : layer.entrySet()) {
+                long mask = label.getKey() >>> 6;
+                int last = (int) (label.getKey() & 63);
+                double score = this.getScore(mask);
+                generated++;
+                if (score > this.bestScore) {
+                    this.offer(mask, score);
+                }
+                if (!lastRoute) {
+                    closed.merge(mask, first, Math::min);
+                }
+                double bound = score;
+                for (int c = 1; c <= this.customers; c++) {
+                    times[c] = (mask & (1L << (c - 1))) != 0 ? -1.0 : this.departure(last, label.getValue(), c);
+                    if (times[c] >= 0.0) {
+                        bound += this.problem.getScore(c);
+                    }
+                }
+                if (lastRoute && bound <= this.bestScore) {
+                    continue; // Ninguna extensión de esta etiqueta puede mejorar la mejor solución.
+                }
+                for (int c = 1; c <= this.customers; c++) {
+                    if (times[c] >= 0.0) {
+                        next.merge(TOPTWExactSolver.key(mask | (1L << (c - 1)), c), times[c], Math::min);
+                    }
+                }
+            }
+            layer = next;
+        }
+        return generated;
+    }
+
+    /**
+     * Registra una solución si mejora la mejor encontrada hasta el momento.
+     *
+     * @param mask Conjunto de clientes visitados.
+     * @param score Puntuación del conjunto.
+     */
+    private synchronized void offer(long mask, double score) {
+        if (score > this.bestScore) {
+            this.bestScore = score;
+            this.bestVisited = mask;
+        }
+    }
+
+    /**
+     * Calcula el instante de salida de un cliente al que se llega desde otro nodo.
+     *
+     * @param from Nodo de origen.
+     * @param time Instante de salida del nodo de origen.
+     * @param to Cliente de destino.
+     * @return Instante de salida del cliente, o -1 si no se respeta su ventana de tiempo o no se
+     *         puede volver al depósito dentro del tiempo máximo por ruta.
+     */
+    private double departure(int from, double time, int to) {
+        double arrival = time + this.problem.getTime(from, to);
+        if (arrival > this.problem.getDueTime(to)) {
+            return -1.0;
+        }
+        double leave = Math.max(arrival, this.problem.getReadyTime(to)) + this.problem.getServiceTime(to);
+        if (leave + this.problem.getTime(to, 0) > this.problem.getMaxTimePerRoute()) {
+            return -1.0;
+        }
+        return leave;
+    }
+
+    /**
+     * Codifica una etiqueta (conjunto visitado, último cliente) como un único {@code long}.
+     *
+     * @param mask Conjunto de clientes visitados.
+     * @param last Último cliente visitado.
+     * @return Clave de la etiqueta.
+     */
+    private static long key(long mask, int last) {
+        return (mask << 6) | last;
+    }
+
+    /**
+     * Precalcula la puntuación de todos los subconjuntos de clientes. Se recorren en orden creciente
+     * de máscara, por lo que el subconjunto sin su menor cliente ya está calculado.
+     *
+     * @return Puntuación de cada subconjunto, indexada por su máscara.
+     */
+    private double[] computeSubsetScores() {
+        double[] scores = new double[1 << this.customers];
+        PrimitiveIterator.OfLong masks = PowerSet.maskIterator(this.customers, false);
+        while (masks.hasNext()) {
+            long mask = masks.nextLong();
+            if (mask != 0) {
+                scores[(int) mask] = scores[(int) (mask & (mask - 1))]
+                        + this.problem.getScore(Long.numberOfTrailingZeros(mask) + 1);
+            }
+        }
+        return scores;
+    }
+
+    /**
+     * Calcula la puntuación de un conjunto de clientes.
+     *
+     * @param mask Conjunto de clientes.
+     * @return Suma de sus puntuaciones.
+     */
+    private double getScore(long mask) {
+        if (this.subsetScores != null) {
+            return this.subsetScores[(int) mask];
+        }
+        double score = 0.0;
+        for (long bits = mask; bits != 0; bits &= bits - 1) {
+            score += this.problem.getScore(Long.numberOfTrailingZeros(bits) + 1);
+        }
+        return score;
+    }
+
+    /**
+     * Obtiene la puntuación óptima de la última resolución.
+     *
+     * @return Puntuación óptima.
+     */
+    public double getBestScore() {
+        return this.bestScore;
+    }
+
+    /**
+     * Obtiene los clientes visitados por la solución óptima.
+     *
+     * @return Conjunto ordenado de clientes visitados.
+     */
+    public Set<Integer> getBestVisited() {
+        TreeSet<Integer> all = new TreeSet<>();
+        for (int c = 1; c <= this.customers; c++) {
+            all.add(c);
+        }
+        return new PowerSet<>(all).toSet(this.bestVisited);
+    }
+
+    /**
+     * Obtiene el número de etiquetas generadas en la última resolución.
+     *
+     * @return Número de etiquetas.
+     */
+    public long getLabels() {
+        return this.labels;
+    }
+
+    /**
+     * Obtiene el tiempo de la última resolución en milisegundos.
+     *
+     * @return Tiempo de resolución.
+     */
+    public long getSolutionTime() {
+        return this.solutionTime;
+    }
+
+    /**
+     * Resuelve de forma exacta las instancias indicadas y muestra su óptimo.
+     *
+     * Las instancias en formato de Solomon (como {@code Instances/rc101_25.txt}) se leen con
+     * {@link TOPTWReader#readSolomonProblem(String, int)} y {@link #SOLOMON_VEHICLES} rutas.
+     *
+     * @param args Rutas de las instancias (por defecto, {@code Instances/TOPTW/c101Recortada.txt}).
+     */
+    public static void main(String[] args) {
+        ArrayList<String> instances = new ArrayList<>();
+        for (String arg : args) {
+            instances.add(arg);
+        }
+        if (instances.isEmpty()) {
+            instances.add("Instances/TOPTW/c101Recortada.txt");
+        }
+        for (String instance : instances) {
+            TOPTW problem;
+            if (TOPTWReader.isSolomonFormat(instance)) {
+                problem = TOPTWReader.readSolomonProblem(instance, TOPTWExactSolver.SOLOMON_VEHICLES);
+            } else {
+                problem = TOPTWReader.readProblem(instance);
+            }
+            TOPTWExactSolver solver = new TOPTWExactSolver(problem);
+            solver.solve();
+            System.out.println(" --> Instance: " + instance);
+            System.out.println(" --> OPTIMO: " + solver.getBestScore());
+            System.out.println(" --> CLIENTES: " + solver.getBestVisited());
+            System.out.println(" --> ETIQUETAS: " + solver.getLabels() + " (" + solver.getSolutionTime() + " ms)");
+        }
+    }
+}
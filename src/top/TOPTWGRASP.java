@@ -1,9 +1,13 @@
 package top;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.Random;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * Implementación del algoritmo GRASP para el problema Team Orienteering con Ventanas de Tiempo (TOPTW).
@@ -14,8 +18,42 @@ import java.util.Random;
 public class TOPTWGRASP {
     public static double NO_EVALUATED = -1.0; ///< Constante que indica que la solución no ha sido evaluada.
 
+    /** Clientes a partir de los cuales la evaluación de candidatos se reparte entre varios hilos. */
+    public static final int PARALLEL_EVALUATION_THRESHOLD = 1000;
+
+    /** Clientes que evalúa cada tarea de la evaluación paralela. */
+    private static final int PARALLEL_EVALUATION_CHUNK = 128;
+
+    /** Incremento del generador SplitMix64 (parte fraccionaria de la razón áurea). */
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
     private TOPTWSolution solution; ///< Solución del problema.
     private int solutionTime; ///< Tiempo requerido para la solución.
+    private double averageFitness; ///< Fitness medio de la última ejecución de GRASP.
+    private double bestFitness; ///< Mejor fitness de la última ejecución de GRASP.
+    private ArrayList<ArrayList<Integer>> bestRoutes; ///< Rutas de la mejor solución de la última ejecución.
+    private boolean verbose; ///< Indica si se muestra por consola cada solución y el resumen.
+    private long randomState; ///< Estado del generador aleatorio (SplitMix64).
+    private boolean seeded; ///< Indica si se ha fijado la semilla del generador aleatorio.
+    private long seed; ///< Semilla fijada con {@link #setSeed(long)}.
+    private File checkpointFile; ///< Fichero de punto de control, o null si no se guardan.
+    private int checkpointInterval; ///< Iteraciones entre dos puntos de control.
+    private boolean keepCheckpoint; ///< Indica si al terminar se guarda un punto de control final en lugar de eliminarlo.
+    private File incumbentFile; ///< Mejor solución global publicada por otro proceso, o null si no se consulta.
+    private int incumbentInterval; ///< Iteraciones entre dos consultas de la mejor solución global.
+    private TOPTWProfiler profiler; ///< Tiempo de CPU y memoria de cada fase de la última ejecución.
+    private String instanceName; ///< Nombre de la instancia en los eventos de JFR.
+    private String instancePath; ///< Ruta canónica de la instancia, que identifica sus puntos de control.
+    private boolean earlyTermination; ///< Indica si la ejecución termina al alcanzar la cota superior.
+    private double upperBound; ///< Cota superior de la puntuación de la instancia.
+    private int upperBoundVehicles; ///< Número de vehículos con el que se calculó la cota superior.
+    private double upperBoundMaxTime; ///< Tiempo máximo por ruta con el que se calculó la cota superior.
+    private int iterations; ///< Iteraciones realizadas en la última ejecución de GRASP.
+    private ArrayList<ArrayList<ArrayList<Integer>>> seedSolutions; ///< Soluciones de partida de las primeras iteraciones.
+    private int eliteSize; ///< Número máximo de soluciones élite que se conservan (0 para no conservarlas).
+    private ArrayList<ArrayList<ArrayList<Integer>>> elite; ///< Mejores soluciones distintas, de mayor a menor fitness.
+    private ArrayList<Double> eliteFitness; ///< Fitness de cada solución élite.
+    private int parallelThreshold; ///< Clientes a partir de los cuales se evalúa en paralelo.
 
     /**
      * Constructor de la clase TOPTWGRASP.
@@ -25,6 +63,29 @@ public class TOPTWGRASP {
     public TOPTWGRASP(TOPTWSolution sol){
         this.solution = sol;
         this.solutionTime = 0;
+        this.averageFitness = 0.0;
+        this.bestFitness = 0.0;
+        this.bestRoutes = new ArrayList<>();
+        this.verbose = true;
+        this.randomState = System.nanoTime() * GOLDEN_GAMMA;
+        this.seeded = false;
+        this.seed = 0L;
+        this.checkpointFile = null;
+        this.checkpointInterval = 0;
+        this.keepCheckpoint = false;
+        this.incumbentFile = null;
+        this.incumbentInterval = 0;
+        this.profiler = new TOPTWProfiler(false);
+        this.instanceName = "";
+        this.instancePath = "";
+        this.earlyTermination = true;
+        this.upperBound = Double.NaN;
+        this.iterations = 0;
+        this.seedSolutions = new ArrayList<>();
+        this.eliteSize = 0;
+        this.elite = new ArrayList<>();
+        this.eliteFitness = new ArrayList<>();
+        this.parallelThreshold = PARALLEL_EVALUATION_THRESHOLD;
     }
 
     /**
@@ -32,29 +93,123 @@ public class TOPTWGRASP {
      * <p>
      * Ejecuta el proceso GRASP para un número de iteraciones determinado.
      * En cada iteración, construye una solución aleatoria voraz y luego aplica una búsqueda local.
+     * <p>
+     * Si se ha configurado un punto de control con {@link #setCheckpoint(File, int)}, la ejecución
+     * continúa desde el punto de control existente con la misma instancia, la misma semilla y los
+     * mismos parámetros, guarda uno nuevo cada
+     * cierto número de iteraciones y lo elimina al terminar (o guarda uno final, véase
+     * {@link #setKeepCheckpoint(boolean)}).
+     * <p>
+     * Si se ha activado con {@link #setProfiling(boolean)}, se mide el tiempo de CPU y la memoria
+     * reservada de cada fase de la ejecución, que se obtienen con {@link #getProfiler()}. Cada
+     * iteración, elección en la RCL y nueva mejor solución se emite además como evento de JFR
+     * ({@link TOPTWEvents}).
+     * <p>
+     * La ejecución termina antes de agotar las iteraciones si la mejor solución alcanza la cota
+     * superior de la instancia ({@link TOPTWUpperBound}), porque entonces es óptima; el fitness medio
+     * se calcula sobre las iteraciones realizadas. Este comportamiento se desactiva con
+     * {@link #setEarlyTermination(boolean)}. Si se ha configurado {@link #setIncumbentFile(File, int)},
+     * también termina cuando la mejor solución global publicada por otro proceso alcanza la cota.
+     * <p>
+     * Si se han indicado soluciones de partida con {@link #setSeedSolutions(ArrayList)}, las primeras
+     * iteraciones completan cada una de ellas en lugar de construir desde cero, y si se ha
+     * configurado {@link #setEliteSize(int)} se conservan las mejores soluciones distintas.
      *
      * @param maxIterations Número máximo de iteraciones para GRASP.
      * @param maxSizeRCL Tamaño máximo de la Lista de Candidatos Restringida (RCL).
      */
     public void GRASP(int maxIterations, int maxSizeRCL) {
+        long startTime = System.currentTimeMillis();
         double averageFitness = 0.0;
         double bestSolution = 0.0;
-        for(int i = 0; i < maxIterations; i++) {
+        this.bestRoutes = new ArrayList<>();
+        this.profiler.reset();
+        this.elite = new ArrayList<>();
+        this.eliteFitness = new ArrayList<>();
+        this.upperBound = Double.NaN; // La instancia puede haber cambiado desde la última ejecución.
+        double target = this.earlyTermination ? this.getUpperBound() : Double.POSITIVE_INFINITY;
+        int firstIteration = 0;
+        TOPTWCheckpoint checkpoint = this.readCheckpoint(maxIterations, maxSizeRCL);
+        if(checkpoint != null) {
+            firstIteration = checkpoint.getIteration();
+            this.randomState = checkpoint.getRandomState();
+            averageFitness = checkpoint.getFitnessSum();
+            bestSolution = checkpoint.getBestFitness();
+            this.bestRoutes = checkpoint.getBestRoutes();
+            this.elite = checkpoint.getElite();
+            this.eliteFitness = checkpoint.getEliteFitness();
+            startTime -= checkpoint.getElapsedTime();
+        }
+        double incumbent = target < Double.POSITIVE_INFINITY ? this.readIncumbent() : 0.0;
+        int i = firstIteration;
+        for(; i < maxIterations && bestSolution < target && incumbent < target; i++) {
+            TOPTWEvents.Iteration iterationEvent = new TOPTWEvents.Iteration();
+            iterationEvent.begin();
+            this.profiler.start();
+            if(this.checkpointFile != null && i > firstIteration && i % this.checkpointInterval == 0) {
+                this.writeCheckpoint(this.createCheckpoint(maxIterations, maxSizeRCL, i, averageFitness, bestSolution,
+                        System.currentTimeMillis() - startTime));
+            }
+            if(this.incumbentFile != null && target < Double.POSITIVE_INFINITY && i > firstIteration
+                    && i % this.incumbentInterval == 0) {
+                incumbent = this.readIncumbent();
+            }
+            this.profiler.stop(TOPTWProfiler.PHASE_REPORTING);
 
-            this.computeGreedySolution(maxSizeRCL);
+            if(i < this.seedSolutions.size()) { // Al reanudar no se repiten las semillas ya construidas.
+                this.computeGreedySolution(maxSizeRCL, this.seedSolutions.get(i));
+            } else {
+                this.computeGreedySolution(maxSizeRCL);
+            }
 
             // Evaluar y mostrar la solución generada en esta iteración
             double fitness = this.solution.evaluateFitness();
-            System.out.println(this.solution.getInfoSolution());
+            if(this.verbose) {
+                System.out.println(this.solution.getInfoSolution());
+            }
 
             averageFitness += fitness;
             if(bestSolution < fitness) {
+                TOPTWEvents.Incumbent incumbentEvent = new TOPTWEvents.Incumbent();
+                if(incumbentEvent.shouldCommit()) {
+                    incumbentEvent.instance = this.instanceName;
+                    incumbentEvent.iteration = i;
+                    incumbentEvent.fitness = fitness;
+                    incumbentEvent.previousFitness = bestSolution;
+                    incumbentEvent.commit();
+                }
                 bestSolution = fitness;
+                this.bestRoutes = this.solution.getRoutes();
             }
+            this.updateElite(fitness);
+            this.profiler.stop(TOPTWProfiler.PHASE_REPORTING);
+
+            iterationEvent.end();
+            if(iterationEvent.shouldCommit()) {
+                iterationEvent.instance = this.instanceName;
+                iterationEvent.iteration = i;
+                iterationEvent.sizeRCL = maxSizeRCL;
+                iterationEvent.fitness = fitness;
+                iterationEvent.routes = this.solution.getCreatedRoutes();
+                iterationEvent.commit();
+            }
+        }
+        this.iterations = i;
+        this.solutionTime = (int) (System.currentTimeMillis() - startTime);
+        if(this.checkpointFile != null && this.keepCheckpoint) {
+            this.writeCheckpoint(this.createCheckpoint(maxIterations, maxSizeRCL, i, averageFitness, bestSolution,
+                    this.solutionTime));
+        } else if(this.checkpointFile != null) {
+            this.checkpointFile.delete(); // La ejecución ha terminado: no hay nada que reanudar.
+        }
+        averageFitness = i > 0 ? averageFitness / i : 0.0;
+        this.averageFitness = averageFitness;
+        this.bestFitness = bestSolution;
+        if(this.verbose) {
+            System.out.println(" --> MEDIA: "+averageFitness);
+            System.out.println(" --> MEJOR SOLUCION: "+bestSolution);
+            System.out.println(" --> COTA SUPERIOR: "+this.getUpperBound()+" GAP: "+this.getGap());
         }
-        averageFitness = averageFitness / maxIterations;
-        System.out.println(" --> MEDIA: "+averageFitness);
-        System.out.println(" --> MEJOR SOLUCION: "+bestSolution);
     }
 
     /**
@@ -64,10 +219,147 @@ public class TOPTWGRASP {
      * @return La posición seleccionada de forma aleatoria.
      */
     public int aleatorySelectionRCL(int maxTRCL) {
-        Random r = new Random();
         int low = 0;
         int high = maxTRCL;
-        return r.nextInt(high - low) + low;
+        return this.nextRandom(high - low) + low;
+    }
+
+    /**
+     * Genera un entero aleatorio con el generador SplitMix64, cuyo estado completo es un único
+     * {@code long} que puede guardarse en los puntos de control.
+     *
+     * @param bound Cota superior (exclusiva), mayor que cero.
+     * @return Entero aleatorio entre 0 y bound - 1.
+     */
+    private int nextRandom(int bound) {
+        this.randomState += GOLDEN_GAMMA;
+        long z = this.randomState;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z = z ^ (z >>> 31);
+        return (int) (((z >>> 32) * bound) >>> 32);
+    }
+
+    /**
+     * Establece la semilla del generador aleatorio, para obtener ejecuciones reproducibles.
+     *
+     * @param seed Semilla del generador.
+     */
+    public void setSeed(long seed) {
+        this.randomState = seed;
+        this.seeded = true;
+        this.seed = seed;
+    }
+
+    /**
+     * Configura el guardado periódico de puntos de control en disco.
+     *
+     * @param file Fichero del punto de control, o null para desactivarlo.
+     * @param interval Número de iteraciones entre dos puntos de control.
+     */
+    public void setCheckpoint(File file, int interval) {
+        this.checkpointFile = file;
+        this.checkpointInterval = Math.max(1, interval);
+    }
+
+    /**
+     * Indica si al terminar se guarda un punto de control final en lugar de eliminarlo. Repetir la
+     * ejecución con ese punto de control devuelve el mismo resultado sin iterar, de modo que quien lo
+     * active puede conservar el resultado hasta haberlo registrado y eliminar después el fichero.
+     *
+     * @param keepCheckpoint true para guardar el punto de control final.
+     */
+    public void setKeepCheckpoint(boolean keepCheckpoint) {
+        this.keepCheckpoint = keepCheckpoint;
+    }
+
+    /**
+     * Configura la consulta periódica de la mejor solución global que publica otro proceso (por
+     * ejemplo, el coordinador de {@link TOPTWCoordinator}) en un fichero de punto de control. Si esa
+     * solución, de la misma instancia, alcanza la cota superior, la ejecución termina porque ya no
+     * puede mejorarse.
+     *
+     * @param file Fichero de la mejor solución global, o null para desactivar la consulta.
+     * @param interval Número de iteraciones entre dos consultas.
+     */
+    public void setIncumbentFile(File file, int interval) {
+        this.incumbentFile = file;
+        this.incumbentInterval = Math.max(1, interval);
+    }
+
+    /**
+     * Lee el fitness de la mejor solución global configurada con {@link #setIncumbentFile(File, int)}.
+     *
+     * @return Fitness de la mejor solución global, o 0 si no existe, no se puede leer o es de otra instancia.
+     */
+    private double readIncumbent() {
+        if(this.incumbentFile == null || !this.incumbentFile.isFile()) {
+            return 0.0;
+        }
+        try {
+            TOPTWCheckpoint incumbent = TOPTWCheckpoint.read(this.incumbentFile);
+            return incumbent.isSameInstance(this.instancePath, this.solution.getProblem())
+                    ? incumbent.getBestFitness() : 0.0;
+        } catch (IOException e) {
+            return 0.0; // El coordinador puede estar reemplazándolo en este momento.
+        }
+    }
+
+    /**
+     * Lee el punto de control configurado si existe y corresponde a la ejecución indicada.
+     *
+     * @param maxIterations Número máximo de iteraciones de la ejecución.
+     * @param maxSizeRCL Tamaño máximo de la RCL de la ejecución.
+     * @return El punto de control, o null si no hay ninguno válido.
+     */
+    private TOPTWCheckpoint readCheckpoint(int maxIterations, int maxSizeRCL) {
+        if(this.checkpointFile == null || !this.checkpointFile.isFile()) {
+            return null;
+        }
+        try {
+            TOPTWCheckpoint checkpoint = TOPTWCheckpoint.read(this.checkpointFile);
+            if(checkpoint.matches(this.instancePath, this.solution.getProblem(), this.seeded, this.seed,
+                    maxIterations, maxSizeRCL)) {
+                return checkpoint;
+            }
+        } catch (IOException e) {
+            System.err.println(e); // Un punto de control ilegible se ignora y la ejecución empieza de cero.
+        }
+        return null;
+    }
+
+    /**
+     * Crea el punto de control del estado actual de la ejecución, identificado por la instancia (con
+     * su número de vehículos y su tiempo máximo por ruta actuales), la semilla y los parámetros.
+     *
+     * @param maxIterations Número máximo de iteraciones de la ejecución.
+     * @param maxSizeRCL Tamaño máximo de la RCL de la ejecución.
+     * @param iteration Número de iteraciones completadas.
+     * @param fitnessSum Suma del fitness de las iteraciones completadas.
+     * @param bestFitness Mejor fitness encontrado.
+     * @param elapsedTime Tiempo consumido en milisegundos.
+     * @return Punto de control.
+     */
+    private TOPTWCheckpoint createCheckpoint(int maxIterations, int maxSizeRCL, int iteration, double fitnessSum,
+                                             double bestFitness, long elapsedTime) {
+        TOPTW problem = this.solution.getProblem();
+        return new TOPTWCheckpoint(this.instancePath, problem.getPOIs(), problem.getVehicles(),
+                problem.getMaxTimePerRoute(), this.seeded, this.seed, maxIterations, maxSizeRCL, iteration,
+                this.randomState, fitnessSum, bestFitness, elapsedTime, this.bestRoutes, this.elite,
+                this.eliteFitness);
+    }
+
+    /**
+     * Guarda un punto de control. Un fallo al escribirlo no interrumpe la ejecución.
+     *
+     * @param checkpoint Estado de la ejecución.
+     */
+    private void writeCheckpoint(TOPTWCheckpoint checkpoint) {
+        try {
+            checkpoint.write(this.checkpointFile);
+        } catch (IOException e) {
+            System.err.println(e);
+        }
     }
 
     /**
@@ -129,6 +421,23 @@ public class TOPTWGRASP {
      * @param maxSizeRCL Tamaño máximo de la RCL.
      */
     public void computeGreedySolution(int maxSizeRCL) {
+        this.computeGreedySolution(maxSizeRCL, null);
+    }
+
+    /**
+     * Computa la solución voraz a través de la Lista de Candidatos Restringida (RCL) completando
+     * una solución de partida.
+     * <p>
+     * Los clientes de la solución de partida se insertan primero, en su orden y en sus rutas, y la
+     * construcción continúa con los clientes restantes y las rutas que queden libres. La solución de
+     * partida debe ser factible para la instancia actual, como lo es la de una instancia con menos
+     * rutas o un tiempo máximo por ruta menor.
+     *
+     * @param maxSizeRCL Tamaño máximo de la RCL.
+     * @param seed Clientes de cada ruta de la solución de partida, o null para construir desde cero.
+     */
+    public void computeGreedySolution(int maxSizeRCL, ArrayList<ArrayList<Integer>> seed) {
+        this.profiler.start();
         this.solution.initSolution();
         ArrayList<ArrayList<Double>> departureTimesPerClient = new ArrayList<>();
         ArrayList<Double> init = new ArrayList<>();
@@ -141,8 +450,26 @@ public class TOPTWGRASP {
         for(int j = 1; j <= this.solution.getProblem().getPOIs(); j++) {
             customers.add(j);
         }
+        for(int k = 0; seed != null && k < seed.size() && k < this.solution.getProblem().getVehicles(); k++) {
+            if(k > 0) {
+                this.solution.addRoute();
+                ArrayList<Double> initSeed = new ArrayList<>();
+                for(int z = 0; z < this.solution.getProblem().getPOIs() + this.solution.getProblem().getVehicles(); z++) {
+                    initSeed.add(0.0);
+                }
+                departureTimesPerClient.add(initSeed);
+            }
+            int pre = this.solution.getIndexRoute(k);
+            for(int customer : seed.get(k)) {
+                this.updateSolution(new double[]{customer, k, pre, 0, 0}, departureTimesPerClient);
+                customers.remove(Integer.valueOf(customer));
+                pre = customer;
+            }
+        }
+        this.profiler.stop(TOPTWProfiler.PHASE_UPDATE);
 
         ArrayList<double[]> candidates = this.comprehensiveEvaluation(customers, departureTimesPerClient);
+        this.profiler.stop(TOPTWProfiler.PHASE_EVALUATION);
 
         // Ordenamiento de los candidatos según su coste incremental
         Collections.sort(candidates, new Comparator<double[]>() {
@@ -150,6 +477,7 @@ public class TOPTWGRASP {
                 return Double.compare(a[a.length - 2], b[b.length - 2]);
             }
         });
+        this.profiler.stop(TOPTWProfiler.PHASE_SORTING);
 
         int maxTRCL = maxSizeRCL;
         boolean existCandidates = true;
@@ -165,9 +493,21 @@ public class TOPTWGRASP {
                 int posSelected = this.fuzzySelectionAlphaCutRCL(rcl, 0.8);
 
                 double[] candidateSelected = rcl.get(posSelected);
+                TOPTWEvents.Selection selectionEvent = new TOPTWEvents.Selection();
+                if(selectionEvent.shouldCommit()) {
+                    selectionEvent.instance = this.instanceName;
+                    selectionEvent.customer = (int) candidateSelected[0];
+                    selectionEvent.route = (int) candidateSelected[1];
+                    selectionEvent.cost = candidateSelected[4];
+                    selectionEvent.position = posSelected;
+                    selectionEvent.sizeRCL = rcl.size();
+                    selectionEvent.commit();
+                }
                 customers.removeIf(customer -> customer == candidateSelected[0]);
+                this.profiler.stop(TOPTWProfiler.PHASE_SELECTION);
 
                 updateSolution(candidateSelected, departureTimesPerClient);
+                this.profiler.stop(TOPTWProfiler.PHASE_UPDATE);
             } else if(this.solution.getCreatedRoutes() < this.solution.getProblem().getVehicles()) {
                 int newDepot = this.solution.addRoute();
                 ArrayList<Double> initNew = new ArrayList<>();
@@ -175,16 +515,19 @@ public class TOPTWGRASP {
                     initNew.add(0.0);
                 }
                 departureTimesPerClient.add(initNew);
+                this.profiler.stop(TOPTWProfiler.PHASE_UPDATE);
             } else {
                 existCandidates = false;
             }
             candidates.clear();
             candidates = this.comprehensiveEvaluation(customers, departureTimesPerClient);
+            this.profiler.stop(TOPTWProfiler.PHASE_EVALUATION);
             Collections.sort(candidates, new Comparator<double[]>() {
                 public int compare(double[] a, double[] b) {
                     return Double.compare(a[a.length - 2], b[b.length - 2]);
                 }
             });
+            this.profiler.stop(TOPTWProfiler.PHASE_SORTING);
         }
     }
 
@@ -195,51 +538,148 @@ public class TOPTWGRASP {
      * @param departureTimes Tiempos de salida por cliente y ruta.
      */
     public void updateSolution(double[] candidateSelected, ArrayList<ArrayList<Double>> departureTimes) {
-        this.solution.setPredecessor((int)candidateSelected[0], (int)candidateSelected[2]);
-        this.solution.setSuccessor((int)candidateSelected[0], this.solution.getSuccessor((int)candidateSelected[2]));
-        this.solution.setSuccessor((int)candidateSelected[2], (int)candidateSelected[0]);
-        this.solution.setPredecessor(this.solution.getSuccessor((int)candidateSelected[0]), (int)candidateSelected[0]);
+        this.solution.insertCustomer((int)candidateSelected[0], (int)candidateSelected[1], (int)candidateSelected[2]);
 
         double costInsertionPre = departureTimes.get((int)candidateSelected[1]).get((int)candidateSelected[2]);
         ArrayList<Double> route = departureTimes.get((int)candidateSelected[1]);
         int pre = (int)candidateSelected[2], suc;
         int depot = this.solution.getIndexRoute((int)candidateSelected[1]);
 
-        do {
-            suc = this.solution.getSuccessor(pre);
-            costInsertionPre += this.solution.getDistance(pre, suc);
+        TOPTW problem = this.solution.getProblem();
+        if(problem.isScaled()) {
+            // Aritmética entera escalada: los tiempos de salida se propagan de forma exacta
+            int time = problem.toScaled(costInsertionPre);
+            do {
+                suc = this.solution.getSuccessor(pre);
+                time += problem.getScaledDistance(pre, suc);
 
-            if(costInsertionPre < this.solution.getProblem().getReadyTime(suc)) {
-                costInsertionPre = this.solution.getProblem().getReadyTime(suc);
-            }
-            costInsertionPre += this.solution.getProblem().getServiceTime(suc);
+                if(time < problem.getScaledReadyTime(suc)) {
+                    time = problem.getScaledReadyTime(suc);
+                }
+                time += problem.getScaledServiceTime(suc);
 
-            if(!this.solution.isDepot(suc)) {
-                route.set(suc, costInsertionPre);
-            }
-            pre = suc;
-        } while(suc != depot);
+                if(!this.solution.isDepot(suc)) {
+                    route.set(suc, problem.fromScaled(time));
+                }
+                pre = suc;
+            } while(suc != depot);
+            this.solution.getRoute((int)candidateSelected[1]).setDuration(problem.fromScaled(time));
+        } else {
+            do {
+                suc = this.solution.getSuccessor(pre);
+                costInsertionPre += this.solution.getDistance(pre, suc);
+
+                if(costInsertionPre < problem.getReadyTime(suc)) {
+                    costInsertionPre = problem.getReadyTime(suc);
+                }
+                costInsertionPre += problem.getServiceTime(suc);
+
+                if(!this.solution.isDepot(suc)) {
+                    route.set(suc, costInsertionPre);
+                }
+                pre = suc;
+            } while(suc != depot);
+            this.solution.getRoute((int)candidateSelected[1]).setDuration(costInsertionPre);
+        }
 
         departureTimes.set((int)candidateSelected[1], route);
     }
 
     /**
      * Evalúa exhaustivamente los clientes y genera una lista de candidatos.
+     * <p>
+     * Si hay al menos tantos clientes como el umbral de {@link #setParallelThreshold(int)}, más de un
+     * procesador y las distancias admiten consultas concurrentes, los clientes se reparten en
+     * bloques que se evalúan en paralelo en el pool de fork-join común, ya que la evaluación solo
+     * lee la solución. Los candidatos de los bloques se unen en el orden de los clientes, por lo que
+     * la lista coincide con la de la evaluación secuencial. Si se miden las fases, los bloques que
+     * evalúan otros hilos del pool se miden en su propio hilo y se suman a la fase de evaluación de
+     * {@link #getProfiler()}; los que evalúa el propio hilo ya quedan dentro de su medición.
      *
      * @param customers Lista de clientes.
      * @param departureTimes Tiempos de salida por cliente y ruta.
      * @return Lista de candidatos.
      */
     public ArrayList<double[]> comprehensiveEvaluation(ArrayList<Integer> customers, ArrayList<ArrayList<Double>> departureTimes) {
+        DistanceProvider distances = this.solution.getProblem().getDistanceProvider();
+        if(customers.size() < this.parallelThreshold || Runtime.getRuntime().availableProcessors() < 2
+                || (distances != null && !distances.isConcurrent())) {
+            return this.evaluateCustomers(customers, 0, customers.size(), departureTimes, null);
+        }
+        int chunks = (customers.size() + PARALLEL_EVALUATION_CHUNK - 1) / PARALLEL_EVALUATION_CHUNK;
+        Thread caller = Thread.currentThread();
+        TOPTWProfiler[] chunkProfilers = new TOPTWProfiler[chunks];
+        List<ArrayList<double[]>> partial = IntStream.range(0, chunks).parallel()
+                .mapToObj(c -> this.evaluateChunk(customers, c, departureTimes, caller, chunkProfilers))
+                .collect(Collectors.toList());
+        for(TOPTWProfiler chunkProfiler : chunkProfilers) {
+            if(chunkProfiler != null) {
+                this.profiler.add(chunkProfiler);
+            }
+        }
+        int size = 0;
+        for(ArrayList<double[]> chunk : partial) {
+            size += chunk.size();
+        }
+        ArrayList<double[]> candidates = new ArrayList<>(size);
+        for(ArrayList<double[]> chunk : partial) {
+            candidates.addAll(chunk);
+        }
+        return candidates;
+    }
+
+    /**
+     * Evalúa un bloque de la evaluación paralela. Si se miden las fases y el bloque se evalúa en un
+     * hilo distinto del que llama, su tiempo de CPU y su memoria se miden en ese hilo.
+     *
+     * @param customers Lista de clientes.
+     * @param chunk Índice del bloque.
+     * @param departureTimes Tiempos de salida por cliente y ruta.
+     * @param caller Hilo que realiza la evaluación completa.
+     * @param chunkProfilers Mediciones de cada bloque (se actualiza en la posición del bloque).
+     * @return Candidatos de los clientes del bloque, en su orden.
+     */
+    private ArrayList<double[]> evaluateChunk(ArrayList<Integer> customers, int chunk,
+                                              ArrayList<ArrayList<Double>> departureTimes, Thread caller,
+                                              TOPTWProfiler[] chunkProfilers) {
+        int from = chunk * PARALLEL_EVALUATION_CHUNK;
+        int to = Math.min(customers.size(), from + PARALLEL_EVALUATION_CHUNK);
+        if(!this.profiler.isEnabled() || Thread.currentThread() == caller) {
+            return this.evaluateCustomers(customers, from, to, departureTimes, new TOPTWSolution.InsertionCostBuffers());
+        }
+        TOPTWProfiler chunkProfiler = new TOPTWProfiler(true);
+        chunkProfiler.start();
+        ArrayList<double[]> candidates = this.evaluateCustomers(customers, from, to, departureTimes,
+                new TOPTWSolution.InsertionCostBuffers());
+        chunkProfiler.stop(TOPTWProfiler.PHASE_EVALUATION);
+        chunkProfilers[chunk] = chunkProfiler;
+        return candidates;
+    }
+
+    /**
+     * Evalúa un rango de la lista de clientes y genera sus candidatos.
+     *
+     * @param customers Lista de clientes.
+     * @param from Primera posición del rango (incluida).
+     * @param to Última posición del rango (excluida).
+     * @param departureTimes Tiempos de salida por cliente y ruta.
+     * @param buffers Arreglos de evaluación del hilo, o null para usar los de la solución.
+     * @return Candidatos de los clientes del rango, en su orden.
+     */
+    private ArrayList<double[]> evaluateCustomers(ArrayList<Integer> customers, int from, int to,
+                                                  ArrayList<ArrayList<Double>> departureTimes,
+                                                  TOPTWSolution.InsertionCostBuffers buffers) {
         ArrayList<double[]> candidates = new ArrayList<>();
-        for(int i = 0; i < customers.size(); i++) {
+        for(int i = from; i < to; i++) {
             int customer = customers.get(i);
             ArrayList<int[]> feasiblePositions = this.solution.getFeasiblePositions(customer, departureTimes);
             if(!feasiblePositions.isEmpty()) {
+                double[] incrementalCosts = buffers == null
+                        ? this.solution.evaluateIncrementalCosts(customer, feasiblePositions)
+                        : this.solution.evaluateIncrementalCosts(customer, feasiblePositions, buffers);
                 for(int j = 0; j < feasiblePositions.size(); j++) {
                     int[] position = feasiblePositions.get(j);
-                    double incrementalCost = this.solution.evaluateIncrementalCost(customer, position[0], position[1], departureTimes);
-                    double candidate[] = {customer, position[0], position[1], position[2], incrementalCost};
+                    double candidate[] = {customer, position[0], position[1], position[2], incrementalCosts[j]};
                     candidates.add(candidate);
                 }
             }
@@ -247,6 +687,238 @@ public class TOPTWGRASP {
         return candidates;
     }
 
+    /**
+     * Establece el número de clientes a partir del cual la evaluación de candidatos se reparte
+     * entre varios hilos.
+     *
+     * @param parallelThreshold Número mínimo de clientes ({@link Integer#MAX_VALUE} para evaluar
+     *                          siempre de forma secuencial).
+     */
+    public void setParallelThreshold(int parallelThreshold) {
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    /**
+     * Obtiene el fitness medio de la última ejecución de GRASP.
+     *
+     * @return Fitness medio.
+     */
+    public double getAverageFitness() {
+        return this.averageFitness;
+    }
+
+    /**
+     * Obtiene el mejor fitness de la última ejecución de GRASP.
+     *
+     * @return Mejor fitness.
+     */
+    public double getBestFitness() {
+        return this.bestFitness;
+    }
+
+    /**
+     * Obtiene las iteraciones realizadas en la última ejecución de GRASP, que son menos que las
+     * máximas si la mejor solución alcanzó la cota superior.
+     *
+     * @return Número de iteraciones.
+     */
+    public int getIterations() {
+        return this.iterations;
+    }
+
+    /**
+     * Obtiene la cota superior de la puntuación de la instancia.
+     * <p>
+     * Se calcula al empezar cada ejecución de GRASP y se vuelve a calcular si después cambian el
+     * número de vehículos o el tiempo máximo por ruta de la instancia, como ocurre al reutilizar el
+     * mismo GRASP con otros parámetros ({@link TOPTWServer}).
+     *
+     * @return Cota superior para los parámetros actuales de la instancia.
+     */
+    public double getUpperBound() {
+        TOPTW problem = this.solution.getProblem();
+        if(Double.isNaN(this.upperBound) || this.upperBoundVehicles != problem.getVehicles()
+                || this.upperBoundMaxTime != problem.getMaxTimePerRoute()) {
+            this.upperBound = new TOPTWUpperBound(problem).getUpperBound();
+            this.upperBoundVehicles = problem.getVehicles();
+            this.upperBoundMaxTime = problem.getMaxTimePerRoute();
+        }
+        return this.upperBound;
+    }
+
+    /**
+     * Obtiene la distancia relativa del mejor fitness de la última ejecución a la cota superior.
+     *
+     * @return Gap en tanto por uno (0 si la solución es óptima).
+     */
+    public double getGap() {
+        return TOPTWUpperBound.getGap(this.getUpperBound(), this.bestFitness);
+    }
+
+    /**
+     * Indica si GRASP termina en cuanto la mejor solución alcanza la cota superior.
+     *
+     * @param earlyTermination true para terminar antes (por defecto), false para agotar siempre las
+     *                         iteraciones.
+     */
+    public void setEarlyTermination(boolean earlyTermination) {
+        this.earlyTermination = earlyTermination;
+    }
+
+    /**
+     * Inserta la solución actual entre las soluciones élite si mejora a la peor de ellas y no está ya.
+     *
+     * @param fitness Fitness de la solución actual.
+     */
+    private void updateElite(double fitness) {
+        if(this.eliteSize <= 0 || (this.elite.size() == this.eliteSize
+                && fitness <= this.eliteFitness.get(this.eliteSize - 1))) {
+            return;
+        }
+        ArrayList<ArrayList<Integer>> routes = this.solution.getRoutes();
+        int position = 0;
+        while(position < this.elite.size() && this.eliteFitness.get(position) >= fitness) {
+            if(this.eliteFitness.get(position) == fitness && this.elite.get(position).equals(routes)) {
+                return; // Ya es una solución élite.
+            }
+            position++;
+        }
+        this.elite.add(position, routes);
+        this.eliteFitness.add(position, fitness);
+        if(this.elite.size() > this.eliteSize) {
+            this.elite.remove(this.eliteSize);
+            this.eliteFitness.remove(this.eliteSize);
+        }
+    }
+
+    /**
+     * Establece las soluciones de las que parten las primeras iteraciones de las siguientes
+     * ejecuciones de GRASP (una por iteración).
+     *
+     * @param seedSolutions Soluciones de partida, factibles para la instancia actual.
+     */
+    public void setSeedSolutions(ArrayList<ArrayList<ArrayList<Integer>>> seedSolutions) {
+        this.seedSolutions = seedSolutions == null ? new ArrayList<>() : seedSolutions;
+    }
+
+    /**
+     * Establece cuántas de las mejores soluciones distintas de cada ejecución se conservan.
+     *
+     * @param eliteSize Número de soluciones élite (0 para no conservarlas).
+     */
+    public void setEliteSize(int eliteSize) {
+        this.eliteSize = eliteSize;
+    }
+
+    /**
+     * Obtiene las mejores soluciones distintas de la última ejecución de GRASP.
+     *
+     * @return Clientes de cada ruta de cada solución élite, de mayor a menor fitness.
+     */
+    public ArrayList<ArrayList<ArrayList<Integer>>> getElite() {
+        return this.elite;
+    }
+
+    /**
+     * Obtiene el fitness de las soluciones élite de la última ejecución de GRASP.
+     *
+     * @return Fitness de cada solución élite, en el orden de {@link #getElite()}.
+     */
+    public ArrayList<Double> getEliteFitness() {
+        return this.eliteFitness;
+    }
+
+    /**
+     * Obtiene las rutas de la mejor solución de la última ejecución de GRASP.
+     *
+     * @return Lista con los clientes de cada ruta, en orden de visita.
+     */
+    public ArrayList<ArrayList<Integer>> getBestRoutes() {
+        return this.bestRoutes;
+    }
+
+    /**
+     * Indica si se muestra por consola cada solución construida y el resumen de la ejecución.
+     *
+     * @param verbose true para mostrar la información, false para ejecutar en silencio.
+     */
+    public void setVerbose(boolean verbose) {
+        this.verbose = verbose;
+    }
+
+    /**
+     * Activa o desactiva la medición del tiempo de CPU y la memoria reservada de cada fase.
+     *
+     * @param profiling true para medir las fases en las siguientes ejecuciones.
+     */
+    public void setProfiling(boolean profiling) {
+        this.profiler = new TOPTWProfiler(profiling);
+    }
+
+    /**
+     * Establece el nombre de la instancia con el que se identifican los eventos de JFR.
+     *
+     * @param instanceName Nombre de la instancia.
+     */
+    public void setInstanceName(String instanceName) {
+        this.instanceName = instanceName;
+    }
+
+    /**
+     * Establece la ruta de la instancia, que junto con su número de clientes y la semilla identifica
+     * los puntos de control de la ejecución.
+     *
+     * @param instancePath Ruta del fichero de la instancia.
+     */
+    public void setInstancePath(String instancePath) {
+        this.instancePath = TOPTWCheckpoint.getInstanceId(instancePath);
+    }
+
+    /**
+     * Indica si se ha fijado la semilla del generador aleatorio.
+     *
+     * @return true si se ha llamado a {@link #setSeed(long)}.
+     */
+    public boolean isSeeded() {
+        return this.seeded;
+    }
+
+    /**
+     * Obtiene la semilla fijada con {@link #setSeed(long)}.
+     *
+     * @return Semilla del generador, o 0 si no se ha fijado.
+     */
+    public long getSeed() {
+        return this.seed;
+    }
+
+    /**
+     * Obtiene la ruta canónica de la instancia que identifica los puntos de control.
+     *
+     * @return Ruta de la instancia, o cadena vacía si no se ha establecido.
+     */
+    public String getInstancePath() {
+        return this.instancePath;
+    }
+
+    /**
+     * Obtiene las mediciones por fase de la última ejecución de GRASP.
+     *
+     * @return Perfilador con el tiempo de CPU y la memoria reservada de cada fase.
+     */
+    public TOPTWProfiler getProfiler() {
+        return this.profiler;
+    }
+
+    /**
+     * Obtiene el tiempo (en milisegundos) de la última ejecución de GRASP.
+     *
+     * @return Tiempo de la ejecución.
+     */
+    public int getSolutionTime() {
+        return this.solutionTime;
+    }
+
     /**
      * Obtiene el puntaje máximo de la solución.
      *
@@ -0,0 +1,301 @@
+package top;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Procesamiento por etapas de un barrido de instancias TOPTW con GRASP.
+ * <p>
+ * Cada instancia atraviesa cuatro etapas conectadas por colas acotadas: lectura del fichero,
+ * preparación (análisis y cálculo de la matriz de distancias), resolución y registro de resultados.
+ * La lectura y la preparación de las siguientes instancias se solapan con la resolución de las
+ * actuales, y varias instancias se resuelven a la vez, de modo que una instancia lenta no retrasa a
+ * las demás. Las colas acotadas limitan el número de instancias cargadas en memoria.
+ * <p>
+ * Todas las ejecuciones de una instancia se registran juntas al terminar la última, por lo que el
+ * exportador de resultados solo se usa desde el hilo que llama a {@link #run()}. Con los puntos de
+ * control activados, el de cada ejecución terminada se conserva hasta que se registra, de modo que
+ * una caída durante las ejecuciones siguientes de la instancia no pierde las ya terminadas. Cada ejecución
+ * mide el tiempo de CPU y la memoria reservada de sus fases ({@link TOPTWProfiler}), que se
+ * registran con sus resultados y se suman en el total del barrido.
+ */
+public class TOPTWPipeline {
+
+    /** Instancias leídas por adelantado a la espera de ser preparadas. */
+    private static final int READ_AHEAD = 2;
+
+    /** Marca de fin de trabajo en las colas. */
+    private static final Job END = new Job(null, null);
+
+    private final String directory; ///< Directorio de las instancias.
+    private final String[] instances; ///< Nombres de los ficheros de las instancias.
+    private final int[] sizesRCL; ///< Tamaños de la RCL de cada instancia.
+    private final int maxIterations; ///< Iteraciones de GRASP por ejecución.
+    private final int checkpointInterval; ///< Iteraciones entre dos puntos de control (0 para desactivarlos).
+    private final int solvers; ///< Número de hilos de resolución.
+    private final TOPTWResultsExporter exporter; ///< Exportador de resultados.
+
+    /**
+     * Constructor de la clase TOPTWPipeline.
+     *
+     * @param directory Directorio de las instancias.
+     * @param instances Nombres de los ficheros de las instancias.
+     * @param sizesRCL Tamaños de la RCL con los que se resuelve cada instancia.
+     * @param maxIterations Iteraciones de GRASP por ejecución.
+     * @param checkpointInterval Iteraciones entre dos puntos de control (0 para desactivarlos).
+     * @param solvers Número de hilos de resolución.
+     * @param exporter Exportador de resultados; se omiten las ejecuciones que ya tenga registradas.
+     */
+    public TOPTWPipeline(String directory, String[] instances, int[] sizesRCL, int maxIterations,
+                         int checkpointInterval, int solvers, TOPTWResultsExporter exporter) {
+        this.directory = directory;
+        this.instances = instances;
+        this.sizesRCL = sizesRCL;
+        this.maxIterations = maxIterations;
+        this.checkpointInterval = checkpointInterval;
+        this.solvers = Math.max(1, solvers);
+        this.exporter = exporter;
+    }
+
+    /**
+     * Ejecuta el barrido completo y registra los resultados de cada instancia según terminan.
+     *
+     * @throws IOException Si no se pueden escribir los resultados.
+     * @throws InterruptedException Si se interrumpe el hilo que ejecuta el barrido.
+     */
+    public void run() throws IOException, InterruptedException {
+        // Ejecuciones pendientes de cada instancia (las ya registradas se omiten y se indican).
+        ArrayList<Job> jobs = new ArrayList<>();
+        for (int i = 0; i < this.instances.length; i++) {
+            ArrayList<Integer> pending = new ArrayList<>();
+            for (int sizeRCL : this.sizesRCL) {
+                if (!this.exporter.hasRun(this.instances[i], sizeRCL)) {
+                    pending.add(sizeRCL);
+                } else {
+                    System.out.println(" --> OMITIDA (YA REGISTRADA): " + this.instances[i] + " RCL " + sizeRCL);
+                }
+            }
+            if (!pending.isEmpty()) {
+                jobs.add(new Job(this.instances[i], pending));
+            }
+        }
+
+        BlockingQueue<Job> read = new ArrayBlockingQueue<>(READ_AHEAD);
+        BlockingQueue<Job> prepared = new ArrayBlockingQueue<>(this.solvers);
+        BlockingQueue<Job> solved = new ArrayBlockingQueue<>(this.solvers);
+        ExecutorService executor = Executors.newFixedThreadPool(this.solvers + 2);
+        try {
+            executor.execute(() -> this.readStage(jobs, read));
+            executor.execute(() -> this.prepareStage(read, prepared));
+            for (int s = 0; s < this.solvers; s++) {
+                executor.execute(() -> this.solveStage(prepared, solved));
+            }
+            this.reportStage(solved);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Obtiene el fichero de punto de control de una ejecución del barrido.
+     *
+     * @param instance Nombre de la instancia.
+     * @param sizeRCL Tamaño de la RCL.
+     * @return Fichero de punto de control.
+     */
+    public static File getCheckpointFile(String instance, int sizeRCL) {
+        return new File("resultsTOPTW_" + instance + "_" + sizeRCL + ".ckpt");
+    }
+
+    /**
+     * Etapa de lectura: carga el contenido de cada fichero en memoria.
+     *
+     * @param jobs Instancias a procesar.
+     * @param output Cola de instancias leídas.
+     */
+    private void readStage(ArrayList<Job> jobs, BlockingQueue<Job> output) {
+        try {
+            for (Job job : jobs) {
+                try {
+                    job.data = new String(Files.readAllBytes(new File(this.directory, job.instance).toPath()),
+                            StandardCharsets.UTF_8);
+                } catch (Throwable e) {
+                    job.error = e;
+                }
+                output.put(job);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            TOPTWPipeline.putEnd(output, 1);
+        }
+    }
+
+    /**
+     * Etapa de preparación: analiza cada instancia, calcula su matriz de distancias y la reduce
+     * eliminando los clientes inalcanzables (véase {@link TOPTWReduction}). La puntuación de las
+     * soluciones no cambia, y el pipeline solo registra puntuaciones.
+     *
+     * @param input Cola de instancias leídas.
+     * @param output Cola de instancias preparadas.
+     */
+    private void prepareStage(BlockingQueue<Job> input, BlockingQueue<Job> output) {
+        try {
+            for (Job job = input.take(); job != END; job = input.take()) {
+                if (job.error == null) {
+                    try {
+                        TOPTW problem = TOPTWReader.parseProblem(new BufferedReader(new StringReader(job.data)),
+                                job.instance, false, TOPTW.MATRIX_DOUBLE);
+                        job.problem = new TOPTWReduction(problem).getReducedProblem();
+                    } catch (Throwable e) {
+                        job.error = e; // Por ejemplo, falta memoria para la matriz de una instancia grande.
+                    }
+                    job.data = null; // El texto ya no es necesario.
+                }
+                output.put(job);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            TOPTWPipeline.putEnd(output, this.solvers);
+        }
+    }
+
+    /**
+     * Etapa de resolución: ejecuta GRASP con cada tamaño de RCL pendiente de la instancia.
+     *
+     * @param input Cola de instancias preparadas.
+     * @param output Cola de instancias resueltas.
+     */
+    private void solveStage(BlockingQueue<Job> input, BlockingQueue<Job> output) {
+        try {
+            for (Job job = input.take(); job != END; job = input.take()) {
+                if (job.error == null) {
+                    try {
+                        TOPTWGRASP grasp = new TOPTWGRASP(new TOPTWSolution(job.problem));
+                        grasp.setVerbose(false);
+                        grasp.setProfiling(true);
+                        grasp.setInstanceName(job.instance);
+                        grasp.setInstancePath(new File(this.directory, job.instance).getPath());
+                        for (int r = 0; r < job.sizesRCL.size(); r++) {
+                            int sizeRCL = job.sizesRCL.get(r);
+                            if (this.checkpointInterval > 0) {
+                                grasp.setCheckpoint(TOPTWPipeline.getCheckpointFile(job.instance, sizeRCL),
+                                        this.checkpointInterval);
+                                grasp.setKeepCheckpoint(true); // Se elimina al registrar la ejecución.
+                            }
+                            grasp.GRASP(this.maxIterations, sizeRCL);
+                            job.averageFitness[r] = grasp.getAverageFitness();
+                            job.bestFitness[r] = grasp.getBestFitness();
+                            job.time[r] = grasp.getSolutionTime();
+                            job.iterations[r] = grasp.getIterations();
+                            job.upperBound = grasp.getUpperBound();
+                            job.profiles[r].add(grasp.getProfiler());
+                        }
+                    } catch (Throwable e) {
+                        job.error = e;
+                    }
+                    job.problem = null; // La instancia ya no es necesaria.
+                }
+                output.put(job);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            TOPTWPipeline.putEnd(output, 1);
+        }
+    }
+
+    /**
+     * Envía las marcas de fin de trabajo de una etapa. Se llama siempre al terminar la etapa, también
+     * si termina por un error, para que las etapas siguientes no esperen indefinidamente.
+     *
+     * @param output Cola de salida de la etapa.
+     * @param count Número de marcas (una por cada hilo de la etapa siguiente).
+     */
+    private static void putEnd(BlockingQueue<Job> output, int count) {
+        try {
+            for (int i = 0; i < count; i++) {
+                output.put(END);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); // El barrido se está cancelando.
+        }
+    }
+
+    /**
+     * Etapa de registro: muestra y exporta los resultados de cada instancia según terminan.
+     *
+     * @param input Cola de instancias resueltas.
+     * @throws IOException Si no se pueden escribir los resultados.
+     * @throws InterruptedException Si se interrumpe la espera.
+     */
+    private void reportStage(BlockingQueue<Job> input) throws IOException, InterruptedException {
+        int finishedSolvers = 0;
+        while (finishedSolvers < this.solvers) {
+            Job job = input.take();
+            if (job == END) {
+                finishedSolvers++;
+                continue;
+            }
+            System.out.println(" --> Instance: " + job.instance);
+            if (job.error != null) {
+                System.err.println(job.error); // Una instancia con error no detiene el barrido.
+                continue;
+            }
+            for (int r = 0; r < job.sizesRCL.size(); r++) {
+                System.out.println(" --> RCL: " + job.sizesRCL.get(r) + " MEDIA: " + job.averageFitness[r]
+                        + " MEJOR SOLUCION: " + job.bestFitness[r] + " ITERACIONES: " + job.iterations[r]
+                        + " GAP: " + TOPTWUpperBound.getGap(job.upperBound, job.bestFitness[r]));
+                this.exporter.addRun(job.instance, job.sizesRCL.get(r), job.iterations[r], job.averageFitness[r],
+                        job.bestFitness[r], job.time[r], job.upperBound);
+                this.exporter.addProfile(job.instance, job.sizesRCL.get(r), job.profiles[r]);
+                TOPTWPipeline.getCheckpointFile(job.instance, job.sizesRCL.get(r)).delete();
+                System.out.println(" --> PERFIL: " + job.profiles[r]);
+            }
+            this.exporter.endInstance();
+        }
+        System.out.println(" --> PERFIL TOTAL: " + this.exporter.getTotalProfile());
+    }
+
+    /**
+     * Instancia que atraviesa las etapas junto con sus datos intermedios y sus resultados.
+     */
+    private static class Job {
+
+        private final String instance; ///< Nombre del fichero de la instancia.
+        private final ArrayList<Integer> sizesRCL; ///< Tamaños de la RCL pendientes.
+        private String data; ///< Contenido del fichero, hasta que se analiza.
+        private TOPTW problem; ///< Instancia preparada, hasta que se resuelve.
+        private final double[] averageFitness; ///< Fitness medio de cada ejecución.
+        private final double[] bestFitness; ///< Mejor fitness de cada ejecución.
+        private final long[] time; ///< Tiempo (ms) de cada ejecución.
+        private final int[] iterations; ///< Iteraciones realizadas en cada ejecución.
+        private double upperBound; ///< Cota superior de la puntuación de la instancia.
+        private final TOPTWProfiler[] profiles; ///< Mediciones por fase de cada ejecución.
+        private Throwable error; ///< Error producido en alguna etapa, o null.
+
+        Job(String instance, ArrayList<Integer> sizesRCL) {
+            this.instance = instance;
+            this.sizesRCL = sizesRCL;
+            int runs = sizesRCL == null ? 0 : sizesRCL.size();
+            this.averageFitness = new double[runs];
+            this.bestFitness = new double[runs];
+            this.time = new long[runs];
+            this.iterations = new int[runs];
+            this.profiles = new TOPTWProfiler[runs];
+            for (int r = 0; r < runs; r++) {
+                this.profiles[r] = new TOPTWProfiler(false);
+            }
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package top;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Contabilidad del tiempo de CPU y de la memoria reservada por cada fase de la construcción GRASP.
+ * <p>
+ * Las fases son la evaluación de candidatos, su ordenación, la selección en la RCL, la actualización
+ * de la solución y el registro de cada iteración (evaluación del fitness, salida por consola y
+ * puntos de control). Los valores se obtienen de {@link ThreadMXBean} para el hilo actual, por lo
+ * que cada perfilador debe usarse desde un único hilo; los de varios hilos o ejecuciones se suman
+ * con {@link #add(TOPTWProfiler)}. La memoria reservada solo se mide si la JVM lo permite
+ * ({@code com.sun.management.ThreadMXBean}); en caso contrario queda a cero.
+ * <p>
+ * Un perfilador desactivado no consulta la JVM, de modo que puede dejarse en el código sin coste.
+ */
+public class TOPTWProfiler {
+
+    public static final int PHASE_EVALUATION = 0; ///< Evaluación de los candidatos.
+    public static final int PHASE_SORTING = 1; ///< Ordenación de los candidatos.
+    public static final int PHASE_SELECTION = 2; ///< Construcción de la RCL y selección.
+    public static final int PHASE_UPDATE = 3; ///< Actualización de la solución.
+    public static final int PHASE_REPORTING = 4; ///< Fitness, salida por consola y puntos de control.
+    public static final int PHASES = 5; ///< Número de fases.
+
+    /** Nombres de las fases, en el orden de sus constantes. */
+    private static final String[] PHASE_NAMES = new String[]{"EVALUATION", "SORTING", "SELECTION", "UPDATE",
+            "REPORTING"};
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    /** Vista extendida del bean que mide la memoria reservada, o null si no está disponible. */
+    private static final com.sun.management.ThreadMXBean ALLOCATIONS = TOPTWProfiler.allocationBean();
+
+    private final long[] cpuTime; ///< Tiempo de CPU (ns) de cada fase.
+    private final long[] allocatedBytes; ///< Bytes reservados en cada fase.
+    private final boolean enabled; ///< Indica si se miden las fases.
+    private long lastCpuTime; ///< Tiempo de CPU del hilo en la última marca.
+    private long lastAllocatedBytes; ///< Bytes reservados por el hilo en la última marca.
+
+    /**
+     * Constructor de la clase TOPTWProfiler.
+     *
+     * @param enabled true para medir las fases, false para que las mediciones no hagan nada.
+     */
+    public TOPTWProfiler(boolean enabled) {
+        this.cpuTime = new long[PHASES];
+        this.allocatedBytes = new long[PHASES];
+        this.enabled = enabled && THREADS.isCurrentThreadCpuTimeSupported();
+        if (this.enabled && !THREADS.isThreadCpuTimeEnabled()) {
+            THREADS.setThreadCpuTimeEnabled(true);
+        }
+    }
+
+    /**
+     * Obtiene el bean que mide la memoria reservada por hilo, activando la medición si es posible.
+     *
+     * @return El bean, o null si la JVM no permite medir la memoria reservada.
+     */
+    private static com.sun.management.ThreadMXBean allocationBean() {
+        if (!(THREADS instanceof com.sun.management.ThreadMXBean)) {
+            return null;
+        }
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) THREADS;
+        if (!bean.isThreadAllocatedMemorySupported()) {
+            return null;
+        }
+        if (!bean.isThreadAllocatedMemoryEnabled()) {
+            bean.setThreadAllocatedMemoryEnabled(true);
+        }
+        return bean;
+    }
+
+    /**
+     * Indica si se miden las fases.
+     *
+     * @return true si el perfilador está activo.
+     */
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    /**
+     * Marca el comienzo de una fase en el hilo actual.
+     */
+    public void start() {
+        if (!this.enabled) {
+            return;
+        }
+        this.lastCpuTime = THREADS.getCurrentThreadCpuTime();
+        this.lastAllocatedBytes = ALLOCATIONS != null
+                ? ALLOCATIONS.getThreadAllocatedBytes(Thread.currentThread().getId()) : 0L;
+    }
+
+    /**
+     * Asigna a una fase el tiempo de CPU y la memoria consumidos desde la última marca, y marca el
+     * comienzo de la fase siguiente.
+     *
+     * @param phase Fase que termina.
+     */
+    public void stop(int phase) {
+        if (!this.enabled) {
+            return;
+        }
+        long now = THREADS.getCurrentThreadCpuTime();
+        this.cpuTime[phase] += now - this.lastCpuTime;
+        this.lastCpuTime = now;
+        if (ALLOCATIONS != null) {
+            long allocated = ALLOCATIONS.getThreadAllocatedBytes(Thread.currentThread().getId());
+            this.allocatedBytes[phase] += allocated - this.lastAllocatedBytes;
+            this.lastAllocatedBytes = allocated;
+        }
+    }
+
+    /**
+     * Suma a este perfilador las mediciones de otro.
+     *
+     * @param other Perfilador cuyas mediciones se suman.
+     */
+    public void add(TOPTWProfiler other) {
+        for (int phase = 0; phase < PHASES; phase++) {
+            this.add(phase, other.cpuTime[phase], other.allocatedBytes[phase]);
+        }
+    }
+
+    /**
+     * Suma a una fase un tiempo de CPU y una cantidad de memoria reservada.
+     *
+     * @param phase Fase.
+     * @param cpuTime Tiempo de CPU en nanosegundos.
+     * @param allocatedBytes Bytes reservados.
+     */
+    public void add(int phase, long cpuTime, long allocatedBytes) {
+        this.cpuTime[phase] += cpuTime;
+        this.allocatedBytes[phase] += allocatedBytes;
+    }
+
+    /**
+     * Pone a cero las mediciones de todas las fases.
+     */
+    public void reset() {
+        for (int phase = 0; phase < PHASES; phase++) {
+            this.cpuTime[phase] = 0L;
+            this.allocatedBytes[phase] = 0L;
+        }
+    }
+
+    /**
+     * Obtiene el tiempo de CPU de una fase.
+     *
+     * @param phase Fase.
+     * @return Tiempo de CPU en nanosegundos.
+     */
+    public long getCpuTime(int phase) {
+        return this.cpuTime[phase];
+    }
+
+    /**
+     * Obtiene la memoria reservada en una fase.
+     *
+     * @param phase Fase.
+     * @return Bytes reservados.
+     */
+    public long getAllocatedBytes(int phase) {
+        return this.allocatedBytes[phase];
+    }
+
+    /**
+     * Obtiene el nombre de una fase.
+     *
+     * @param phase Fase.
+     * @return Nombre de la fase.
+     */
+    public static String getPhaseName(int phase) {
+        return PHASE_NAMES[phase];
+    }
+
+    /**
+     * Obtiene la fase con un nombre dado.
+     *
+     * @param name Nombre de la fase.
+     * @return Fase, o -1 si el nombre no corresponde a ninguna.
+     */
+    public static int getPhase(String name) {
+        for (int phase = 0; phase < PHASES; phase++) {
+            if (PHASE_NAMES[phase].equals(name)) {
+                return phase;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Obtiene un resumen con el tiempo de CPU (ms) y la memoria reservada (MB) de cada fase.
+     *
+     * @return Resumen en una línea.
+     */
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        for (int phase = 0; phase < PHASES; phase++) {
+            if (phase > 0) {
+                text.append(' ');
+            }
+            text.append(PHASE_NAMES[phase]).append(": ")
+                    .append(String.format("%.1f ms %.1f MB", this.cpuTime[phase] / 1e6,
+                            this.allocatedBytes[phase] / 1048576.0));
+        }
+        return text.toString();
+    }
+}
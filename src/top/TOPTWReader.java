@@ -4,6 +4,7 @@ import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
+import java.util.ArrayList;
 
 import es.ull.esit.utilities.ExpositoUtilities;
 
@@ -26,6 +27,37 @@ public class TOPTWReader {
      * @return Una instancia de la clase TOPTW configurada con los datos leídos del archivo.
      */
     public static TOPTW readProblem(String filePath) {
+        return TOPTWReader.readProblem(filePath, false);
+    }
+
+    /**
+     * Lee un problema TOPTW desde un archivo, opcionalmente con aritmética entera escalada.
+     *
+     * Con la aritmética entera activada, las distancias se truncan a un decimal en las instancias
+     * de Solomon y a dos decimales en las de Cordeau et al. (ficheros {@code pr*}), como se indica
+     * en {@code formatInstances.txt}, y los tiempos se almacenan como enteros escalados.
+     *
+     * @param filePath La ruta del archivo que contiene la descripción del problema TOPTW.
+     * @param scaledArithmetic Si es true, activa la aritmética entera escalada.
+     * @return Una instancia de la clase TOPTW configurada con los datos leídos del archivo.
+     */
+    public static TOPTW readProblem(String filePath, boolean scaledArithmetic) {
+        return TOPTWReader.readProblem(filePath, scaledArithmetic, TOPTW.MATRIX_DOUBLE);
+    }
+
+    /**
+     * Lee un problema TOPTW desde un archivo eligiendo la representación de la matriz de distancias.
+     *
+     * Las representaciones compactas ({@link TOPTW#MATRIX_FLOAT}, {@link TOPTW#MATRIX_SHORT}) y la
+     * externa al heap ({@link TOPTW#MATRIX_OFF_HEAP}) permiten cargar instancias muy grandes, y la
+     * calculada bajo demanda ({@link TOPTW#MATRIX_LAZY}) evita construir la matriz completa.
+     *
+     * @param filePath La ruta del archivo que contiene la descripción del problema TOPTW.
+     * @param scaledArithmetic Si es true, activa la aritmética entera escalada.
+     * @param distanceBackend Representación de la matriz de distancias (constantes {@code TOPTW.MATRIX_*}).
+     * @return Una instancia de la clase TOPTW configurada con los datos leídos del archivo.
+     */
+    public static TOPTW readProblem(String filePath, boolean scaledArithmetic, int distanceBackend) {
         TOPTW problem = null; // Instancia del problema a retornar.
         BufferedReader reader = null; // BufferedReader para leer el archivo.
 
@@ -33,62 +65,177 @@ public class TOPTWReader {
             // Crea un objeto File con la ruta del archivo.
             File instaceFile = new File(filePath);
             reader = new BufferedReader(new FileReader(instaceFile)); // Inicializa el BufferedReader.
-            String line = reader.readLine(); // Lee la primera línea del archivo.
-            line = ExpositoUtilities.simplifyString(line); // Simplifica la línea para eliminar espacios innecesarios.
-            String[] parts = line.split(" "); // Divide la línea en partes utilizando espacios como delimitador.
+            problem = TOPTWReader.parseProblem(reader, instaceFile.getName(), scaledArithmetic, distanceBackend);
+        } catch (IOException e) {
+            System.err.println(e); // Imprime el error si ocurre una excepción de entrada/salida.
+            System.exit(0); // Termina el programa en caso de error.
+        } finally {
+            // Asegura que el BufferedReader se cierra correctamente.
+            if (reader != null) {
+                try {
+                    reader.close(); // Cierra el BufferedReader.
+                } catch (IOException ex) {
+                    System.err.println(ex); // Imprime el error si no se puede cerrar el BufferedReader.
+                    System.exit(0); // Termina el programa en caso de error.
+                }
+            }
+        }
+        return problem; // Devuelve la instancia del problema TOPTW configurada.
+    }
+
+    /**
+     * Construye un problema TOPTW a partir de un flujo de texto en el formato de las instancias.
+     *
+     * A diferencia de {@link #readProblem(String)}, no termina el programa ante un error, sino que
+     * propaga la excepción, por lo que puede usarse para datos recibidos por red o por la entrada
+     * estándar.
+     *
+     * @param reader Flujo con la descripción del problema; no se cierra.
+     * @param instanceName Nombre de la instancia, usado para elegir el truncamiento de las distancias.
+     * @param scaledArithmetic Si es true, activa la aritmética entera escalada.
+     * @param distanceBackend Representación de la matriz de distancias (constantes {@code TOPTW.MATRIX_*}).
+     * @return Una instancia de la clase TOPTW configurada con los datos leídos.
+     * @throws IOException Si ocurre un error de lectura o faltan datos.
+     */
+    public static TOPTW parseProblem(BufferedReader reader, String instanceName, boolean scaledArithmetic,
+                                     int distanceBackend) throws IOException {
+        String line = reader.readLine(); // Lee la primera línea del archivo.
+        if (line == null) {
+            throw new IOException("Empty instance: " + instanceName);
+        }
+        line = ExpositoUtilities.simplifyString(line); // Simplifica la línea para eliminar espacios innecesarios.
+        String[] parts = line.split(" "); // Divide la línea en partes utilizando espacios como delimitador.
+
+        // Crea una nueva instancia de TOPTW con los parámetros leídos del archivo.
+        TOPTW problem = new TOPTW(Integer.parseInt(parts[2]), Integer.parseInt(parts[1]));
+
+        line = reader.readLine(); // Lee la siguiente línea.
+        line = null; // Limpia la referencia de línea.
+        parts = null; // Limpia la referencia de partes.
+
+        // Lee las coordenadas, tiempos de servicio, y puntuaciones de cada POI.
+        for (int i = 0; i < problem.getPOIs() + 1; i++) {
+            line = reader.readLine(); // Lee una línea para un POI.
+            if (line == null) {
+                throw new IOException("Missing data for node " + i + " in " + instanceName);
+            }
+            line = ExpositoUtilities.simplifyString(line); // Simplifica la línea.
+            parts = line.split(" "); // Divide la línea en partes.
+
+            // Asigna valores leídos a la instancia de TOPTW.
+            problem.setX(i, Double.parseDouble(parts[1])); // Establece la coordenada X.
+            problem.setY(i, Double.parseDouble(parts[2])); // Establece la coordenada Y.
+            problem.setServiceTime(i, Double.parseDouble(parts[3])); // Establece el tiempo de servicio.
+            problem.setScore(i, Double.parseDouble(parts[4])); // Establece la puntuación.
 
-            // Crea una nueva instancia de TOPTW con los parámetros leídos del archivo.
-            problem = new TOPTW(Integer.parseInt(parts[2]), Integer.parseInt(parts[1]));
+            // Asigna tiempos de disponibilidad y vencimiento, diferenciando el depósito.
+            if (i == 0) {
+                problem.setReadyTime(i, Double.parseDouble(parts[7])); // Tiempo listo del depósito.
+                problem.setDueTime(i, Double.parseDouble(parts[8])); // Tiempo de vencimiento del depósito.
+            } else {
+                problem.setReadyTime(i, Double.parseDouble(parts[8])); // Tiempo listo de los POIs.
+                problem.setDueTime(i, Double.parseDouble(parts[9])); // Tiempo de vencimiento de los POIs.
+            }
 
-            line = reader.readLine(); // Lee la siguiente línea.
             line = null; // Limpia la referencia de línea.
             parts = null; // Limpia la referencia de partes.
+        }
 
-            // Lee las coordenadas, tiempos de servicio, y puntuaciones de cada POI.
-            for (int i = 0; i < problem.getPOIs() + 1; i++) {
-                line = reader.readLine(); // Lee una línea para un POI.
-                line = ExpositoUtilities.simplifyString(line); // Simplifica la línea.
-                parts = line.split(" "); // Divide la línea en partes.
-
-                // Asigna valores leídos a la instancia de TOPTW.
-                problem.setX(i, Double.parseDouble(parts[1])); // Establece la coordenada X.
-                problem.setY(i, Double.parseDouble(parts[2])); // Establece la coordenada Y.
-                problem.setServiceTime(i, Double.parseDouble(parts[3])); // Establece el tiempo de servicio.
-                problem.setScore(i, Double.parseDouble(parts[4])); // Establece la puntuación.
-
-                // Asigna tiempos de disponibilidad y vencimiento, diferenciando el depósito.
-                if (i == 0) {
-                    problem.setReadyTime(i, Double.parseDouble(parts[7])); // Tiempo listo del depósito.
-                    problem.setDueTime(i, Double.parseDouble(parts[8])); // Tiempo de vencimiento del depósito.
-                } else {
-                    problem.setReadyTime(i, Double.parseDouble(parts[8])); // Tiempo listo de los POIs.
-                    problem.setDueTime(i, Double.parseDouble(parts[9])); // Tiempo de vencimiento de los POIs.
-                }
+        // Selecciona el truncamiento de la familia de instancias si se usa aritmética entera.
+        if (scaledArithmetic) {
+            if (instanceName.startsWith("pr")) {
+                problem.setScaledDecimals(TOPTW.CORDEAU_DECIMALS);
+            } else {
+                problem.setScaledDecimals(TOPTW.SOLOMON_DECIMALS);
+            }
+        }
+
+        // Calcula la matriz de distancias entre los POIs con la representación elegida.
+        problem.setDistanceBackend(distanceBackend);
+        problem.calculateDistanceMatrix();
 
-                line = null; // Limpia la referencia de línea.
-                parts = null; // Limpia la referencia de partes.
+        // Establece el tiempo máximo por ruta basado en el tiempo de vencimiento del depósito.
+        problem.setMaxTimePerRoute(problem.getDueTime(0));
+        return problem;
+    }
+
+    /**
+     * Indica si un archivo está en el formato de Solomon para VRPTW, cuya primera línea es una
+     * cabecera con los nombres de las columnas.
+     *
+     * @param filePath La ruta del archivo.
+     * @return true si el archivo comienza con la cabecera del formato de Solomon.
+     */
+    public static boolean isSolomonFormat(String filePath) {
+        BufferedReader reader = null;
+        try {
+            reader = new BufferedReader(new FileReader(new File(filePath)));
+            String line = reader.readLine();
+            return line != null && ExpositoUtilities.simplifyString(line).startsWith("CUST");
+        } catch (IOException e) {
+            return false;
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (IOException ex) {
+                    System.err.println(ex);
+                }
             }
+        }
+    }
+
+    /**
+     * Lee un problema en el formato de Solomon para VRPTW (por ejemplo {@code Instances/rc101_25.txt}).
+     *
+     * Cada línea tras la cabecera contiene: número de cliente, coordenadas X e Y, demanda, inicio
+     * y fin de la ventana de tiempo y tiempo de servicio. El primer registro es el depósito y la
+     * demanda se utiliza como puntuación de cada cliente.
+     *
+     * @param filePath La ruta del archivo que contiene la instancia.
+     * @param vehicles Número de rutas disponibles.
+     * @return Una instancia de la clase TOPTW configurada con los datos leídos del archivo.
+     */
+    public static TOPTW readSolomonProblem(String filePath, int vehicles) {
+        ArrayList<String[]> records = new ArrayList<>(); // Registros de cada punto.
+        BufferedReader reader = null; // BufferedReader para leer el archivo.
 
-            // Calcula la matriz de distancias entre los POIs.
-            problem.calculateDistanceMatrix();
+        try {
+            reader = new BufferedReader(new FileReader(new File(filePath)));
+            String line = reader.readLine(); // Descarta la cabecera.
+            while ((line = reader.readLine()) != null) {
+                line = ExpositoUtilities.simplifyString(line);
+                if (!line.isEmpty()) {
+                    records.add(line.split(" "));
+                }
+            }
         } catch (IOException e) {
             System.err.println(e); // Imprime el error si ocurre una excepción de entrada/salida.
             System.exit(0); // Termina el programa en caso de error.
         } finally {
-            // Asegura que el BufferedReader se cierra correctamente.
             if (reader != null) {
                 try {
-                    reader.close(); // Cierra el BufferedReader.
+                    reader.close();
                 } catch (IOException ex) {
-                    System.err.println(ex); // Imprime el error si no se puede cerrar el BufferedReader.
-                    System.exit(0); // Termina el programa en caso de error.
+                    System.err.println(ex);
+                    System.exit(0);
                 }
             }
         }
 
-        // Establece el tiempo máximo por ruta basado en el tiempo de vencimiento del depósito.
+        TOPTW problem = new TOPTW(records.size() - 1, vehicles);
+        for (int i = 0; i < records.size(); i++) {
+            String[] parts = records.get(i);
+            problem.setX(i, Double.parseDouble(parts[1]));
+            problem.setY(i, Double.parseDouble(parts[2]));
+            problem.setScore(i, Double.parseDouble(parts[3]));
+            problem.setReadyTime(i, Double.parseDouble(parts[4]));
+            problem.setDueTime(i, Double.parseDouble(parts[5]));
+            problem.setServiceTime(i, Double.parseDouble(parts[6]));
+        }
+        problem.calculateDistanceMatrix();
         problem.setMaxTimePerRoute(problem.getDueTime(0));
-        return problem; // Devuelve la instancia del problema TOPTW configurada.
+        return problem;
     }
 
 }
@@ -0,0 +1,168 @@
+package top;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Reducción de una instancia TOPTW antes de resolverla.
+ * <p>
+ * Se eliminan los clientes inalcanzables, aquellos que no se pueden visitar ni siquiera con una
+ * ruta que solo los visite a ellos: se llega desde el depósito después del cierre de su ventana o
+ * no se puede volver al depósito dentro del tiempo máximo por ruta. Las ventanas de los clientes
+ * restantes se ajustan a lo que permite el depósito: ninguna visita puede empezar antes de
+ * {@code d(0, i)} ni llegar después de {@code Tmax - servicio(i) - d(i, 0)}. Los clientes se
+ * renumeran de forma compacta conservando su orden, y la reducción guarda la correspondencia con los
+ * identificadores originales para traducir las soluciones.
+ * <p>
+ * Las soluciones factibles de la instancia reducida son exactamente las de la original restringidas
+ * a los clientes alcanzables, así que la construcción voraz obtiene los mismos candidatos en el
+ * mismo orden sin evaluar los clientes eliminados.
+ */
+public class TOPTWReduction {
+
+    private final TOPTW original; ///< Instancia original.
+    private final TOPTW reduced; ///< Instancia reducida.
+    private final int[] originalIds; ///< Identificador original de cada nodo de la instancia reducida.
+    private int tightenedWindows; ///< Número de ventanas de tiempo ajustadas.
+
+    /**
+     * Constructor de la clase TOPTWReduction. Construye la instancia reducida a los clientes
+     * alcanzables y calcula su matriz de distancias con la misma representación y la misma
+     * aritmética que la original.
+     *
+     * @param original Instancia original, con su matriz de distancias calculada.
+     */
+    public TOPTWReduction(TOPTW original) {
+        this(original, TOPTWReduction.getReachableCustomers(original), original.getVehicles());
+    }
+
+    /**
+     * Constructor de la clase TOPTWReduction. Construye la subinstancia formada por el depósito y los
+     * clientes indicados, con el número de vehículos indicado, y calcula su matriz de distancias.
+     * Las soluciones de la subinstancia son soluciones factibles de la original.
+     *
+     * @param original Instancia original, con su matriz de distancias calculada.
+     * @param customers Clientes alcanzables de la instancia original que se conservan, en orden.
+     * @param vehicles Número de vehículos de la subinstancia.
+     */
+    public TOPTWReduction(TOPTW original, int[] customers, int vehicles) {
+        this.original = original;
+        double maxTime = original.getMaxTimePerRoute();
+        this.originalIds = new int[customers.length + 1];
+        System.arraycopy(customers, 0, this.originalIds, 1, customers.length);
+
+        this.reduced = new TOPTW(customers.length, vehicles);
+        this.tightenedWindows = 0;
+        for (int k = 0; k < this.originalIds.length; k++) {
+            int i = this.originalIds[k];
+            double readyTime = original.getReadyTime(i);
+            double dueTime = original.getDueTime(i);
+            if (k > 0) {
+                double earliest = original.getDistance(0, i);
+                double latest = maxTime - original.getServiceTime(i) - original.getDistance(i, 0);
+                if (earliest > readyTime || latest < dueTime) {
+                    this.tightenedWindows++;
+                }
+                readyTime = Math.max(readyTime, earliest);
+                dueTime = Math.min(dueTime, latest);
+            }
+            this.reduced.setX(k, original.getX(i));
+            this.reduced.setY(k, original.getY(i));
+            this.reduced.setScore(k, original.getScore(i));
+            this.reduced.setServiceTime(k, original.getServiceTime(i));
+            this.reduced.setReadyTime(k, readyTime);
+            this.reduced.setDueTime(k, dueTime);
+        }
+        if (original.isScaled()) {
+            this.reduced.setScaledDecimals((int) Math.round(Math.log10(original.getDistanceScale())));
+        }
+        this.reduced.setDistanceBackend(original.getDistanceBackend());
+        this.reduced.calculateDistanceMatrix();
+        this.reduced.setMaxTimePerRoute(maxTime);
+    }
+
+    /**
+     * Obtiene los clientes alcanzables de una instancia: aquellos que se pueden visitar con una ruta
+     * depósito - cliente - depósito dentro de su ventana y del tiempo máximo por ruta.
+     *
+     * @param problem Instancia del problema TOPTW.
+     * @return Clientes alcanzables, en orden creciente.
+     */
+    public static int[] getReachableCustomers(TOPTW problem) {
+        double maxTime = problem.getMaxTimePerRoute();
+        int[] reachable = new int[problem.getPOIs()];
+        int count = 0;
+        for (int i = 1; i <= problem.getPOIs(); i++) {
+            double arrival = problem.getDistance(0, i);
+            double departure = Math.max(arrival, problem.getReadyTime(i)) + problem.getServiceTime(i);
+            if (arrival <= problem.getDueTime(i) && departure + problem.getDistance(i, 0) <= maxTime) {
+                reachable[count++] = i;
+            }
+        }
+        return Arrays.copyOf(reachable, count);
+    }
+
+    /**
+     * Obtiene la instancia original.
+     *
+     * @return Instancia original.
+     */
+    public TOPTW getOriginalProblem() {
+        return this.original;
+    }
+
+    /**
+     * Obtiene la instancia reducida.
+     *
+     * @return Instancia reducida, con su matriz de distancias calculada.
+     */
+    public TOPTW getReducedProblem() {
+        return this.reduced;
+    }
+
+    /**
+     * Obtiene el identificador original de un nodo de la instancia reducida.
+     *
+     * @param node Nodo de la instancia reducida (los depósitos se traducen al nodo 0).
+     * @return Identificador del nodo en la instancia original.
+     */
+    public int getOriginalId(int node) {
+        return this.reduced.isDepot(node) ? 0 : this.originalIds[node];
+    }
+
+    /**
+     * Traduce las rutas de una solución de la instancia reducida a los identificadores originales.
+     *
+     * @param routes Clientes de cada ruta en la instancia reducida.
+     * @return Clientes de cada ruta en la instancia original.
+     */
+    public ArrayList<ArrayList<Integer>> toOriginalRoutes(ArrayList<ArrayList<Integer>> routes) {
+        ArrayList<ArrayList<Integer>> originalRoutes = new ArrayList<>();
+        for (ArrayList<Integer> route : routes) {
+            ArrayList<Integer> originalRoute = new ArrayList<>();
+            for (int customer : route) {
+                originalRoute.add(this.getOriginalId(customer));
+            }
+            originalRoutes.add(originalRoute);
+        }
+        return originalRoutes;
+    }
+
+    /**
+     * Obtiene el número de clientes eliminados.
+     *
+     * @return Número de clientes eliminados.
+     */
+    public int getRemovedCustomers() {
+        return this.original.getPOIs() - this.reduced.getPOIs();
+    }
+
+    /**
+     * Obtiene el número de clientes cuya ventana de tiempo se ha ajustado.
+     *
+     * @return Número de ventanas ajustadas.
+     */
+    public int getTightenedWindows() {
+        return this.tightenedWindows;
+    }
+}
@@ -0,0 +1,527 @@
+package top;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+
+import es.ull.esit.utilities.ExpositoUtilities;
+import jxl.Workbook;
+import jxl.WorkbookSettings;
+import jxl.write.Label;
+import jxl.write.WritableSheet;
+import jxl.write.WritableWorkbook;
+import jxl.write.WriteException;
+
+/**
+ * Clase que exporta los resultados de los experimentos GRASP a ficheros CSV y a un libro Excel (.xls).
+ * <p>
+ * Se generan dos tablas: una fila por ejecución (instancia y tamaño de RCL) y una fila de resumen
+ * por instancia. Si se registran las mediciones por fase de las ejecuciones ({@link TOPTWProfiler}),
+ * se genera una tercera tabla con el tiempo de CPU y la memoria reservada de cada fase y ejecución,
+ * y con el total del barrido al cerrar el exportador. Las filas de los CSV se escriben y se vuelcan
+ * a disco en cuanto termina cada ejecución, por lo que la memoria no crece durante los barridos
+ * largos y los resultados parciales sobreviven a una caída.
+ * <p>
+ * El libro Excel no se mantiene abierto: al terminar cada instancia y al cerrar el exportador se
+ * reconstruye a partir de los CSV mediante JExcelAPI en un fichero temporal que después se renombra
+ * de forma atómica. Tras una caída queda el libro de la última instancia terminada, y la memoria que
+ * ocupa el libro solo se reserva mientras se escribe cada copia.
+ * <p>
+ * En modo de reanudación se recuperan las ejecuciones ya registradas en el CSV de ejecuciones de
+ * un barrido anterior interrumpido, de modo que el barrido puede continuar por donde se quedó. Los
+ * CSV se abren para añadir filas y nunca se reescriben, por lo que las filas anteriores no se
+ * pierden aunque se produzca otra caída.
+ */
+public class TOPTWResultsExporter implements Closeable {
+
+    /** Cabecera de la tabla de ejecuciones. */
+    private static final String[] RUN_HEADER = new String[]{"INSTANCE", "RCL SIZE", "ITERATIONS",
+            "AVERAGE", "BEST", "TIME (ms)", "UPPER BOUND", "GAP (%)"};
+
+    /** Cabecera de la tabla de resumen por instancia. */
+    private static final String[] INSTANCE_HEADER = new String[]{"INSTANCE", "RUNS", "ITERATIONS",
+            "AVERAGE", "BEST", "TIME (ms)"};
+
+    /** Cabecera de la tabla de mediciones por fase. */
+    private static final String[] PHASE_HEADER = new String[]{"INSTANCE", "RCL SIZE", "PHASE", "CPU (ms)",
+            "ALLOCATED (MB)"};
+
+    /** Instancia con la que se identifican las filas del total del barrido en la tabla de fases. */
+    private static final String TOTAL_INSTANCE = "TOTAL";
+
+    /** Separador de columnas de los ficheros CSV. */
+    private static final String CSV_SEPARATOR = ",";
+
+    private File runsFile; ///< Fichero CSV de ejecuciones.
+    private File instancesFile; ///< Fichero CSV de resumen por instancia.
+    private File phasesFile; ///< Fichero CSV de mediciones por fase.
+    private File workbookFile; ///< Libro Excel con las tres tablas.
+    private BufferedWriter runsWriter; ///< Escritor del CSV de ejecuciones.
+    private BufferedWriter instancesWriter; ///< Escritor del CSV de resumen por instancia.
+    private BufferedWriter phasesWriter; ///< Escritor del CSV de mediciones por fase.
+    private boolean hasPhases; ///< Indica si se ha registrado alguna medición por fase.
+    private TOPTWProfiler totalProfile; ///< Mediciones por fase acumuladas de todo el barrido.
+
+    private String currentInstance; ///< Instancia cuyas ejecuciones se están acumulando.
+    private int instanceRuns; ///< Ejecuciones acumuladas de la instancia actual.
+    private long instanceIterations; ///< Iteraciones acumuladas de la instancia actual.
+    private double instanceFitnessSum; ///< Suma de fitness (media por iteraciones) de la instancia actual.
+    private double instanceBest; ///< Mejor fitness de la instancia actual.
+    private long instanceTime; ///< Tiempo acumulado (ms) de la instancia actual.
+    private HashSet<String> completedRuns; ///< Ejecuciones registradas (instancia y tamaño de RCL).
+
+    /**
+     * Constructor de la clase TOPTWResultsExporter.
+     * <p>
+     * Crea los ficheros {@code baseName + "_runs.csv"}, {@code baseName + "_instances.csv"} y
+     * {@code baseName + "_phases.csv"}, escribiendo las cabeceras de cada tabla. El libro
+     * {@code baseName + ".xls"} se escribe al terminar cada instancia.
+     *
+     * @param baseName Ruta base (sin extensión) de los ficheros de resultados.
+     * @throws IOException Si no se pueden crear los ficheros.
+     */
+    public TOPTWResultsExporter(String baseName) throws IOException {
+        this(baseName, false);
+    }
+
+    /**
+     * Constructor de la clase TOPTWResultsExporter con reanudación opcional.
+     * <p>
+     * Si {@code resume} es true, los CSV existentes se conservan y se abren para añadir filas. De sus
+     * filas completas se recuperan las ejecuciones registradas, el resumen pendiente de la última
+     * instancia y el total por fase, sin volver a escribirlas. Las filas incompletas que pudiera dejar
+     * una caída se descartan.
+     *
+     * @param baseName Ruta base (sin extensión) de los ficheros de resultados.
+     * @param resume true para conservar las ejecuciones de un barrido anterior.
+     * @throws IOException Si no se pueden leer o crear los ficheros.
+     */
+    public TOPTWResultsExporter(String baseName, boolean resume) throws IOException {
+        this.runsFile = new File(baseName + "_runs.csv");
+        this.instancesFile = new File(baseName + "_instances.csv");
+        this.phasesFile = new File(baseName + "_phases.csv");
+        this.workbookFile = new File(baseName + ".xls");
+        this.totalProfile = new TOPTWProfiler(false);
+        this.currentInstance = null;
+        this.completedRuns = new HashSet<>();
+        this.hasPhases = false;
+
+        if (resume) {
+            if (this.runsFile.isFile()) {
+                HashSet<String> summarized = this.instancesFile.isFile()
+                        ? TOPTWResultsExporter.readInstanceNames(this.instancesFile) : new HashSet<>();
+                for (String[] run : TOPTWResultsExporter.readRuns(this.runsFile)) {
+                    this.countRun(run[0], Integer.parseInt(run[1]), Integer.parseInt(run[2]),
+                            Double.parseDouble(run[3]), Double.parseDouble(run[4]), Long.parseLong(run[5]));
+                }
+                if (this.currentInstance != null && summarized.contains(this.currentInstance)) {
+                    this.currentInstance = null; // Su resumen ya se escribió antes de la caída.
+                }
+            }
+            if (this.phasesFile.isFile()) {
+                for (String[] phase : TOPTWResultsExporter.readPhases(this.phasesFile)) {
+                    this.totalProfile.add(TOPTWProfiler.getPhase(phase[2]),
+                            Math.round(Double.parseDouble(phase[3]) * 1e6),
+                            Math.round(Double.parseDouble(phase[4]) * 1048576.0));
+                    this.hasPhases = true;
+                }
+            }
+        }
+        this.runsWriter = TOPTWResultsExporter.openCsv(this.runsFile, RUN_HEADER, resume);
+        this.instancesWriter = TOPTWResultsExporter.openCsv(this.instancesFile, INSTANCE_HEADER, resume);
+        this.phasesWriter = TOPTWResultsExporter.openCsv(this.phasesFile, PHASE_HEADER, resume);
+    }
+
+    /**
+     * Abre un fichero CSV para escribir filas.
+     * <p>
+     * Al añadir a un fichero que no termina en un salto de línea (una fila incompleta de una caída),
+     * se escribe antes el salto, de modo que la fila incompleta queda aislada y se descarta al leer.
+     *
+     * @param file Fichero CSV.
+     * @param header Cabecera de la tabla, que se escribe si el fichero se crea o está vacío.
+     * @param append true para conservar el contenido existente.
+     * @return Escritor del fichero.
+     * @throws IOException Si no se puede abrir el fichero.
+     */
+    private static BufferedWriter openCsv(File file, String[] header, boolean append) throws IOException {
+        boolean keep = append && file.isFile() && file.length() > 0;
+        boolean newLine = false;
+        if (keep) {
+            RandomAccessFile raf = new RandomAccessFile(file, "r");
+            try {
+                raf.seek(raf.length() - 1);
+                newLine = raf.read() != '\n';
+            } finally {
+                raf.close();
+            }
+        }
+        BufferedWriter writer = new BufferedWriter(new FileWriter(file, keep));
+        if (newLine) {
+            writer.newLine();
+            writer.flush();
+        }
+        if (!keep) {
+            TOPTWResultsExporter.writeCsvRow(writer, header);
+        }
+        return writer;
+    }
+
+    /**
+     * Lee las filas completas de un CSV de ejecuciones.
+     *
+     * @param file Fichero CSV de ejecuciones.
+     * @return Filas válidas, sin la cabecera.
+     * @throws IOException Si no se puede leer el fichero.
+     */
+    private static ArrayList<String[]> readRuns(File file) throws IOException {
+        ArrayList<String[]> runs = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new FileReader(file));
+        try {
+            String line = reader.readLine(); // Cabecera
+            while ((line = reader.readLine()) != null) {
+                String[] values = line.split(CSV_SEPARATOR);
+                if (values.length == RUN_HEADER.length && ExpositoUtilities.isInteger(values[1])
+                        && ExpositoUtilities.isInteger(values[2]) && ExpositoUtilities.isDouble(values[3])
+                        && ExpositoUtilities.isDouble(values[4]) && ExpositoUtilities.isInteger(values[5])
+                        && ExpositoUtilities.isDouble(values[6]) && ExpositoUtilities.isDouble(values[7])) {
+                    runs.add(values);
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        return runs;
+    }
+
+    /**
+     * Lee las filas completas de las ejecuciones de un CSV de mediciones por fase, descartando las
+     * del total del barrido, que se recalcula.
+     *
+     * @param file Fichero CSV de mediciones por fase.
+     * @return Filas válidas, sin la cabecera.
+     * @throws IOException Si no se puede leer el fichero.
+     */
+    private static ArrayList<String[]> readPhases(File file) throws IOException {
+        ArrayList<String[]> phases = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new FileReader(file));
+        try {
+            String line = reader.readLine(); // Cabecera
+            while ((line = reader.readLine()) != null) {
+                String[] values = line.split(CSV_SEPARATOR);
+                if (values.length == PHASE_HEADER.length && !values[0].equals(TOTAL_INSTANCE)
+                        && ExpositoUtilities.isInteger(values[1]) && TOPTWProfiler.getPhase(values[2]) >= 0
+                        && ExpositoUtilities.isDouble(values[3]) && ExpositoUtilities.isDouble(values[4])) {
+                    phases.add(values);
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        return phases;
+    }
+
+    /**
+     * Lee los nombres de las instancias con resumen completo de un CSV de resumen por instancia.
+     *
+     * @param file Fichero CSV de resumen por instancia.
+     * @return Nombres de las instancias.
+     * @throws IOException Si no se puede leer el fichero.
+     */
+    private static HashSet<String> readInstanceNames(File file) throws IOException {
+        HashSet<String> instances = new HashSet<>();
+        BufferedReader reader = new BufferedReader(new FileReader(file));
+        try {
+            String line = reader.readLine(); // Cabecera
+            while ((line = reader.readLine()) != null) {
+                String[] values = line.split(CSV_SEPARATOR);
+                if (values.length == INSTANCE_HEADER.length && ExpositoUtilities.isInteger(values[5])) {
+                    instances.add(values[0]);
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        return instances;
+    }
+
+    /**
+     * Indica si ya se ha registrado una ejecución, por ejemplo en un barrido anterior reanudado.
+     *
+     * @param instance Nombre de la instancia.
+     * @param maxSizeRCL Tamaño máximo de la RCL.
+     * @return true si la ejecución ya está registrada.
+     */
+    public boolean hasRun(String instance, int maxSizeRCL) {
+        return this.completedRuns.contains(instance + CSV_SEPARATOR + maxSizeRCL);
+    }
+
+    /**
+     * Registra el resultado de una ejecución GRASP.
+     * <p>
+     * Si la instancia es distinta de la de la ejecución anterior, se escribe antes el resumen
+     * de la instancia anterior.
+     *
+     * @param instance Nombre de la instancia.
+     * @param maxSizeRCL Tamaño máximo de la RCL utilizado.
+     * @param iterations Número de iteraciones ejecutadas.
+     * @param averageFitness Fitness medio de las iteraciones.
+     * @param bestFitness Mejor fitness encontrado.
+     * @param time Tiempo de la ejecución en milisegundos.
+     * @param upperBound Cota superior de la instancia, con la que se calcula el gap de la ejecución.
+     * @throws IOException Si ocurre un error al escribir los resultados.
+     */
+    public void addRun(String instance, int maxSizeRCL, int iterations, double averageFitness,
+                       double bestFitness, long time, double upperBound) throws IOException {
+        if (this.currentInstance != null && !this.currentInstance.equals(instance)) {
+            this.endInstance();
+        }
+        String[] row = new String[]{instance, Integer.toString(maxSizeRCL), Integer.toString(iterations),
+                ExpositoUtilities.getFormat(averageFitness), ExpositoUtilities.getFormat(bestFitness),
+                Long.toString(time), ExpositoUtilities.getFormat(upperBound),
+                ExpositoUtilities.getFormat(100.0 * TOPTWUpperBound.getGap(upperBound, bestFitness))};
+        TOPTWResultsExporter.writeCsvRow(this.runsWriter, row);
+        this.countRun(instance, maxSizeRCL, iterations, averageFitness, bestFitness, time);
+    }
+
+    /**
+     * Acumula una ejecución en el resumen de su instancia y la marca como registrada.
+     * <p>
+     * Si la instancia es distinta de la actual, se empieza un resumen nuevo.
+     *
+     * @param instance Nombre de la instancia.
+     * @param maxSizeRCL Tamaño máximo de la RCL utilizado.
+     * @param iterations Número de iteraciones ejecutadas.
+     * @param averageFitness Fitness medio de las iteraciones.
+     * @param bestFitness Mejor fitness encontrado.
+     * @param time Tiempo de la ejecución en milisegundos.
+     */
+    private void countRun(String instance, int maxSizeRCL, int iterations, double averageFitness,
+                          double bestFitness, long time) {
+        if (this.currentInstance == null || !this.currentInstance.equals(instance)) {
+            this.currentInstance = instance;
+            this.instanceRuns = 0;
+            this.instanceIterations = 0;
+            this.instanceFitnessSum = 0.0;
+            this.instanceBest = 0.0;
+            this.instanceTime = 0;
+        }
+        this.completedRuns.add(instance + CSV_SEPARATOR + maxSizeRCL);
+        this.instanceRuns++;
+        this.instanceIterations += iterations;
+        this.instanceFitnessSum += averageFitness * iterations;
+        if (this.instanceBest < bestFitness) {
+            this.instanceBest = bestFitness;
+        }
+        this.instanceTime += time;
+    }
+
+    /**
+     * Registra el tiempo de CPU y la memoria reservada de cada fase de una ejecución GRASP y los
+     * suma al total del barrido.
+     *
+     * @param instance Nombre de la instancia.
+     * @param maxSizeRCL Tamaño máximo de la RCL utilizado.
+     * @param profile Mediciones por fase de la ejecución.
+     * @throws IOException Si ocurre un error al escribir los resultados.
+     */
+    public void addProfile(String instance, int maxSizeRCL, TOPTWProfiler profile) throws IOException {
+        for (int phase = 0; phase < TOPTWProfiler.PHASES; phase++) {
+            this.addPhase(instance, maxSizeRCL, phase, profile.getCpuTime(phase), profile.getAllocatedBytes(phase));
+        }
+    }
+
+    /**
+     * Registra las mediciones de una fase de una ejecución y las suma al total del barrido.
+     *
+     * @param instance Nombre de la instancia.
+     * @param maxSizeRCL Tamaño máximo de la RCL utilizado.
+     * @param phase Fase.
+     * @param cpuTime Tiempo de CPU en nanosegundos.
+     * @param allocatedBytes Bytes reservados.
+     * @throws IOException Si ocurre un error al escribir los resultados.
+     */
+    private void addPhase(String instance, int maxSizeRCL, int phase, long cpuTime, long allocatedBytes)
+            throws IOException {
+        this.writePhaseRow(instance, Integer.toString(maxSizeRCL), phase, cpuTime, allocatedBytes);
+        this.totalProfile.add(phase, cpuTime, allocatedBytes);
+        this.hasPhases = true;
+    }
+
+    /**
+     * Escribe una fila de la tabla de mediciones por fase.
+     *
+     * @param instance Nombre de la instancia.
+     * @param maxSizeRCL Tamaño máximo de la RCL.
+     * @param phase Fase.
+     * @param cpuTime Tiempo de CPU en nanosegundos.
+     * @param allocatedBytes Bytes reservados.
+     * @throws IOException Si ocurre un error al escribir los resultados.
+     */
+    private void writePhaseRow(String instance, String maxSizeRCL, int phase, long cpuTime, long allocatedBytes)
+            throws IOException {
+        String[] row = new String[]{instance, maxSizeRCL, TOPTWProfiler.getPhaseName(phase),
+                ExpositoUtilities.getFormat(cpuTime / 1e6), ExpositoUtilities.getFormat(allocatedBytes / 1048576.0)};
+        TOPTWResultsExporter.writeCsvRow(this.phasesWriter, row);
+    }
+
+    /**
+     * Obtiene las mediciones por fase acumuladas de todas las ejecuciones registradas.
+     *
+     * @return Total del barrido por fase.
+     */
+    public TOPTWProfiler getTotalProfile() {
+        return this.totalProfile;
+    }
+
+    /**
+     * Escribe el resumen de la instancia actual, si existe alguna ejecución acumulada, y actualiza
+     * el libro Excel con las filas escritas hasta el momento.
+     *
+     * @throws IOException Si ocurre un error al escribir los resultados.
+     */
+    public void endInstance() throws IOException {
+        if (this.currentInstance == null) {
+            return;
+        }
+        double average = this.instanceIterations > 0 ? this.instanceFitnessSum / this.instanceIterations : 0.0;
+        String[] row = new String[]{this.currentInstance, Integer.toString(this.instanceRuns),
+                Long.toString(this.instanceIterations), ExpositoUtilities.getFormat(average),
+                ExpositoUtilities.getFormat(this.instanceBest), Long.toString(this.instanceTime)};
+        TOPTWResultsExporter.writeCsvRow(this.instancesWriter, row);
+        this.currentInstance = null;
+        this.writeWorkbook();
+    }
+
+    /**
+     * Escribe el resumen pendiente y el total por fase del barrido (si se ha registrado alguna
+     * medición), cierra los ficheros CSV y escribe la versión final del libro Excel.
+     * <p>
+     * Al cerrar un barrido reanudado, el total se añade de nuevo con las mediciones acumuladas hasta
+     * ese momento, de modo que el último bloque TOTAL es el del barrido completo.
+     *
+     * @throws IOException Si ocurre un error al escribir o cerrar los ficheros.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            try {
+                this.endInstance();
+                for (int phase = 0; phase < TOPTWProfiler.PHASES && this.hasPhases; phase++) {
+                    this.writePhaseRow(TOTAL_INSTANCE, "-", phase, this.totalProfile.getCpuTime(phase),
+                            this.totalProfile.getAllocatedBytes(phase));
+                }
+            } finally {
+                try {
+                    this.runsWriter.close();
+                } finally {
+                    try {
+                        this.instancesWriter.close();
+                    } finally {
+                        this.phasesWriter.close();
+                    }
+                }
+            }
+        } finally {
+            this.writeWorkbook();
+        }
+    }
+
+    /**
+     * Escribe una fila en un fichero CSV y la vuelca inmediatamente a disco.
+     *
+     * @param writer Fichero CSV de destino.
+     * @param values Valores de la fila.
+     * @throws IOException Si ocurre un error de entrada/salida.
+     */
+    private static void writeCsvRow(BufferedWriter writer, String[] values) throws IOException {
+        writer.write(String.join(CSV_SEPARATOR, values));
+        writer.newLine();
+        writer.flush();
+    }
+
+    /**
+     * Reconstruye el libro Excel a partir de los CSV. El libro se escribe en un fichero temporal que
+     * sustituye al anterior de forma atómica, de modo que una caída nunca deja un libro incompleto.
+     *
+     * @throws IOException Si ocurre un error al leer los CSV o al escribir el libro.
+     */
+    private void writeWorkbook() throws IOException {
+        File temporary = new File(this.workbookFile.getPath() + ".tmp");
+        WorkbookSettings settings = new WorkbookSettings();
+        settings.setUseTemporaryFileDuringWrite(true); // Evita mantener el libro serializado en memoria.
+        WritableWorkbook workbook = Workbook.createWorkbook(temporary, settings);
+        try {
+            TOPTWResultsExporter.copyCsv(this.runsFile, workbook.createSheet("Runs", 0), RUN_HEADER.length);
+            TOPTWResultsExporter.copyCsv(this.instancesFile, workbook.createSheet("Instances", 1),
+                    INSTANCE_HEADER.length);
+            TOPTWResultsExporter.copyCsv(this.phasesFile, workbook.createSheet("Phases", 2), PHASE_HEADER.length);
+            workbook.write();
+        } finally {
+            try {
+                workbook.close();
+            } catch (WriteException ex) {
+                throw new IOException(ex);
+            }
+        }
+        Files.move(temporary.toPath(), this.workbookFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Copia las filas completas de un fichero CSV en una hoja del libro Excel.
+     *
+     * @param file Fichero CSV de origen.
+     * @param sheet Hoja de destino.
+     * @param columns Número de columnas de la tabla; las filas con otro número se descartan.
+     * @throws IOException Si no se puede leer el fichero o JExcelAPI no puede añadir alguna celda.
+     */
+    private static void copyCsv(File file, WritableSheet sheet, int columns) throws IOException {
+        BufferedReader reader = new BufferedReader(new FileReader(file));
+        try {
+            int row = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] values = line.split(CSV_SEPARATOR);
+                if (values.length == columns) {
+                    row = TOPTWResultsExporter.writeSheetRow(sheet, row, values);
+                }
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Escribe una fila en una hoja del libro Excel.
+     *
+     * @param sheet Hoja de destino.
+     * @param row Índice de la fila a escribir.
+     * @param values Valores de la fila.
+     * @return Índice de la siguiente fila libre.
+     * @throws IOException Si JExcelAPI no puede añadir alguna celda.
+     */
+    private static int writeSheetRow(WritableSheet sheet, int row, String[] values) throws IOException {
+        try {
+            for (int col = 0; col < values.length; col++) {
+                if (row > 0 && col > 0 && ExpositoUtilities.isDouble(values[col])) {
+                    sheet.addCell(new jxl.write.Number(col, row, Double.parseDouble(values[col])));
+                } else {
+                    sheet.addCell(new Label(col, row, values[col]));
+                }
+            }
+        } catch (WriteException ex) {
+            throw new IOException(ex);
+        }
+        return row + 1;
+    }
+}
@@ -2,14 +2,23 @@ package top;
 
 /**
  * Clase para representar una ruta en un problema de Team Orienteering con Ventanas de Tiempo (TOPTW).
+ * <p>
+ * La secuencia de la ruta se guarda en los arreglos de predecesores y sucesores de
+ * {@link TOPTWSolution}; este registro mantiene sus extremos y sus valores agregados para que las
+ * consultas a nivel de ruta no tengan que recorrerla.
  */
 public class TOPTWRoute {
-    int predecessor;
-    int succesor;
-    int id;
-    
+    int predecessor; ///< Último cliente de la ruta (predecesor del depósito).
+    int succesor; ///< Primer cliente de la ruta (sucesor del depósito).
+    int id; ///< Índice de la ruta en la solución.
+    int depot; ///< Nodo depósito de la ruta.
+    int length; ///< Número de clientes de la ruta.
+    double duration; ///< Instante de regreso al depósito.
+    double score; ///< Suma de las puntuaciones de los clientes de la ruta.
+    double maxDuration; ///< Tiempo máximo permitido para la ruta.
+
     TOPTWRoute() {
-        
+
     }
 
     /**
@@ -24,6 +33,24 @@ public class TOPTWRoute {
         this.id = id;
     }
 
+    /**
+     * Crea una ruta vacía, cuyo depósito es a la vez su primer y su último nodo. Es un método con
+     * nombre propio para no confundirse con el constructor (predecesor, sucesor, id).
+     * @param id Índice de la ruta en la solución.
+     * @param depot Nodo depósito de la ruta.
+     * @param maxDuration Tiempo máximo permitido para la ruta.
+     * @return Ruta vacía.
+     */
+    static TOPTWRoute createEmpty(int id, int depot, double maxDuration) {
+        TOPTWRoute route = new TOPTWRoute(depot, depot, id);
+        route.depot = depot;
+        route.length = 0;
+        route.duration = 0.0;
+        route.score = 0.0;
+        route.maxDuration = maxDuration;
+        return route;
+    }
+
     /**
      * Método para obtener el predecesor de la ruta.
      * @return
@@ -48,6 +75,70 @@ public class TOPTWRoute {
         return this.id;
     }
 
+    /**
+     * Método para obtener el depósito de la ruta.
+     * @return Nodo depósito.
+     */
+    public int getDepot() {
+        return this.depot;
+    }
+
+    /**
+     * Método para obtener el primer cliente de la ruta.
+     * @return Primer cliente, o el depósito si la ruta está vacía.
+     */
+    public int getHead() {
+        return this.succesor;
+    }
+
+    /**
+     * Método para obtener el último cliente de la ruta.
+     * @return Último cliente, o el depósito si la ruta está vacía.
+     */
+    public int getTail() {
+        return this.predecessor;
+    }
+
+    /**
+     * Método para obtener el número de clientes de la ruta.
+     * @return Número de clientes.
+     */
+    public int getLength() {
+        return this.length;
+    }
+
+    /**
+     * Método para saber si la ruta no visita ningún cliente.
+     * @return true si la ruta está vacía.
+     */
+    public boolean isEmpty() {
+        return this.length == 0;
+    }
+
+    /**
+     * Método para obtener el instante de regreso al depósito.
+     * @return Duración de la ruta.
+     */
+    public double getDuration() {
+        return this.duration;
+    }
+
+    /**
+     * Método para obtener la suma de las puntuaciones de los clientes de la ruta.
+     * @return Puntuación de la ruta.
+     */
+    public double getScore() {
+        return this.score;
+    }
+
+    /**
+     * Método para obtener la holgura de la ruta respecto al tiempo máximo permitido.
+     * @return Tiempo máximo de la ruta menos su duración.
+     */
+    public double getSlack() {
+        return this.maxDuration - this.duration;
+    }
+
     /**
      * Método para establecer el predecesor de la ruta.
      * @param pre
@@ -71,4 +162,12 @@ public class TOPTWRoute {
     public void setId(int id) {
         this.id = id;
     }
+
+    /**
+     * Método para establecer el instante de regreso al depósito.
+     * @param duration Duración de la ruta.
+     */
+    public void setDuration(double duration) {
+        this.duration = duration;
+    }
 }
@@ -0,0 +1,301 @@
+package top;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.StringReader;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import es.ull.esit.utilities.ExpositoUtilities;
+
+/**
+ * Servicio local de larga duración que resuelve peticiones TOPTW con GRASP.
+ * <p>
+ * Al mantener la JVM viva se evita pagar en cada petición el arranque, la carga de clases, el
+ * calentamiento del compilador JIT y la lectura de la instancia. Las instancias leídas se guardan
+ * en una caché LRU y cada instancia reutiliza sus objetos {@link TOPTWSolution} y
+ * {@link TOPTWGRASP} entre peticiones.
+ * <p>
+ * Las peticiones se reciben por la entrada estándar o, con {@code --port N}, por un socket TCP
+ * escuchando solo en la interfaz local. Cada petición ocupa una línea:
+ * <pre>
+ * SOLVE &lt;ruta&gt; &lt;iteraciones&gt; &lt;tamañoRCL&gt; [vehículos] [tiempoMáximo]
+ * INLINE &lt;iteraciones&gt; &lt;tamañoRCL&gt; &lt;vehículos&gt; &lt;tiempoMáximo&gt; &lt;líneas&gt;
+ * QUIT
+ * </pre>
+ * En {@code INLINE}, las {@code líneas} siguientes contienen la instancia en el formato de los
+ * ficheros TOPTW. Los parámetros opcionales pueden sustituirse por {@code -} para usar los valores
+ * de la instancia. La respuesta consiste en las líneas {@code SCORE}, {@code ROUTE} (una por ruta,
+ * con el depósito como nodo 0) y {@code TIME}, o bien {@code ERROR}, seguidas siempre de {@code END}.
+ * Si la cabecera de {@code INLINE} es incorrecta pero su número de líneas se puede leer, esas líneas
+ * se descartan antes de responder {@code ERROR}.
+ */
+public class TOPTWServer {
+
+    /** Número de instancias que se mantienen en caché por defecto. */
+    public static final int DEFAULT_CACHE_SIZE = 16;
+
+    /** Valor que indica que se usa el parámetro de la propia instancia. */
+    private static final String DEFAULT_VALUE = "-";
+
+    /** Caché LRU de instancias leídas, indexada por ruta y fecha de modificación o por su contenido. */
+    private final LinkedHashMap<String, CachedInstance> cache;
+
+    /**
+     * Constructor de la clase TOPTWServer.
+     *
+     * @param cacheSize Número máximo de instancias en caché.
+     */
+    public TOPTWServer(final int cacheSize) {
+        this.cache = new LinkedHashMap<String, CachedInstance>(cacheSize, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedInstance> eldest) {
+                return this.size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Atiende peticiones de un flujo hasta que se cierra o se recibe {@code QUIT}.
+     *
+     * @param reader Flujo de peticiones.
+     * @param writer Flujo de respuestas.
+     * @throws IOException Si ocurre un error de entrada/salida en los flujos.
+     */
+    public void serve(BufferedReader reader, BufferedWriter writer) throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = ExpositoUtilities.simplifyString(line);
+            if (line.isEmpty()) {
+                continue;
+            }
+            if (line.equals("QUIT")) {
+                break;
+            }
+            try {
+                this.handle(line.split(" "), reader, writer);
+            } catch (IOException | RuntimeException ex) {
+                writer.write("ERROR " + ex.getMessage());
+                writer.newLine();
+            }
+            writer.write("END");
+            writer.newLine();
+            writer.flush();
+        }
+    }
+
+    /**
+     * Procesa una petición y escribe su respuesta (sin la línea {@code END}).
+     *
+     * @param parts Palabras de la línea de la petición.
+     * @param reader Flujo de peticiones, del que se leen los datos de las instancias en línea.
+     * @param writer Flujo de respuestas.
+     * @throws IOException Si la petición es incorrecta o no se puede leer la instancia.
+     */
+    private void handle(String[] parts, BufferedReader reader, BufferedWriter writer) throws IOException {
+        CachedInstance instance;
+        int iterations;
+        int maxSizeRCL;
+        String vehicles = DEFAULT_VALUE;
+        String maxTime = DEFAULT_VALUE;
+        if (parts[0].equals("SOLVE") && parts.length >= 4) {
+            instance = this.getInstance(parts[1]);
+            iterations = Integer.parseInt(parts[2]);
+            maxSizeRCL = Integer.parseInt(parts[3]);
+            vehicles = parts.length > 4 ? parts[4] : DEFAULT_VALUE;
+            maxTime = parts.length > 5 ? parts[5] : DEFAULT_VALUE;
+        } else if (parts[0].equals("INLINE")) {
+            // Las líneas anunciadas se leen antes de validar la cabecera, para que una petición
+            // incorrecta no deje sus datos en el flujo como si fueran nuevas peticiones.
+            String count = parts[parts.length - 1];
+            String data = parts.length > 1 && ExpositoUtilities.isInteger(count)
+                    ? this.readInlineData(reader, Integer.parseInt(count)) : null;
+            if (parts.length != 6 || data == null) {
+                throw new IOException("Invalid request: " + String.join(" ", parts));
+            }
+            iterations = Integer.parseInt(parts[1]);
+            maxSizeRCL = Integer.parseInt(parts[2]);
+            vehicles = parts[3];
+            maxTime = parts[4];
+            instance = this.getInlineInstance(data);
+        } else {
+            throw new IOException("Unknown request: " + String.join(" ", parts));
+        }
+
+        TOPTW problem = instance.problem;
+        try {
+            int routes = vehicles.equals(DEFAULT_VALUE) ? instance.vehicles : Integer.parseInt(vehicles);
+            problem.setVehicles(routes);
+            problem.setMaxTimePerRoute(maxTime.equals(DEFAULT_VALUE) ? instance.maxTimePerRoute : Double.parseDouble(maxTime));
+            TOPTWGRASP grasp = instance.getWorkspace(routes);
+            grasp.GRASP(iterations, maxSizeRCL);
+
+            writer.write("SCORE " + grasp.getBestFitness());
+            writer.newLine();
+            ArrayList<ArrayList<Integer>> bestRoutes = grasp.getBestRoutes();
+            for (int k = 0; k < bestRoutes.size(); k++) {
+                StringBuilder route = new StringBuilder("ROUTE " + k + ": 0");
+                for (int customer : bestRoutes.get(k)) {
+                    route.append(" - ").append(customer);
+                }
+                writer.write(route.append(" - 0").toString());
+                writer.newLine();
+            }
+            writer.write("TIME " + grasp.getSolutionTime());
+            writer.newLine();
+        } finally {
+            // Restaura los parámetros originales de la instancia en caché.
+            problem.setVehicles(instance.vehicles);
+            problem.setMaxTimePerRoute(instance.maxTimePerRoute);
+        }
+    }
+
+    /**
+     * Lee las líneas de una instancia enviada en línea.
+     *
+     * @param reader Flujo de peticiones.
+     * @param lines Número de líneas anunciadas en la cabecera.
+     * @return Líneas leídas, cada una terminada en un salto de línea.
+     * @throws IOException Si el flujo termina antes de leer todas las líneas.
+     */
+    private String readInlineData(BufferedReader reader, int lines) throws IOException {
+        StringBuilder data = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            String line = reader.readLine();
+            if (line == null) {
+                throw new IOException("Unexpected end of inline instance");
+            }
+            data.append(line).append('\n');
+        }
+        return data.toString();
+    }
+
+    /**
+     * Obtiene una instancia de la caché o la lee desde su fichero.
+     *
+     * @param path Ruta del fichero de la instancia.
+     * @return Instancia en caché.
+     * @throws IOException Si no se puede leer el fichero.
+     */
+    private CachedInstance getInstance(String path) throws IOException {
+        File file = new File(path);
+        if (!file.isFile()) {
+            throw new IOException("Instance not found: " + path);
+        }
+        String key = file.getCanonicalPath() + "@" + file.lastModified();
+        CachedInstance instance = this.cache.get(key);
+        if (instance == null) {
+            BufferedReader fileReader = new BufferedReader(new FileReader(file));
+            try {
+                instance = new CachedInstance(TOPTWReader.parseProblem(fileReader, file.getName(), false, TOPTW.MATRIX_DOUBLE));
+            } finally {
+                fileReader.close();
+            }
+            this.cache.put(key, instance);
+        }
+        return instance;
+    }
+
+    /**
+     * Obtiene una instancia recibida en línea de la caché o la construye a partir de sus datos.
+     *
+     * @param data Descripción de la instancia en el formato de los ficheros TOPTW.
+     * @return Instancia en caché.
+     * @throws IOException Si los datos no son válidos.
+     */
+    private CachedInstance getInlineInstance(String data) throws IOException {
+        CachedInstance instance = this.cache.get(data);
+        if (instance == null) {
+            instance = new CachedInstance(TOPTWReader.parseProblem(new BufferedReader(new StringReader(data)),
+                    "inline", false, TOPTW.MATRIX_DOUBLE));
+            this.cache.put(data, instance);
+        }
+        return instance;
+    }
+
+    /**
+     * Instancia en caché junto con sus parámetros originales y sus espacios de trabajo.
+     */
+    private static class CachedInstance {
+
+        private final TOPTW problem; ///< Instancia leída.
+        private final int vehicles; ///< Número de vehículos original de la instancia.
+        private final double maxTimePerRoute; ///< Tiempo máximo por ruta original de la instancia.
+        private final HashMap<Integer, TOPTWGRASP> workspaces; ///< GRASP reutilizable por número de vehículos.
+
+        CachedInstance(TOPTW problem) {
+            this.problem = problem;
+            this.vehicles = problem.getVehicles();
+            this.maxTimePerRoute = problem.getMaxTimePerRoute();
+            this.workspaces = new HashMap<>();
+        }
+
+        /**
+         * Obtiene el GRASP (y su solución) reutilizable para el número de vehículos indicado.
+         *
+         * @param vehicles Número de vehículos de la petición.
+         * @return Espacio de trabajo de GRASP.
+         */
+        TOPTWGRASP getWorkspace(int vehicles) {
+            TOPTWGRASP grasp = this.workspaces.get(vehicles);
+            if (grasp == null) {
+                grasp = new TOPTWGRASP(new TOPTWSolution(this.problem));
+                grasp.setVerbose(false);
+                this.workspaces.put(vehicles, grasp);
+            }
+            return grasp;
+        }
+    }
+
+    /**
+     * Método principal del servicio.
+     *
+     * @param args {@code [--port N] [--cache N]}. Sin puerto, las peticiones se leen de la entrada
+     *             estándar y las respuestas se escriben en la salida estándar.
+     */
+    public static void main(String[] args) {
+        int port = -1;
+        int cacheSize = DEFAULT_CACHE_SIZE;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (args[i].equals("--port")) {
+                port = Integer.parseInt(args[i + 1]);
+            } else if (args[i].equals("--cache")) {
+                cacheSize = Integer.parseInt(args[i + 1]);
+            }
+        }
+        TOPTWServer server = new TOPTWServer(cacheSize);
+        try {
+            if (port < 0) {
+                server.serve(new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8)),
+                        new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8)));
+            } else {
+                ServerSocket serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+                System.err.println("TOPTW server listening on " + serverSocket.getLocalSocketAddress());
+                while (true) {
+                    Socket socket = serverSocket.accept();
+                    try {
+                        server.serve(new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8)),
+                                new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8)));
+                    } catch (IOException ex) {
+                        System.err.println(ex); // Un cliente con error no detiene el servicio.
+                    } finally {
+                        socket.close();
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.err.println(e);
+        }
+    }
+}
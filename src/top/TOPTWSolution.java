@@ -1,5 +1,6 @@
 package top;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 
 import es.ull.esit.utilities.ExpositoUtilities;
@@ -13,8 +14,11 @@ public class TOPTWSolution {
     private int[] positionInRoute;
 
     private int[] routes;
+    private TOPTWRoute[] routeRecords; // Registro de cada ruta creada, por índice de ruta.
+    private int[] routeOfNode; // Índice de la ruta de cada cliente o depósito, o NO_INITIALIZED.
     private int availableVehicles;
     private double objectiveFunctionValue;
+    private final InsertionCostBuffers costBuffers; // Arreglos de evaluateIncrementalCosts en el hilo de la solución.
 
     /**
      * Constructor de la clase TOPTWSolution.
@@ -33,7 +37,11 @@ public class TOPTWSolution {
         Arrays.fill(this.waitingTime, TOPTWSolution.NO_INITIALIZED);
         Arrays.fill(this.positionInRoute, TOPTWSolution.NO_INITIALIZED);
         this.routes = new int[this.problem.getVehicles()];
+        this.routeRecords = new TOPTWRoute[this.problem.getVehicles()];
+        this.routeOfNode = new int[this.problem.getPOIs() + this.problem.getVehicles()];
+        Arrays.fill(this.routeOfNode, TOPTWSolution.NO_INITIALIZED);
         this.objectiveFunctionValue = TOPTWEvaluator.NO_EVALUATED;
+        this.costBuffers = new InsertionCostBuffers();
     }
 
     /**
@@ -49,6 +57,11 @@ public class TOPTWSolution {
         this.routes[0] = 0;
         this.predecessors[0] = 0;
         this.successors[0] = 0;
+        this.routeRecords = new TOPTWRoute[this.problem.getVehicles()];
+        this.routeRecords[0] = TOPTWRoute.createEmpty(0, 0, this.problem.getMaxTimePerRoute());
+        this.routeOfNode = new int[this.problem.getPOIs() + this.problem.getVehicles()];
+        Arrays.fill(this.routeOfNode, TOPTWSolution.NO_INITIALIZED);
+        this.routeOfNode[0] = 0;
         this.availableVehicles = this.problem.getVehicles() - 1;
     }
 
@@ -59,12 +72,8 @@ public class TOPTWSolution {
      * @return true si el cliente es un depósito; false en caso contrario.
      */
     public boolean isDepot(int c) {
-        for (int i = 0; i < this.routes.length; i++) {
-            if (c == this.routes[i]) {
-                return true;
-            }
-        }
-        return false;
+        int route = this.routeOfNode[c];
+        return route != TOPTWSolution.NO_INITIALIZED && this.routes[route] == c;
     }
 
     /**
@@ -361,29 +370,17 @@ public class TOPTWSolution {
     /**
      * Evalúa y calcula el valor de la función objetivo (fitness) de la solución actual.
      * <p>
-     * Este método recorre todas las rutas creadas y suma el puntaje de cada cliente
-     * para obtener un valor total de la función objetivo.
+     * Este método suma la puntuación acumulada en el registro de cada ruta creada, sin
+     * recorrer sus clientes.
      *
      * @return El valor total de la función objetivo (fitness) de la solución.
      */
     public double evaluateFitness() {
         double objectiveFunction = 0.0; // Valor total de la función objetivo.
-        double objectiveFunctionPerRoute = 0.0; // Valor de la función objetivo por ruta.
 
         // Itera sobre las rutas creadas.
         for (int k = 0; k < this.getCreatedRoutes(); k++) {
-            int depot = this.getIndexRoute(k); // Obtiene el depósito de la ruta.
-            int pre = depot, suc = -1;
-
-            // Recorre la ruta desde el depósito.
-            do {
-                suc = this.getSuccessor(pre); // Obtiene el sucesor.
-                objectiveFunctionPerRoute += this.problem.getScore(suc); // Suma el puntaje del cliente.
-                pre = suc; // Avanza al siguiente cliente.
-            } while ((suc != depot)); // Continúa hasta regresar al depósito.
-
-            objectiveFunction += objectiveFunctionPerRoute; // Suma el puntaje por ruta al total.
-            objectiveFunctionPerRoute = 0.0; // Reinicia el puntaje por ruta.
+            objectiveFunction += this.routeRecords[k].getScore(); // Suma el puntaje de la ruta.
         }
 
         return objectiveFunction; // Devuelve el valor total de la función objetivo.
@@ -392,35 +389,324 @@ public class TOPTWSolution {
     /**
      * Agrega una nueva ruta al conjunto de rutas existentes.
      * <p>
-     * Este método incrementa el depósito, actualiza la posición de la ruta en el arreglo,
-     * y actualiza la cantidad de vehículos disponibles. También agrega el nodo del nuevo depósito
-     * al problema.
+     * La nueva ruta ocupa la siguiente posición libre y su depósito es el nodo
+     * {@code POIs + posición}. Este método actualiza la cantidad de vehículos disponibles y
+     * agrega el nodo del nuevo depósito al problema.
      *
      * @return El identificador del nuevo depósito creado.
      */
     public int addRoute() {
-        int depot = this.problem.getPOIs(); // Obtiene el número de puntos de interés.
-        depot++;
-        int routePos = 1;
-
-        // Busca la siguiente posición disponible para la nueva ruta.
-        for (int i = 0; i < this.routes.length; i++) {
-            if (this.routes[i] != -1 && this.routes[i] != 0) {
-                depot = this.routes[i]; // Actualiza el depósito al último existente.
-                depot++;
-                routePos = i + 1; // Establece la posición de la nueva ruta.
-            }
-        }
+        int routePos = this.getCreatedRoutes(); // Siguiente posición disponible para la nueva ruta.
+        int depot = this.problem.getPOIs() + routePos;
 
         this.routes[routePos] = depot; // Asigna el nuevo depósito en la ruta.
+        this.routeRecords[routePos] = TOPTWRoute.createEmpty(routePos, depot, this.problem.getMaxTimePerRoute());
+        this.routeOfNode[depot] = routePos;
         this.availableVehicles--; // Disminuye la cantidad de vehículos disponibles.
         this.predecessors[depot] = depot; // Establece el predecesor del nuevo depósito.
         this.successors[depot] = depot; // Establece el sucesor del nuevo depósito.
         this.problem.addNodeDepot(); // Agrega el nuevo nodo de depósito al problema.
 
+        TOPTWEvents.RouteOpened event = new TOPTWEvents.RouteOpened();
+        if (event.shouldCommit()) {
+            event.route = routePos;
+            event.depot = depot;
+            event.availableVehicles = this.availableVehicles;
+            event.commit();
+        }
+
         return depot; // Devuelve el identificador del nuevo depósito.
     }
 
+    /**
+     * Inserta un cliente en una ruta a continuación de un predecesor y actualiza el registro de la ruta.
+     * <p>
+     * La duración de la ruta no se recalcula aquí: la actualiza quien propaga los tiempos de salida
+     * mediante {@link TOPTWRoute#setDuration(double)}.
+     *
+     * @param customer Cliente a insertar.
+     * @param route Índice de la ruta.
+     * @param pre Predecesor del cliente en la ruta.
+     */
+    public void insertCustomer(int customer, int route, int pre) {
+        int suc = this.successors[pre];
+        this.predecessors[customer] = pre;
+        this.successors[customer] = suc;
+        this.successors[pre] = customer;
+        this.predecessors[suc] = customer;
+        this.routeOfNode[customer] = route;
+
+        TOPTWRoute record = this.routeRecords[route];
+        if (pre == record.getDepot()) {
+            record.setSuccesor(customer);
+        }
+        if (suc == record.getDepot()) {
+            record.setPredeccesor(customer);
+        }
+        record.length++;
+        record.score += this.problem.getScore(customer);
+    }
+
+    /**
+     * Elimina un cliente de su ruta y actualiza el registro de la ruta.
+     * <p>
+     * Como en {@link #insertCustomer(int, int, int)}, la duración de la ruta debe actualizarse
+     * aparte.
+     *
+     * @param customer Cliente a eliminar.
+     */
+    public void removeCustomer(int customer) {
+        int route = this.routeOfNode[customer];
+        int pre = this.predecessors[customer];
+        int suc = this.successors[customer];
+        this.successors[pre] = suc;
+        this.predecessors[suc] = pre;
+        this.predecessors[customer] = TOPTWSolution.NO_INITIALIZED;
+        this.successors[customer] = TOPTWSolution.NO_INITIALIZED;
+        this.routeOfNode[customer] = TOPTWSolution.NO_INITIALIZED;
+
+        TOPTWRoute record = this.routeRecords[route];
+        if (record.getHead() == customer) {
+            record.setSuccesor(suc);
+        }
+        if (record.getTail() == customer) {
+            record.setPredeccesor(pre);
+        }
+        record.length--;
+        record.score -= this.problem.getScore(customer);
+    }
+
+    /**
+     * Obtiene el registro de una ruta creada.
+     *
+     * @param index Índice de la ruta.
+     * @return El registro de la ruta.
+     */
+    public TOPTWRoute getRoute(int index) {
+        return this.routeRecords[index];
+    }
+
+    /**
+     * Obtiene la ruta a la que pertenece un cliente o depósito.
+     *
+     * @param node Cliente o depósito.
+     * @return Índice de la ruta, o NO_INITIALIZED si el nodo no está en ninguna ruta.
+     */
+    public int getRouteOf(int node) {
+        return this.routeOfNode[node];
+    }
+
+    /**
+     * Obtiene las posiciones en las que se puede insertar un cliente respetando las ventanas de
+     * tiempo y el tiempo máximo por ruta.
+     * <p>
+     * Antes de hacer ningún cálculo de horarios se descartan las posiciones cuyo predecesor o
+     * sucesor es incompatible con el cliente según {@link TOPTW#isCompatible(int, int)}. En las
+     * posiciones restantes se propaga el retraso por el resto de la ruta hasta que desaparece (el
+     * resto de la ruta ya era factible) o se incumple alguna ventana.
+     *
+     * @param customer Cliente a insertar.
+     * @param departureTimes Tiempos de salida por ruta y cliente.
+     * @return Lista de posiciones factibles {ruta, predecesor, posición en la ruta}.
+     */
+    public ArrayList<int[]> getFeasiblePositions(int customer, ArrayList<ArrayList<Double>> departureTimes) {
+        ArrayList<int[]> positions = new ArrayList<>();
+        for (int k = 0; k < this.getCreatedRoutes(); k++) {
+            int depot = this.getIndexRoute(k);
+            ArrayList<Double> route = departureTimes.get(k);
+            int pre = depot, suc, position = 0;
+            do {
+                suc = this.getSuccessor(pre);
+                if (this.problem.isCompatible(pre, customer) && this.problem.isCompatible(customer, suc)
+                        && this.isFeasibleInsertion(customer, pre, depot, route)) {
+                    positions.add(new int[]{k, pre, position});
+                }
+                pre = suc;
+                position++;
+            } while (suc != depot);
+        }
+        return positions;
+    }
+
+    /**
+     * Comprueba si insertar un cliente tras un predecesor mantiene la ruta factible.
+     *
+     * @param customer Cliente a insertar.
+     * @param pre Predecesor del cliente en la ruta.
+     * @param depot Depósito de la ruta.
+     * @param route Tiempos de salida de los clientes de la ruta.
+     * @return true si la inserción es factible.
+     */
+    private boolean isFeasibleInsertion(int customer, int pre, int depot, ArrayList<Double> route) {
+        if (this.problem.isScaled()) {
+            return this.isFeasibleInsertionScaled(customer, pre, depot, route);
+        }
+        double arrival = route.get(pre) + this.getDistance(pre, customer);
+        if (arrival > this.problem.getDueTime(customer)) {
+            return false;
+        }
+        double leave = Math.max(arrival, this.problem.getReadyTime(customer)) + this.problem.getServiceTime(customer);
+        int previous = customer, next = this.getSuccessor(pre);
+        while (next != depot) {
+            arrival = leave + this.getDistance(previous, next);
+            if (arrival > this.problem.getDueTime(next)) {
+                return false;
+            }
+            leave = Math.max(arrival, this.problem.getReadyTime(next)) + this.problem.getServiceTime(next);
+            if (leave <= route.get(next)) {
+                return true; // El retraso se absorbe en una espera: el resto de la ruta no cambia.
+            }
+            previous = next;
+            next = this.getSuccessor(next);
+        }
+        return leave + this.getDistance(previous, depot) <= this.problem.getMaxTimePerRoute();
+    }
+
+    /**
+     * Comprueba si insertar un cliente tras un predecesor mantiene la ruta factible con la
+     * aritmética entera escalada, de modo que las comparaciones con las ventanas son exactas.
+     * <p>
+     * Los tiempos de salida guardados proceden de valores escalados
+     * ({@link TOPTWGRASP#updateSolution(double[], ArrayList)}), por lo que se recuperan sin error.
+     *
+     * @param customer Cliente a insertar.
+     * @param pre Predecesor del cliente en la ruta.
+     * @param depot Depósito de la ruta.
+     * @param route Tiempos de salida de los clientes de la ruta.
+     * @return true si la inserción es factible.
+     */
+    private boolean isFeasibleInsertionScaled(int customer, int pre, int depot, ArrayList<Double> route) {
+        TOPTW problem = this.problem;
+        int arrival = problem.toScaled(route.get(pre)) + problem.getScaledDistance(pre, customer);
+        if (arrival > problem.getScaledDueTime(customer)) {
+            return false;
+        }
+        int leave = Math.max(arrival, problem.getScaledReadyTime(customer)) + problem.getScaledServiceTime(customer);
+        int previous = customer, next = this.getSuccessor(pre);
+        while (next != depot) {
+            arrival = leave + problem.getScaledDistance(previous, next);
+            if (arrival > problem.getScaledDueTime(next)) {
+                return false;
+            }
+            leave = Math.max(arrival, problem.getScaledReadyTime(next)) + problem.getScaledServiceTime(next);
+            if (leave <= problem.toScaled(route.get(next))) {
+                return true; // El retraso se absorbe en una espera: el resto de la ruta no cambia.
+            }
+            previous = next;
+            next = this.getSuccessor(next);
+        }
+        return leave + problem.getScaledDistance(previous, depot) <= problem.toScaled(problem.getMaxTimePerRoute());
+    }
+
+    /**
+     * Evalúa el incremento de distancia al insertar un cliente tras un predecesor.
+     *
+     * @param customer Cliente a insertar.
+     * @param route Índice de la ruta.
+     * @param pre Predecesor del cliente en la ruta.
+     * @param departureTimes Tiempos de salida por ruta y cliente.
+     * @return Incremento de distancia d(pre, c) + d(c, suc) - d(pre, suc).
+     */
+    public double evaluateIncrementalCost(int customer, int route, int pre, ArrayList<ArrayList<Double>> departureTimes) {
+        int suc = this.getSuccessor(pre);
+        return this.getDistance(pre, customer) + this.getDistance(customer, suc) - this.getDistance(pre, suc);
+    }
+
+    /**
+     * Evalúa el incremento de distancia de insertar un cliente en varias posiciones a la vez con los
+     * arreglos de la propia solución, por lo que solo debe usarse desde un hilo.
+     *
+     * @param customer Cliente a insertar.
+     * @param positions Posiciones {ruta, predecesor, posición en la ruta}.
+     * @return Incremento de distancia de cada posición, válido hasta la siguiente evaluación.
+     * @see #evaluateIncrementalCosts(int, ArrayList, InsertionCostBuffers)
+     */
+    public double[] evaluateIncrementalCosts(int customer, ArrayList<int[]> positions) {
+        return this.evaluateIncrementalCosts(customer, positions, this.costBuffers);
+    }
+
+    /**
+     * Evalúa el incremento de distancia de insertar un cliente en varias posiciones a la vez. Los
+     * lotes de al menos {@link DistanceKernels#getVectorLength()} posiciones se calculan con
+     * {@link DistanceKernels#insertionCosts(double[], double[], double[], int, double[])}; los más
+     * cortos, que no llenan un vector, directamente. Los resultados coinciden bit a bit con los de
+     * {@link #evaluateIncrementalCost(int, int, int, ArrayList)}.
+     *
+     * @param customer Cliente a insertar.
+     * @param positions Posiciones {ruta, predecesor, posición en la ruta}.
+     * @param buffers Arreglos reutilizables del hilo que evalúa.
+     * @return Incremento de distancia de cada posición (las primeras positions.size() componentes),
+     *         válido hasta la siguiente evaluación con los mismos arreglos.
+     */
+    public double[] evaluateIncrementalCosts(int customer, ArrayList<int[]> positions, InsertionCostBuffers buffers) {
+        int n = positions.size();
+        buffers.ensureCapacity(n);
+        double[] costs = buffers.costs;
+        if (!DistanceKernels.isVectorized() || n < DistanceKernels.getVectorLength()) {
+            for (int k = 0; k < n; k++) {
+                int pre = positions.get(k)[1];
+                int suc = this.getSuccessor(pre);
+                costs[k] = this.getDistance(pre, customer) + this.getDistance(customer, suc) - this.getDistance(pre, suc);
+            }
+            return costs;
+        }
+        for (int k = 0; k < n; k++) {
+            int pre = positions.get(k)[1];
+            int suc = this.getSuccessor(pre);
+            buffers.toCustomer[k] = this.getDistance(pre, customer);
+            buffers.fromCustomer[k] = this.getDistance(customer, suc);
+            buffers.replaced[k] = this.getDistance(pre, suc);
+        }
+        DistanceKernels.insertionCosts(buffers.toCustomer, buffers.fromCustomer, buffers.replaced, n, costs);
+        return costs;
+    }
+
+    /**
+     * Arreglos reutilizables de {@link #evaluateIncrementalCosts(int, ArrayList, InsertionCostBuffers)},
+     * que crecen según el número de posiciones evaluadas. Cada hilo que evalúa inserciones usa los suyos.
+     */
+    public static final class InsertionCostBuffers {
+
+        private double[] toCustomer = new double[0]; ///< Distancias d(p, c).
+        private double[] fromCustomer = new double[0]; ///< Distancias d(c, s).
+        private double[] replaced = new double[0]; ///< Distancias d(p, s).
+        private double[] costs = new double[0]; ///< Costes de inserción.
+
+        /**
+         * Asegura que los arreglos tienen al menos n posiciones.
+         *
+         * @param n Número de posiciones.
+         */
+        private void ensureCapacity(int n) {
+            if (this.costs.length >= n) {
+                return;
+            }
+            int capacity = Math.max(n, 2 * this.costs.length);
+            this.toCustomer = new double[capacity];
+            this.fromCustomer = new double[capacity];
+            this.replaced = new double[capacity];
+            this.costs = new double[capacity];
+        }
+    }
+
+    /**
+     * Obtiene la secuencia de clientes de cada ruta creada, sin incluir los depósitos.
+     *
+     * @return Lista con una lista de clientes por ruta, en orden de visita.
+     */
+    public ArrayList<ArrayList<Integer>> getRoutes() {
+        ArrayList<ArrayList<Integer>> routesList = new ArrayList<>();
+        for (int k = 0; k < this.getCreatedRoutes(); k++) {
+            int depot = this.getIndexRoute(k); // Obtiene el depósito de la ruta.
+            ArrayList<Integer> route = new ArrayList<>();
+            for (int c = this.getSuccessor(depot); c != depot; c = this.getSuccessor(c)) {
+                route.add(c);
+            }
+            routesList.add(route);
+        }
+        return routesList;
+    }
+
     /**
      * Imprime la solución actual en la consola.
      * <p>
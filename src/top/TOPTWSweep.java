@@ -0,0 +1,289 @@
+package top;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Barrido de una instancia TOPTW sobre varios números de rutas (P) y tiempos máximos por ruta
+ * (Tmax) con arranque en caliente.
+ * <p>
+ * La instancia se lee y su matriz de distancias se calcula una sola vez para toda la rejilla; en
+ * cada combinación solo cambian el número de vehículos y el tiempo máximo por ruta. Las
+ * combinaciones se resuelven en orden creciente de P y de Tmax, de modo que cualquier solución de
+ * (P - 1, Tmax) o de (P, Tmax anterior) sigue siendo factible. Las mejores soluciones distintas
+ * (élite) de esas dos combinaciones vecinas sirven de partida a las primeras iteraciones de GRASP,
+ * que las completan con los clientes restantes y las rutas nuevas; por eso las combinaciones con
+ * vecinos resueltos se ejecutan con un presupuesto de iteraciones reducido. Como en cualquier
+ * ejecución de GRASP, cada combinación termina en cuanto alcanza su cota superior.
+ */
+public class TOPTWSweep {
+
+    /** Número de soluciones élite que se conservan de cada combinación. */
+    public static final int ELITE_SIZE = 5;
+
+    private final TOPTW problem; ///< Instancia, compartida por toda la rejilla.
+    private final int[] routes; ///< Números de rutas, en orden creciente.
+    private final double[] maxTimes; ///< Tiempos máximos por ruta, en orden creciente.
+    private final double[][] bestFitness; ///< Mejor fitness de cada combinación.
+    private final double[][] averageFitness; ///< Fitness medio de cada combinación.
+    private final double[][] upperBound; ///< Cota superior de cada combinación.
+    private final int[][] iterations; ///< Iteraciones realizadas en cada combinación.
+    private final long[][] time; ///< Tiempo (ms) de cada combinación.
+    private final ArrayList<ArrayList<ArrayList<ArrayList<Integer>>>> elite; ///< Soluciones élite de cada combinación, por filas.
+    private final ArrayList<ArrayList<Double>> eliteFitness; ///< Fitness de las soluciones élite de cada combinación, por filas.
+    private long solutionTime; ///< Tiempo total (ms) del barrido.
+
+    /**
+     * Constructor de la clase TOPTWSweep.
+     *
+     * @param problem Instancia ya leída, con su matriz de distancias calculada.
+     * @param routes Números de rutas a resolver.
+     * @param maxTimes Tiempos máximos por ruta a resolver.
+     */
+    public TOPTWSweep(TOPTW problem, int[] routes, double[] maxTimes) {
+        this.problem = problem;
+        this.routes = routes.clone();
+        this.maxTimes = maxTimes.clone();
+        Arrays.sort(this.routes);
+        Arrays.sort(this.maxTimes);
+        this.bestFitness = new double[this.routes.length][this.maxTimes.length];
+        this.averageFitness = new double[this.routes.length][this.maxTimes.length];
+        this.upperBound = new double[this.routes.length][this.maxTimes.length];
+        this.iterations = new int[this.routes.length][this.maxTimes.length];
+        this.time = new long[this.routes.length][this.maxTimes.length];
+        this.elite = new ArrayList<>();
+        this.eliteFitness = new ArrayList<>();
+        for (int cell = 0; cell < this.routes.length * this.maxTimes.length; cell++) {
+            this.elite.add(null);
+            this.eliteFitness.add(null);
+        }
+    }
+
+    /**
+     * Resuelve todas las combinaciones de la rejilla. Al terminar, la instancia recupera su número de
+     * vehículos y su tiempo máximo por ruta.
+     *
+     * @param maxIterations Iteraciones de GRASP de las combinaciones sin vecinos resueltos.
+     * @param warmIterations Iteraciones de GRASP de las combinaciones que parten de soluciones vecinas.
+     * @param maxSizeRCL Tamaño máximo de la RCL.
+     */
+    public void run(int maxIterations, int warmIterations, int maxSizeRCL) {
+        long startTime = System.currentTimeMillis();
+        int vehicles = this.problem.getVehicles();
+        double maxTime = this.problem.getMaxTimePerRoute();
+        try {
+            for (int p = 0; p < this.routes.length; p++) {
+                for (int t = 0; t < this.maxTimes.length; t++) {
+                    this.solve(p, t, maxIterations, warmIterations, maxSizeRCL);
+                }
+            }
+        } finally {
+            this.problem.setVehicles(vehicles);
+            this.problem.setMaxTimePerRoute(maxTime);
+        }
+        this.solutionTime = System.currentTimeMillis() - startTime;
+    }
+
+    /**
+     * Resuelve una combinación partiendo de las soluciones élite de sus vecinas ya resueltas.
+     *
+     * @param p Índice del número de rutas.
+     * @param t Índice del tiempo máximo por ruta.
+     * @param maxIterations Iteraciones sin soluciones de partida.
+     * @param warmIterations Iteraciones con soluciones de partida.
+     * @param maxSizeRCL Tamaño máximo de la RCL.
+     */
+    private void solve(int p, int t, int maxIterations, int warmIterations, int maxSizeRCL) {
+        ArrayList<ArrayList<ArrayList<Integer>>> seeds = new ArrayList<>();
+        ArrayList<Double> seedsFitness = new ArrayList<>();
+        if (p > 0) {
+            int cell = this.getCell(p - 1, t);
+            this.mergeElite(seeds, seedsFitness, this.elite.get(cell), this.eliteFitness.get(cell));
+        }
+        if (t > 0) {
+            int cell = this.getCell(p, t - 1);
+            this.mergeElite(seeds, seedsFitness, this.elite.get(cell), this.eliteFitness.get(cell));
+        }
+
+        this.problem.setVehicles(this.routes[p]);
+        this.problem.setMaxTimePerRoute(this.maxTimes[t]);
+        TOPTWGRASP grasp = new TOPTWGRASP(new TOPTWSolution(this.problem));
+        grasp.setVerbose(false);
+        grasp.setEliteSize(ELITE_SIZE);
+        grasp.setSeedSolutions(seeds);
+        grasp.GRASP(seeds.isEmpty() ? maxIterations : warmIterations, maxSizeRCL);
+
+        this.bestFitness[p][t] = grasp.getBestFitness();
+        this.averageFitness[p][t] = grasp.getAverageFitness();
+        this.upperBound[p][t] = grasp.getUpperBound();
+        this.iterations[p][t] = grasp.getIterations();
+        this.time[p][t] = grasp.getSolutionTime();
+        this.elite.set(this.getCell(p, t), grasp.getElite());
+        this.eliteFitness.set(this.getCell(p, t), grasp.getEliteFitness());
+    }
+
+    /**
+     * Obtiene la posición de una combinación en las listas de soluciones élite, recorridas por filas.
+     *
+     * @param p Índice del número de rutas.
+     * @param t Índice del tiempo máximo por ruta.
+     * @return Posición de la combinación.
+     */
+    private int getCell(int p, int t) {
+        return p * this.maxTimes.length + t;
+    }
+
+    /**
+     * Añade las soluciones élite de una combinación vecina a las soluciones de partida, manteniendo
+     * las {@link #ELITE_SIZE} mejores distintas ordenadas de mayor a menor fitness.
+     *
+     * @param seeds Soluciones de partida.
+     * @param seedsFitness Fitness de las soluciones de partida.
+     * @param neighbour Soluciones élite de la combinación vecina.
+     * @param neighbourFitness Fitness de las soluciones élite de la combinación vecina.
+     */
+    private void mergeElite(ArrayList<ArrayList<ArrayList<Integer>>> seeds, ArrayList<Double> seedsFitness,
+                            ArrayList<ArrayList<ArrayList<Integer>>> neighbour, ArrayList<Double> neighbourFitness) {
+        for (int e = 0; e < neighbour.size(); e++) {
+            if (seeds.contains(neighbour.get(e))) {
+                continue;
+            }
+            int position = 0;
+            while (position < seeds.size() && seedsFitness.get(position) >= neighbourFitness.get(e)) {
+                position++;
+            }
+            if (position < ELITE_SIZE) {
+                seeds.add(position, neighbour.get(e));
+                seedsFitness.add(position, neighbourFitness.get(e));
+                if (seeds.size() > ELITE_SIZE) {
+                    seeds.remove(ELITE_SIZE);
+                    seedsFitness.remove(ELITE_SIZE);
+                }
+            }
+        }
+    }
+
+    /**
+     * Obtiene los números de rutas del barrido, en el orden en que se recorren.
+     *
+     * @return Números de rutas.
+     */
+    public int[] getRoutes() {
+        return this.routes;
+    }
+
+    /**
+     * Obtiene los tiempos máximos por ruta del barrido, en el orden en que se recorren.
+     *
+     * @return Tiempos máximos por ruta.
+     */
+    public double[] getMaxTimes() {
+        return this.maxTimes;
+    }
+
+    /**
+     * Obtiene el mejor fitness de una combinación.
+     *
+     * @param p Índice del número de rutas en {@link #getRoutes()}.
+     * @param t Índice del tiempo máximo en {@link #getMaxTimes()}.
+     * @return Mejor fitness.
+     */
+    public double getBestFitness(int p, int t) {
+        return this.bestFitness[p][t];
+    }
+
+    /**
+     * Obtiene el fitness medio de una combinación.
+     *
+     * @param p Índice del número de rutas en {@link #getRoutes()}.
+     * @param t Índice del tiempo máximo en {@link #getMaxTimes()}.
+     * @return Fitness medio.
+     */
+    public double getAverageFitness(int p, int t) {
+        return this.averageFitness[p][t];
+    }
+
+    /**
+     * Obtiene la cota superior de una combinación.
+     *
+     * @param p Índice del número de rutas en {@link #getRoutes()}.
+     * @param t Índice del tiempo máximo en {@link #getMaxTimes()}.
+     * @return Cota superior.
+     */
+    public double getUpperBound(int p, int t) {
+        return this.upperBound[p][t];
+    }
+
+    /**
+     * Obtiene las iteraciones realizadas en una combinación.
+     *
+     * @param p Índice del número de rutas en {@link #getRoutes()}.
+     * @param t Índice del tiempo máximo en {@link #getMaxTimes()}.
+     * @return Número de iteraciones.
+     */
+    public int getIterations(int p, int t) {
+        return this.iterations[p][t];
+    }
+
+    /**
+     * Obtiene el tiempo de una combinación.
+     *
+     * @param p Índice del número de rutas en {@link #getRoutes()}.
+     * @param t Índice del tiempo máximo en {@link #getMaxTimes()}.
+     * @return Tiempo en milisegundos.
+     */
+    public long getTime(int p, int t) {
+        return this.time[p][t];
+    }
+
+    /**
+     * Obtiene el tiempo total del último barrido.
+     *
+     * @return Tiempo en milisegundos.
+     */
+    public long getSolutionTime() {
+        return this.solutionTime;
+    }
+
+    /**
+     * Método principal del barrido.
+     *
+     * @param args Ruta de la instancia, iteraciones sin arranque en caliente, iteraciones con
+     *             arranque en caliente, tamaño de la RCL, números de rutas separados por comas y,
+     *             opcionalmente, tiempos máximos por ruta separados por comas (por defecto, el de la
+     *             instancia).
+     */
+    public static void main(String[] args) {
+        if (args.length < 5) {
+            System.err.println("Usage: TOPTWSweep <instance> <iterations> <warm iterations> <rcl> <routes,...> [tmax,...]");
+            System.exit(1);
+        }
+        TOPTW problem = TOPTWReader.readProblem(args[0]);
+        String[] routesText = args[4].split(",");
+        int[] routes = new int[routesText.length];
+        for (int i = 0; i < routes.length; i++) {
+            routes[i] = Integer.parseInt(routesText[i]);
+        }
+        double[] maxTimes = new double[]{problem.getMaxTimePerRoute()};
+        if (args.length > 5) {
+            String[] maxTimesText = args[5].split(",");
+            maxTimes = new double[maxTimesText.length];
+            for (int i = 0; i < maxTimes.length; i++) {
+                maxTimes[i] = Double.parseDouble(maxTimesText[i]);
+            }
+        }
+        TOPTWSweep sweep = new TOPTWSweep(problem, routes, maxTimes);
+        sweep.run(Integer.parseInt(args[1]), Integer.parseInt(args[2]), Integer.parseInt(args[3]));
+
+        System.out.println(" --> Instance: " + args[0]);
+        for (int p = 0; p < sweep.getRoutes().length; p++) {
+            for (int t = 0; t < sweep.getMaxTimes().length; t++) {
+                System.out.println(" --> P: " + sweep.getRoutes()[p] + " TMAX: " + sweep.getMaxTimes()[t]
+                        + " MEDIA: " + sweep.getAverageFitness(p, t) + " MEJOR SOLUCION: " + sweep.getBestFitness(p, t)
+                        + " GAP: " + TOPTWUpperBound.getGap(sweep.getUpperBound(p, t), sweep.getBestFitness(p, t))
+                        + " ITERACIONES: " + sweep.getIterations(p, t) + " TIEMPO: " + sweep.getTime(p, t) + " ms");
+            }
+        }
+        System.out.println(" --> TIEMPO TOTAL: " + sweep.getSolutionTime() + " ms");
+    }
+}
@@ -0,0 +1,141 @@
+package top;
+
+import java.util.Arrays;
+
+/**
+ * Cota superior rápida de la puntuación óptima de una instancia TOPTW, obtenida a partir de dos
+ * relajaciones del problema.
+ * <p>
+ * La primera descarta los clientes inalcanzables, es decir, aquellos que no se pueden visitar ni
+ * siquiera con una ruta que solo los visite a ellos (se llega después del cierre de su ventana o no
+ * se puede volver al depósito a tiempo), y suma la puntuación de los restantes. La segunda es una
+ * mochila fraccionaria sobre los clientes alcanzables: entre todas las rutas hay como mucho
+ * {@code vehículos * tiempo máximo por ruta} unidades de tiempo, y cada cliente visitado consume al
+ * menos su tiempo de servicio más el arco de entrada más corto posible. La cota es el mínimo de
+ * ambas.
+ * <p>
+ * El arco de entrada más corto exige recorrer todos los pares de nodos, por lo que en instancias de
+ * más de {@link #MAX_NODES_MIN_ARCS} nodos solo se considera el tiempo de servicio y se evita
+ * calcular distancias que el proveedor perezoso tendría que generar.
+ */
+public class TOPTWUpperBound {
+
+    /** Número máximo de nodos para el que se calcula el arco de entrada más corto de cada cliente. */
+    public static final int MAX_NODES_MIN_ARCS = 5000;
+
+    private final double reachableScore; ///< Suma de las puntuaciones de los clientes alcanzables.
+    private final double knapsackBound; ///< Cota de la mochila fraccionaria del tiempo disponible.
+    private final int reachableCustomers; ///< Número de clientes alcanzables.
+
+    /**
+     * Constructor de la clase TOPTWUpperBound. Calcula las cotas de la instancia.
+     *
+     * @param problem Instancia del problema TOPTW.
+     */
+    public TOPTWUpperBound(TOPTW problem) {
+        int customers = problem.getPOIs();
+        double maxTime = problem.getMaxTimePerRoute();
+        boolean minArcs = customers + 1 <= MAX_NODES_MIN_ARCS;
+
+        // Clientes alcanzables con una ruta depósito - cliente - depósito
+        int[] reachable = new int[customers];
+        int count = 0;
+        double score = 0.0;
+        for (int i = 1; i <= customers; i++) {
+            double arrival = problem.getDistance(0, i);
+            if (arrival > problem.getDueTime(i)) {
+                continue;
+            }
+            double departure = Math.max(arrival, problem.getReadyTime(i)) + problem.getServiceTime(i);
+            if (departure + problem.getDistance(i, 0) > maxTime) {
+                continue;
+            }
+            reachable[count++] = i;
+            score += problem.getScore(i);
+        }
+        this.reachableCustomers = count;
+        this.reachableScore = score;
+
+        // Mochila fraccionaria: tiempo mínimo que consume cada cliente alcanzable
+        double[] weight = new double[count];
+        Integer[] order = new Integer[count];
+        for (int k = 0; k < count; k++) {
+            int i = reachable[k];
+            double minArc = 0.0;
+            if (minArcs) {
+                minArc = problem.getDistance(0, i);
+                for (int l = 0; l < count; l++) {
+                    if (l != k) {
+                        minArc = Math.min(minArc, problem.getDistance(reachable[l], i));
+                    }
+                }
+            }
+            weight[k] = problem.getServiceTime(i) + minArc;
+            order[k] = k;
+        }
+        // Mayor puntuación por unidad de tiempo primero; los clientes sin coste van delante.
+        Arrays.sort(order, (a, b) -> Double.compare(problem.getScore(reachable[b]) * weight[a],
+                problem.getScore(reachable[a]) * weight[b]));
+        double capacity = problem.getVehicles() * maxTime;
+        double bound = 0.0;
+        for (int k = 0; k < count; k++) {
+            int item = order[k];
+            double itemScore = problem.getScore(reachable[item]);
+            if (weight[item] <= capacity) {
+                capacity -= weight[item];
+                bound += itemScore;
+            } else {
+                bound += itemScore * capacity / weight[item];
+                break;
+            }
+        }
+        this.knapsackBound = bound;
+    }
+
+    /**
+     * Obtiene la cota superior de la puntuación óptima.
+     *
+     * @return El mínimo de las dos cotas.
+     */
+    public double getUpperBound() {
+        return Math.min(this.reachableScore, this.knapsackBound);
+    }
+
+    /**
+     * Obtiene la suma de las puntuaciones de los clientes alcanzables.
+     *
+     * @return Cota por alcanzabilidad.
+     */
+    public double getReachableScore() {
+        return this.reachableScore;
+    }
+
+    /**
+     * Obtiene la cota de la mochila fraccionaria del tiempo disponible.
+     *
+     * @return Cota por tiempo.
+     */
+    public double getKnapsackBound() {
+        return this.knapsackBound;
+    }
+
+    /**
+     * Obtiene el número de clientes alcanzables.
+     *
+     * @return Número de clientes alcanzables.
+     */
+    public int getReachableCustomers() {
+        return this.reachableCustomers;
+    }
+
+    /**
+     * Calcula la distancia relativa de una puntuación a la cota superior.
+     *
+     * @param upperBound Cota superior.
+     * @param fitness Puntuación obtenida.
+     * @return Gap en tanto por uno (0 si la puntuación alcanza la cota o la cota es 0).
+     */
+    public static double getGap(double upperBound, double fitness) {
+        return upperBound > 0 ? Math.max(0.0, (upperBound - fitness) / upperBound) : 0.0;
+    }
+}
@@ -0,0 +1,86 @@
+package top;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Proceso trabajador que ejecuta una parte del presupuesto de iteraciones de GRASP.
+ * <p>
+ * Lo lanza {@link TOPTWCoordinator} en una JVM independiente. Durante la ejecución publica
+ * periódicamente su estado (incluida su mejor solución) como punto de control en el directorio de
+ * intercambio, consulta la mejor solución global que mantiene el coordinador para terminar en cuanto
+ * alguno de los trabajadores alcanza la cota superior y, al terminar, escribe en él su resultado
+ * final. Si se relanza con el mismo directorio, continúa desde su último punto de control; el punto
+ * de control solo se elimina una vez escrito el resultado.
+ */
+public class TOPTWWorker {
+
+    /** Iteraciones entre dos publicaciones del estado del trabajador. */
+    public static final int PUBLISH_INTERVAL = 100;
+
+    /**
+     * Obtiene el fichero de punto de control (estado publicado) de un trabajador.
+     *
+     * @param directory Directorio de intercambio.
+     * @param worker Identificador del trabajador.
+     * @return Fichero de punto de control.
+     */
+    public static File getCheckpointFile(File directory, int worker) {
+        return new File(directory, "worker-" + worker + ".ckpt");
+    }
+
+    /**
+     * Obtiene el fichero con el resultado final de un trabajador.
+     *
+     * @param directory Directorio de intercambio.
+     * @param worker Identificador del trabajador.
+     * @return Fichero de resultado.
+     */
+    public static File getResultFile(File directory, int worker) {
+        return new File(directory, "worker-" + worker + ".result");
+    }
+
+    /**
+     * Método principal del trabajador.
+     *
+     * @param args Ruta de la instancia, iteraciones, tamaño de la RCL, semilla, directorio de
+     *             intercambio e identificador del trabajador.
+     */
+    public static void main(String[] args) {
+        if (args.length != 6) {
+            System.err.println("Usage: TOPTWWorker <instance> <iterations> <rcl> <seed> <directory> <worker>");
+            System.exit(1);
+        }
+        String instance = args[0];
+        int iterations = Integer.parseInt(args[1]);
+        int maxSizeRCL = Integer.parseInt(args[2]);
+        long seed = Long.parseLong(args[3]);
+        File directory = new File(args[4]);
+        int worker = Integer.parseInt(args[5]);
+
+        TOPTW problem = TOPTWReader.readProblem(instance);
+        TOPTWGRASP grasp = new TOPTWGRASP(new TOPTWSolution(problem));
+        grasp.setVerbose(false);
+        grasp.setInstanceName(new File(instance).getName());
+        grasp.setSeed(seed);
+        grasp.setInstancePath(instance);
+        grasp.setCheckpoint(TOPTWWorker.getCheckpointFile(directory, worker), PUBLISH_INTERVAL);
+        grasp.setKeepCheckpoint(true); // Se elimina tras escribir el resultado.
+        grasp.setIncumbentFile(TOPTWCoordinator.getIncumbentFile(directory), PUBLISH_INTERVAL);
+        grasp.GRASP(iterations, maxSizeRCL);
+
+        // El trabajador puede terminar antes si él u otro alcanza la cota superior: se guardan las iteraciones realizadas.
+        TOPTWCheckpoint result = new TOPTWCheckpoint(grasp.getInstancePath(), problem.getPOIs(), problem.getVehicles(),
+                problem.getMaxTimePerRoute(), true, seed,
+                iterations, maxSizeRCL, grasp.getIterations(), 0L, grasp.getAverageFitness() * grasp.getIterations(),
+                grasp.getBestFitness(), grasp.getSolutionTime(), grasp.getBestRoutes(),
+                grasp.getElite(), grasp.getEliteFitness());
+        try {
+            result.write(TOPTWWorker.getResultFile(directory, worker));
+            TOPTWWorker.getCheckpointFile(directory, worker).delete();
+        } catch (IOException e) {
+            System.err.println(e);
+            System.exit(1);
+        }
+    }
+}
@@ -1,18 +1,27 @@
 package top;
 
+import java.io.IOException;
+
 /**
  * Clase principal para ejecutar el algoritmo TOPTW en varias instancias de problemas.
  * <p>
  * La clase inicializa una serie de archivos de instancias y los procesa mediante el
  * algoritmo TOPTW utilizando las clases `TOPTW`, `TOPTWSolution`, y `TOPTWGRASP`.
  * Se ejecuta el método `GRASP` en cada instancia con diferentes parámetros.
+ * <p>
+ * Las instancias se procesan con {@link TOPTWPipeline}: la lectura y preparación de las siguientes
+ * instancias se solapan con la resolución de las actuales, que se resuelven en paralelo.
+ * Cada ejecución en curso guarda periódicamente un punto de control. Con {@code --resume} el barrido
+ * se reanuda: las ejecuciones ya registradas en los resultados no se repiten (se indican por consola)
+ * y las interrumpidas continúan desde su punto de control. Sin esa opción se empieza de cero.
  */
 public class mainTOPTW {
 
     /**
      * Método principal que ejecuta el algoritmo GRASP sobre varias instancias de problemas TOPTW.
      *
-     * @param args Parámetros de línea de comandos (no se utilizan en este programa).
+     * @param args Parámetros de línea de comandos: {@code --resume} reanuda un barrido anterior; sin
+     *             él se descartan sus resultados y puntos de control y se empieza de cero.
      */
     public static void main(String[] args) {
 
@@ -32,20 +41,42 @@ public class mainTOPTW {
         instances[22] = "rc102.txt"; instances[25] = "rc105.txt"; instances[28] = "rc108.txt";
         instances[23] = "rc103.txt"; instances[26] = "rc106.txt";
 
-        // Bucle que recorre cada instancia y ejecuta el algoritmo GRASP en cada una
-        for(int i = 0; i < instances.length; i++) {
-            String INSTANCE = "Instances/TOPTW/"+instances[i];
-            TOPTW problem = TOPTWReader.readProblem(INSTANCE); // Lee y crea el problema TOPTW
-            TOPTWSolution solution = new TOPTWSolution(problem); // Crea una solución inicial para el problema
-            TOPTWGRASP grasp = new TOPTWGRASP(solution); // Inicializa el algoritmo GRASP con la solución
-
-            // Imprime la instancia que se está procesando
-            System.out.println(" --> Instance: "+instances[i]);
-            // Ejecuta el algoritmo GRASP con diferentes parámetros de iteración y tamaño de lista restringida
-            grasp.GRASP(10000, 3);
-            grasp.GRASP(10000, 5);
-            grasp.GRASP(10000, 7);
-            System.out.println("");
+        int[] sizesRCL = new int[]{3, 5, 7};
+        int maxIterations = 10000;
+        int checkpointInterval = 500; // Iteraciones entre dos puntos de control
+        boolean resume = args.length > 0 && args[0].equals("--resume");
+
+        TOPTWResultsExporter exporter = null;
+        try {
+            // Exportador de resultados: CSV por ejecución y por instancia, y libro Excel
+            exporter = new TOPTWResultsExporter("resultsTOPTW", resume);
+
+            if(!resume) {
+                // Descarta los puntos de control de un barrido anterior
+                for(String instance : instances) {
+                    for(int sizeRCL : sizesRCL) {
+                        TOPTWPipeline.getCheckpointFile(instance, sizeRCL).delete();
+                    }
+                }
+            }
+
+            // Lectura, preparación, resolución y registro de las instancias por etapas solapadas
+            TOPTWPipeline pipeline = new TOPTWPipeline("Instances/TOPTW", instances, sizesRCL, maxIterations,
+                    checkpointInterval, Runtime.getRuntime().availableProcessors(), exporter);
+            pipeline.run();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println(e);
+        } catch (IOException e) {
+            System.err.println(e); // Imprime el error si no se pueden escribir los resultados.
+        } finally {
+            if (exporter != null) {
+                try {
+                    exporter.close(); // Completa el libro Excel y cierra los ficheros CSV.
+                } catch (IOException ex) {
+                    System.err.println(ex);
+                }
+            }
         }
     }
 
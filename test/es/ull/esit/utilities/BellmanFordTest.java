@@ -0,0 +1,167 @@
+package es.ull.esit.utilities;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+import junit.framework.TestCase;
+
+/**
+ * Pruebas de {@link BellmanFord} sobre el grafo CSR frente a la versión original del algoritmo
+ * ({@link ReferenceBellmanFord}), en grafos acíclicos, con ciclos y con ciclos negativos.
+ */
+public class BellmanFordTest extends TestCase {
+
+    /**
+     * La matriz debe convertirse en un grafo CSR con las mismas aristas y pesos, fila a fila, sin la
+     * diagonal.
+     */
+    public void testCSRGraphKeepsEdgesOfMatrix() {
+        int[][] matrix = ReferenceBellmanFord.randomCyclic(30, new Random(7));
+        CSRGraph graph = new CSRGraph(matrix, matrix.length);
+        int[] rowStart = graph.getRowStart();
+        int[] columns = graph.getColumns();
+        int[] weights = graph.getWeights();
+        int edges = 0;
+        for (int i = 0; i < matrix.length; i++) {
+            int e = rowStart[i];
+            for (int j = 0; j < matrix.length; j++) {
+                if (i != j && matrix[i][j] != ReferenceBellmanFord.NO_EDGE) {
+                    assertEquals(j, columns[e]);
+                    assertEquals(matrix[i][j], weights[e]);
+                    e++;
+                    edges++;
+                }
+            }
+            assertEquals(rowStart[i + 1], e);
+        }
+        assertEquals(edges, graph.getEdges());
+    }
+
+    /**
+     * En un grafo acíclico con pesos negativos, las distancias deben coincidir con las del algoritmo
+     * original y el camino debe ser un camino del grafo con el coste mínimo.
+     */
+    public void testAcyclicGraphsMatchReference() {
+        Random random = new Random(1);
+        for (int test = 0; test < 50; test++) {
+            this.checkAgainstReference(ReferenceBellmanFord.randomDAG(2 + random.nextInt(40), random));
+        }
+    }
+
+    /**
+     * En un grafo con ciclos (y aristas negativas, pero sin ciclos negativos), las distancias deben
+     * coincidir con las del algoritmo original y el camino debe tener el coste mínimo.
+     */
+    public void testCyclicGraphsMatchReference() {
+        Random random = new Random(2);
+        for (int test = 0; test < 50; test++) {
+            int[][] matrix = ReferenceBellmanFord.randomCyclic(2 + random.nextInt(40), random);
+            assertNull(new CSRGraph(matrix, matrix.length).topologicalOrder());
+            this.checkAgainstReference(matrix);
+        }
+    }
+
+    /**
+     * Con un único camino más corto, el camino calculado debe ser exactamente el del algoritmo
+     * original, desde el último nodo hasta el inicial.
+     */
+    public void testPathMatchesReference() {
+        int[][] matrix = ReferenceBellmanFord.emptyMatrix(5);
+        matrix[0][1] = 4;
+        matrix[0][2] = 1;
+        matrix[2][1] = 2;
+        matrix[1][3] = 1;
+        matrix[3][2] = 5;
+        matrix[3][4] = 3;
+        matrix[2][4] = 9;
+        ArrayList<Integer> path = new ArrayList<>();
+        BellmanFord bellmanFord = new BellmanFord(matrix, 5, path);
+        bellmanFord.solve();
+        assertFalse(bellmanFord.hasNegativeCycle());
+        assertEquals(Arrays.asList(4, 3, 1, 2, 0), path);
+        assertEquals(this.referencePath(new ReferenceBellmanFord(matrix)), path);
+        assertEquals(-7, bellmanFord.getValue());
+    }
+
+    /**
+     * Un ciclo negativo alcanzable desde el nodo inicial debe detectarse: no se construye el camino
+     * y el valor queda a infinito.
+     */
+    public void testReachableNegativeCycle() {
+        int[][] matrix = ReferenceBellmanFord.emptyMatrix(4);
+        matrix[0][1] = 1;
+        matrix[1][2] = -1;
+        matrix[2][1] = -1;
+        matrix[2][3] = 1;
+        assertTrue(new ReferenceBellmanFord(matrix).hasNegativeCycle());
+        ArrayList<Integer> path = new ArrayList<>();
+        BellmanFord bellmanFord = new BellmanFord(matrix, 4, path);
+        bellmanFord.solve();
+        assertTrue(bellmanFord.hasNegativeCycle());
+        assertTrue(path.isEmpty());
+        assertEquals(BellmanFord.INFINITY, bellmanFord.getValue());
+    }
+
+    /**
+     * Un ciclo negativo que no es alcanzable desde el nodo inicial no afecta al resultado.
+     */
+    public void testUnreachableNegativeCycle() {
+        int[][] matrix = ReferenceBellmanFord.emptyMatrix(5);
+        matrix[0][1] = 2;
+        matrix[1][4] = 3;
+        matrix[2][3] = -5;
+        matrix[3][2] = 1;
+        matrix[3][4] = 1;
+        ReferenceBellmanFord reference = new ReferenceBellmanFord(matrix);
+        assertFalse(reference.hasNegativeCycle());
+        ArrayList<Integer> path = new ArrayList<>();
+        BellmanFord bellmanFord = new BellmanFord(matrix, 5, path);
+        bellmanFord.solve();
+        assertFalse(bellmanFord.hasNegativeCycle());
+        assertTrue(Arrays.equals(reference.getDistances(), bellmanFord.getDistances()));
+        assertEquals(Arrays.asList(4, 1, 0), path);
+        assertEquals(-5, bellmanFord.getValue());
+    }
+
+    /**
+     * Resuelve una matriz y la compara con el algoritmo original: distancias, valor y un camino
+     * válido cuyo coste es la distancia mínima al último nodo.
+     *
+     * @param matrix Matriz de distancias sin ciclos negativos.
+     */
+    private void checkAgainstReference(int[][] matrix) {
+        int nodes = matrix.length;
+        ReferenceBellmanFord reference = new ReferenceBellmanFord(matrix);
+        assertFalse(reference.hasNegativeCycle());
+        ArrayList<Integer> path = new ArrayList<>();
+        BellmanFord bellmanFord = new BellmanFord(matrix, nodes, path);
+        bellmanFord.solve();
+        assertFalse(bellmanFord.hasNegativeCycle());
+        assertTrue(Arrays.equals(reference.getDistances(), bellmanFord.getDistances()));
+        assertEquals(-reference.getDistances()[nodes - 1], bellmanFord.getValue());
+        assertEquals(nodes - 1, (int) path.get(0));
+        assertEquals(0, (int) path.get(path.size() - 1));
+        int cost = 0;
+        for (int k = path.size() - 1; k > 0; k--) {
+            int weight = matrix[path.get(k)][path.get(k - 1)];
+            assertTrue(weight != ReferenceBellmanFord.NO_EDGE);
+            cost += weight;
+        }
+        assertEquals(reference.getDistances()[nodes - 1], cost);
+    }
+
+    /**
+     * Construye el camino del algoritmo original en el mismo formato que {@link BellmanFord}.
+     *
+     * @param reference Algoritmo original ya ejecutado.
+     * @return Nodos desde el último hasta el inicial.
+     */
+    private ArrayList<Integer> referencePath(ReferenceBellmanFord reference) {
+        int[] predecessors = reference.getPredecessors();
+        ArrayList<Integer> path = new ArrayList<>();
+        for (int node = predecessors.length - 1; node != -1; node = predecessors[node]) {
+            path.add(node);
+        }
+        return path;
+    }
+}
@@ -0,0 +1,170 @@
+package es.ull.esit.utilities;
+
+import java.util.Arrays;
+import java.util.Random;
+import junit.framework.TestCase;
+
+/**
+ * Pruebas del orden topológico de {@link CSRGraph} y de los caminos más cortos y más largos de
+ * {@link DAGShortestPath} frente a la versión original de Bellman-Ford ({@link ReferenceBellmanFord}).
+ */
+public class DAGShortestPathTest extends TestCase {
+
+    /**
+     * En un grafo acíclico el orden topológico debe contener todos los nodos una vez y cada arista
+     * debe ir de un nodo a otro posterior en el orden. La diagonal de la matriz no es un bucle.
+     */
+    public void testTopologicalOrderOfAcyclicGraph() {
+        Random random = new Random(3);
+        for (int test = 0; test < 50; test++) {
+            int[][] dag = ReferenceBellmanFord.randomDAG(1 + random.nextInt(40), random);
+            int[][] matrix = this.shuffle(dag, random);
+            CSRGraph graph = new CSRGraph(matrix, matrix.length);
+            int[] order = graph.topologicalOrder();
+            assertNotNull(order);
+            int[] position = new int[matrix.length];
+            Arrays.fill(position, -1);
+            for (int k = 0; k < order.length; k++) {
+                assertEquals(-1, position[order[k]]);
+                position[order[k]] = k;
+            }
+            for (int i = 0; i < matrix.length; i++) {
+                for (int j = 0; j < matrix.length; j++) {
+                    if (i != j && matrix[i][j] != ReferenceBellmanFord.NO_EDGE) {
+                        assertTrue(position[i] < position[j]);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Un grafo con algún ciclo entre nodos distintos no tiene orden topológico.
+     */
+    public void testTopologicalOrderOfCyclicGraph() {
+        int[][] matrix = ReferenceBellmanFord.emptyMatrix(4);
+        matrix[0][1] = 1;
+        matrix[1][2] = 1;
+        matrix[2][1] = 1;
+        matrix[2][3] = 1;
+        assertNull(new CSRGraph(matrix, 4).topologicalOrder());
+        matrix[2][1] = ReferenceBellmanFord.NO_EDGE;
+        assertNotNull(new CSRGraph(matrix, 4).topologicalOrder());
+    }
+
+    /**
+     * Los caminos más cortos deben coincidir con los de Bellman-Ford original, y cada predecesor
+     * debe formar parte de un camino mínimo.
+     */
+    public void testShortestPathsMatchReference() {
+        Random random = new Random(4);
+        for (int test = 0; test < 50; test++) {
+            int[][] matrix = ReferenceBellmanFord.randomDAG(2 + random.nextInt(40), random);
+            int[] expected = new ReferenceBellmanFord(matrix).getDistances();
+            DAGShortestPath dag = this.solve(matrix, false);
+            assertTrue(Arrays.equals(expected, dag.getDistances()));
+            this.checkPredecessors(matrix, dag);
+        }
+    }
+
+    /**
+     * Los caminos más largos deben coincidir con los caminos más cortos de Bellman-Ford original
+     * sobre los pesos cambiados de signo.
+     */
+    public void testLongestPathsMatchReferenceOnNegatedWeights() {
+        Random random = new Random(5);
+        for (int test = 0; test < 50; test++) {
+            int[][] matrix = ReferenceBellmanFord.randomDAG(2 + random.nextInt(40), random);
+            int[][] negated = ReferenceBellmanFord.emptyMatrix(matrix.length);
+            for (int i = 0; i < matrix.length; i++) {
+                for (int j = 0; j < matrix.length; j++) {
+                    if (i != j && matrix[i][j] != ReferenceBellmanFord.NO_EDGE) {
+                        negated[i][j] = -matrix[i][j];
+                    }
+                }
+            }
+            int[] expected = new ReferenceBellmanFord(negated).getDistances();
+            DAGShortestPath dag = this.solve(matrix, true);
+            for (int i = 0; i < matrix.length; i++) {
+                assertEquals(-expected[i], dag.getDistances()[i]);
+            }
+            this.checkPredecessors(matrix, dag);
+        }
+    }
+
+    /**
+     * Los nodos no alcanzables desde el origen conservan el valor infinito (o su opuesto al
+     * maximizar) y no tienen predecesor.
+     */
+    public void testUnreachableNodes() {
+        int[][] matrix = ReferenceBellmanFord.emptyMatrix(4);
+        matrix[0][1] = 2;
+        matrix[2][1] = -3;
+        matrix[1][3] = 4;
+        DAGShortestPath shortest = this.solve(matrix, false);
+        assertEquals(BellmanFord.INFINITY, shortest.getDistances()[2]);
+        assertEquals(-1, shortest.getPredecessors()[2]);
+        assertEquals(6, shortest.getDistances()[3]);
+        DAGShortestPath longest = this.solve(matrix, true);
+        assertEquals(-BellmanFord.INFINITY, longest.getDistances()[2]);
+        assertEquals(-1, longest.getPredecessors()[2]);
+        assertEquals(6, longest.getDistances()[3]);
+    }
+
+    /**
+     * Calcula los caminos desde el nodo 0 de una matriz acíclica.
+     *
+     * @param matrix Matriz de distancias.
+     * @param longest true para los caminos más largos.
+     * @return Solucionador ya ejecutado.
+     */
+    private DAGShortestPath solve(int[][] matrix, boolean longest) {
+        CSRGraph graph = new CSRGraph(matrix, matrix.length);
+        DAGShortestPath dag = new DAGShortestPath(graph, graph.topologicalOrder(), longest);
+        dag.solve(0);
+        return dag;
+    }
+
+    /**
+     * Comprueba que la distancia de cada nodo alcanzado es la de su predecesor más el peso de la
+     * arista que los une.
+     *
+     * @param matrix Matriz de distancias.
+     * @param dag Solucionador ya ejecutado.
+     */
+    private void checkPredecessors(int[][] matrix, DAGShortestPath dag) {
+        int[] distances = dag.getDistances();
+        int[] predecessors = dag.getPredecessors();
+        assertEquals(-1, predecessors[0]);
+        for (int v = 1; v < matrix.length; v++) {
+            int u = predecessors[v];
+            assertTrue(u != -1);
+            assertEquals(distances[u] + matrix[u][v], distances[v]);
+        }
+    }
+
+    /**
+     * Renumera los nodos de una matriz con una permutación aleatoria, para que el orden topológico
+     * no coincida con el de los índices.
+     *
+     * @param matrix Matriz de distancias.
+     * @param random Generador de números aleatorios.
+     * @return Matriz renumerada.
+     */
+    private int[][] shuffle(int[][] matrix, Random random) {
+        int nodes = matrix.length;
+        int[] permutation = new int[nodes];
+        for (int i = 0; i < nodes; i++) {
+            int j = random.nextInt(i + 1);
+            permutation[i] = permutation[j];
+            permutation[j] = i;
+        }
+        int[][] shuffled = new int[nodes][nodes];
+        for (int i = 0; i < nodes; i++) {
+            for (int j = 0; j < nodes; j++) {
+                shuffled[permutation[i]][permutation[j]] = matrix[i][j];
+            }
+        }
+        return shuffled;
+    }
+}
@@ -0,0 +1,168 @@
+package es.ull.esit.utilities;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Random;
+import junit.framework.TestCase;
+
+/**
+ * Pruebas de la detección de ciclos de {@link ExpositoUtilities} frente a la versión original, que
+ * buscaba un camino de cada tarea real a sí misma.
+ */
+public class ExpositoUtilitiesTest extends TestCase {
+
+    /**
+     * En grafos aleatorios de distinta densidad, {@code isAcyclic} debe coincidir con la versión
+     * original y {@code findCycle} debe devolver un ciclo real si y solo si el grafo no es acíclico.
+     */
+    public void testCycleDetectionMatchesReference() {
+        Random random = new Random(6);
+        int cyclic = 0;
+        for (int test = 0; test < 300; test++) {
+            int nodes = 3 + random.nextInt(30);
+            int[][] matrix = this.randomGraph(nodes, 1 + random.nextInt(2 * nodes), random);
+            boolean expected = this.referenceIsAcyclic(matrix);
+            assertEquals(expected, ExpositoUtilities.isAcyclic(matrix));
+            ArrayList<Integer> cycle = ExpositoUtilities.findCycle(matrix);
+            assertEquals(expected, cycle.isEmpty());
+            if (!expected) {
+                this.checkCycle(matrix, cycle);
+                cyclic++;
+            }
+        }
+        assertTrue(cyclic > 0 && cyclic < 300);
+    }
+
+    /**
+     * El orden topológico existe si y solo si no hay ciclos entre nodos distintos, y respeta todas
+     * las aristas.
+     */
+    public void testTopologicalOrderMatchesReference() {
+        Random random = new Random(7);
+        for (int test = 0; test < 300; test++) {
+            int nodes = 3 + random.nextInt(30);
+            int[][] matrix = this.randomGraph(nodes, 1 + random.nextInt(2 * nodes), random);
+            boolean acyclic = true;
+            for (int node = 0; node < nodes && acyclic; node++) {
+                acyclic = !this.referenceReturnsTo(matrix, node);
+            }
+            int[] order = ExpositoUtilities.topologicalOrder(matrix);
+            assertEquals(acyclic, order != null);
+            if (order != null) {
+                int[] position = new int[nodes];
+                for (int k = 0; k < nodes; k++) {
+                    position[order[k]] = k;
+                }
+                for (int i = 0; i < nodes; i++) {
+                    for (int j = 0; j < nodes; j++) {
+                        if (i != j && matrix[i][j] != Integer.MAX_VALUE) {
+                            assertTrue(position[i] < position[j]);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * La diagonal de la matriz no es un bucle, y un ciclo que solo pasa por el nodo inicial y el
+     * final no afecta a ninguna tarea real.
+     */
+    public void testDiagonalAndDepotCycles() {
+        int[][] matrix = ReferenceBellmanFord.emptyMatrix(4);
+        matrix[0][1] = 1;
+        matrix[1][2] = 1;
+        matrix[2][3] = 1;
+        assertTrue(ExpositoUtilities.isAcyclic(matrix));
+        assertNotNull(ExpositoUtilities.topologicalOrder(matrix));
+        matrix[3][0] = 1;
+        assertFalse(ExpositoUtilities.isAcyclic(matrix));
+        matrix[0][1] = Integer.MAX_VALUE;
+        matrix[0][3] = 1;
+        assertTrue(ExpositoUtilities.isAcyclic(matrix));
+        assertTrue(ExpositoUtilities.findCycle(matrix).isEmpty());
+        assertNull(ExpositoUtilities.topologicalOrder(matrix));
+    }
+
+    /**
+     * Comprueba que una lista de nodos es un ciclo del grafo, sin nodos repetidos, que pasa por
+     * alguna tarea real.
+     *
+     * @param matrix Matriz de distancias.
+     * @param cycle Nodos del ciclo; la arista de cierre vuelve al primero.
+     */
+    private void checkCycle(int[][] matrix, ArrayList<Integer> cycle) {
+        assertTrue(cycle.size() > 1);
+        assertEquals(cycle.size(), new HashSet<>(cycle).size());
+        boolean realTask = false;
+        for (int k = 0; k < cycle.size(); k++) {
+            int u = cycle.get(k);
+            int v = cycle.get((k + 1) % cycle.size());
+            assertTrue(matrix[u][v] != Integer.MAX_VALUE);
+            realTask |= u >= 1 && u <= matrix.length - 2;
+        }
+        assertTrue(realTask);
+    }
+
+    /**
+     * Versión original de {@code isAcyclic}: el grafo es acíclico si ninguna tarea real (nodos 1 a
+     * n-2) tiene un camino a sí misma.
+     */
+    private boolean referenceIsAcyclic(int[][] matrix) {
+        for (int node = 1; node <= matrix.length - 2; node++) {
+            if (this.referenceReturnsTo(matrix, node)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Búsqueda en profundidad desde un nodo hasta volver a él, ignorando la diagonal.
+     */
+    private boolean referenceReturnsTo(int[][] matrix, int node) {
+        boolean[] visited = new boolean[matrix.length];
+        ArrayList<Integer> stack = new ArrayList<>();
+        stack.add(node);
+        while (!stack.isEmpty()) {
+            int u = stack.remove(stack.size() - 1);
+            for (int v = 0; v < matrix.length; v++) {
+                if (u != v && matrix[u][v] != Integer.MAX_VALUE) {
+                    if (v == node) {
+                        return true;
+                    }
+                    if (!visited[v]) {
+                        visited[v] = true;
+                        stack.add(v);
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Genera un grafo dirigido aleatorio con la diagonal a cero.
+     *
+     * @param nodes Número de nodos.
+     * @param edges Número de aristas que se intentan añadir (los bucles se descartan).
+     * @param random Generador de números aleatorios.
+     * @return Matriz de distancias ({@code Integer.MAX_VALUE} si no hay arista).
+     */
+    private int[][] randomGraph(int nodes, int edges, Random random) {
+        int[][] matrix = new int[nodes][nodes];
+        for (int i = 0; i < nodes; i++) {
+            for (int j = 0; j < nodes; j++) {
+                matrix[i][j] = i == j ? 0 : Integer.MAX_VALUE;
+            }
+        }
+        for (int e = 0; e < edges; e++) {
+            int u = random.nextInt(nodes);
+            int v = random.nextInt(nodes);
+            if (u != v) {
+                matrix[u][v] = 1 + random.nextInt(10);
+            }
+        }
+        return matrix;
+    }
+}
@@ -0,0 +1,113 @@
+package es.ull.esit.utilities;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Banco de pruebas que compara {@link ExpositoUtilities#multiplyMatrices(double[][], double[][])}
+ * con el producto i-j-k clásico sobre matrices cuadradas aleatorias.
+ * <p>
+ * Para cada tamaño muestra el tiempo de ambos métodos, la aceleración obtenida y si los
+ * resultados coinciden bit a bit. El método clásico solo se ejecuta hasta
+ * {@link #NAIVE_MAX_SIZE}, porque en tamaños mayores tarda demasiado.
+ * <p>
+ * Forma parte de las fuentes de prueba y no del programa: se compila con {@code mvn test-compile}
+ * y se ejecuta con {@code target/classes} y {@code target/test-classes} en el classpath.
+ */
+public class MatrixMultiplicationBenchmark {
+
+    /** Tamaños de matriz por defecto. */
+    private static final int[] DEFAULT_SIZES = new int[]{512, 1024, 2048, 4096};
+
+    /** Mayor tamaño para el que se ejecuta el producto clásico. */
+    private static final int NAIVE_MAX_SIZE = 2048;
+
+    /** Repeticiones de calentamiento del compilador JIT. */
+    private static final int WARMUP_ROUNDS = 3;
+
+    /**
+     * Método principal del banco de pruebas.
+     *
+     * @param args Tamaños de matriz a medir (por defecto 512, 1024, 2048 y 4096).
+     */
+    public static void main(String[] args) {
+        int[] sizes = DEFAULT_SIZES;
+        if (args.length > 0) {
+            sizes = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                sizes[i] = Integer.parseInt(args[i]);
+            }
+        }
+        Random random = new Random(0);
+        double[][] warmA = MatrixMultiplicationBenchmark.randomMatrix(128, random);
+        double[][] warmB = MatrixMultiplicationBenchmark.randomMatrix(128, random);
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            MatrixMultiplicationBenchmark.naiveMultiply(warmA, warmB);
+            ExpositoUtilities.multiplyMatrices(warmA, warmB);
+        }
+
+        String[] header = new String[]{"SIZE", "NAIVE (ms)", "BLOCKED (ms)", "SPEEDUP", "IDENTICAL"};
+        System.out.println(String.format("%10s%15s%15s%10s%12s", (Object[]) header));
+        for (int size : sizes) {
+            double[][] a = MatrixMultiplicationBenchmark.randomMatrix(size, random);
+            double[][] b = MatrixMultiplicationBenchmark.randomMatrix(size, random);
+
+            long start = System.nanoTime();
+            double[][] blocked = ExpositoUtilities.multiplyMatrices(a, b);
+            double blockedTime = (System.nanoTime() - start) / 1e6;
+
+            String naiveText = "-";
+            String speedupText = "-";
+            String identicalText = "-";
+            if (size <= NAIVE_MAX_SIZE) {
+                start = System.nanoTime();
+                double[][] naive = MatrixMultiplicationBenchmark.naiveMultiply(a, b);
+                double naiveTime = (System.nanoTime() - start) / 1e6;
+                naiveText = ExpositoUtilities.getFormat(naiveTime, 1);
+                speedupText = ExpositoUtilities.getFormat(naiveTime / blockedTime, 2);
+                identicalText = Boolean.toString(Arrays.deepEquals(naive, blocked));
+            }
+            System.out.println(String.format("%10d%15s%15s%10s%12s", size, naiveText,
+                    ExpositoUtilities.getFormat(blockedTime, 1), speedupText, identicalText));
+        }
+    }
+
+    /**
+     * Producto de matrices i-j-k clásico, usado como referencia.
+     *
+     * @param a Primera matriz.
+     * @param b Segunda matriz.
+     * @return Matriz resultado.
+     */
+    static double[][] naiveMultiply(double[][] a, double[][] b) {
+        int n = a[0].length;
+        int m = a.length;
+        int p = b[0].length;
+        double[][] ans = new double[m][p];
+        for (int i = 0; i < m; i++) {
+            for (int j = 0; j < p; j++) {
+                for (int k = 0; k < n; k++) {
+                    ans[i][j] += a[i][k] * b[k][j];
+                }
+            }
+        }
+        return ans;
+    }
+
+    /**
+     * Genera una matriz cuadrada con valores aleatorios en [0, 1).
+     *
+     * @param size Tamaño de la matriz.
+     * @param random Generador de números aleatorios.
+     * @return Matriz aleatoria.
+     */
+    private static double[][] randomMatrix(int size, Random random) {
+        double[][] matrix = new double[size][size];
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                matrix[i][j] = random.nextDouble();
+            }
+        }
+        return matrix;
+    }
+}
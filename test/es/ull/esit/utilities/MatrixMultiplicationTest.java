@@ -0,0 +1,93 @@
+package es.ull.esit.utilities;
+
+import java.util.Random;
+import junit.framework.TestCase;
+
+/**
+ * Pruebas del producto de matrices por bloques y en paralelo de
+ * {@link ExpositoUtilities#multiplyMatrices(double[][], double[][])} frente al producto i-j-k
+ * clásico ({@link MatrixMultiplicationBenchmark#naiveMultiply(double[][], double[][])}).
+ */
+public class MatrixMultiplicationTest extends TestCase {
+
+    /**
+     * En matrices rectangulares cuyos tamaños no son múltiplos del bloque, el resultado debe ser
+     * idéntico bit a bit al del producto clásico.
+     */
+    public void testSequentialMatchesNaiveBitForBit() {
+        Random random = new Random(10);
+        int[][] shapes = new int[][]{{1, 1, 1}, {3, 5, 2}, {63, 64, 65}, {65, 129, 7}, {100, 1, 100},
+                {1, 200, 1}};
+        for (int[] shape : shapes) {
+            this.checkAgainstNaive(shape[0], shape[1], shape[2], random);
+        }
+    }
+
+    /**
+     * Por encima del umbral de paralelización las filas se reparten entre tareas del fork-join pool,
+     * y el resultado debe seguir siendo idéntico bit a bit.
+     */
+    public void testParallelMatchesNaiveBitForBit() {
+        Random random = new Random(11);
+        this.checkAgainstNaive(200, 150, 97, random);
+        this.checkAgainstNaive(333, 70, 129, random);
+    }
+
+    /**
+     * Se conserva el comportamiento original en los casos límite: una primera matriz sin filas da
+     * una matriz vacía, unas dimensiones incompatibles dan null y una segunda matriz sin columnas da
+     * filas vacías.
+     */
+    public void testEdgeCases() {
+        double[][] empty = ExpositoUtilities.multiplyMatrices(new double[0][0], new double[3][4]);
+        assertEquals(0, empty.length);
+        assertNull(ExpositoUtilities.multiplyMatrices(new double[2][3], new double[4][2]));
+        assertNull(ExpositoUtilities.multiplyMatrices(new double[2][3], new double[2][3]));
+        double[][] noColumns = ExpositoUtilities.multiplyMatrices(new double[2][3], new double[3][0]);
+        assertEquals(2, noColumns.length);
+        assertEquals(0, noColumns[0].length);
+        assertEquals(0, noColumns[1].length);
+    }
+
+    /**
+     * Multiplica dos matrices aleatorias con ambos métodos y comprueba que los resultados son
+     * idénticos bit a bit.
+     *
+     * @param m Filas de la primera matriz.
+     * @param n Columnas de la primera matriz y filas de la segunda.
+     * @param p Columnas de la segunda matriz.
+     * @param random Generador de números aleatorios.
+     */
+    private void checkAgainstNaive(int m, int n, int p, Random random) {
+        double[][] a = this.randomMatrix(m, n, random);
+        double[][] b = this.randomMatrix(n, p, random);
+        double[][] expected = MatrixMultiplicationBenchmark.naiveMultiply(a, b);
+        double[][] actual = ExpositoUtilities.multiplyMatrices(a, b);
+        assertEquals(m, actual.length);
+        for (int i = 0; i < m; i++) {
+            assertEquals(p, actual[i].length);
+            for (int j = 0; j < p; j++) {
+                assertEquals(Double.doubleToLongBits(expected[i][j]), Double.doubleToLongBits(actual[i][j]));
+            }
+        }
+    }
+
+    /**
+     * Genera una matriz con valores de signos y magnitudes variados, para que el orden de la suma
+     * afecte al redondeo.
+     *
+     * @param rows Número de filas.
+     * @param columns Número de columnas.
+     * @param random Generador de números aleatorios.
+     * @return Matriz aleatoria.
+     */
+    private double[][] randomMatrix(int rows, int columns, Random random) {
+        double[][] matrix = new double[rows][columns];
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < columns; j++) {
+                matrix[i][j] = (random.nextDouble() - 0.5) * Math.pow(10.0, random.nextInt(9) - 4);
+            }
+        }
+        return matrix;
+    }
+}
@@ -0,0 +1,163 @@
+package es.ull.esit.utilities;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.PrimitiveIterator;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.TreeSet;
+import junit.framework.TestCase;
+
+/**
+ * Pruebas del recorrido de subconjuntos de {@link PowerSet} como máscaras de bits y de
+ * {@link SubsetMaskSpliterator}.
+ */
+public class PowerSetTest extends TestCase {
+
+    /**
+     * Un conjunto de n elementos tiene 2^n subconjuntos, en ambos órdenes, y los flujos
+     * secuencial y paralelo los recorren todos una vez.
+     */
+    public void testMaskCounts() {
+        for (int size = 0; size <= 16; size++) {
+            long expected = 1L << size;
+            int bits = size;
+            for (boolean grayCode : new boolean[]{false, true}) {
+                assertEquals(expected, PowerSet.masks(size, grayCode).count());
+                assertEquals(expected, PowerSet.masks(size, grayCode).distinct().count());
+                assertEquals(expected, PowerSet.masks(size, grayCode).parallel().count());
+                assertEquals(expected, PowerSet.spliterator(size, grayCode).estimateSize());
+                assertEquals(0L, PowerSet.masks(size, grayCode).filter(mask -> mask >>> bits != 0).count());
+            }
+        }
+        long largest = PowerSet.spliterator(PowerSet.MAX_MASK_SIZE, true).estimateSize();
+        assertEquals(1L << PowerSet.MAX_MASK_SIZE, largest);
+    }
+
+    /**
+     * Los tamaños fuera de [0, {@link PowerSet#MAX_MASK_SIZE}] se rechazan.
+     */
+    public void testInvalidSize() {
+        for (int size : new int[]{-1, PowerSet.MAX_MASK_SIZE + 1}) {
+            try {
+                PowerSet.spliterator(size, false);
+                fail("Size " + size + " should be rejected");
+            } catch (IllegalArgumentException e) {
+                // Esperado.
+            }
+        }
+    }
+
+    /**
+     * Sin código Gray las máscaras son los índices 0, 1, ..., 2^n - 1 en orden.
+     */
+    public void testBinaryOrder() {
+        long[] masks = PowerSet.masks(10, false).toArray();
+        for (int i = 0; i < masks.length; i++) {
+            assertEquals(i, masks[i]);
+        }
+    }
+
+    /**
+     * En orden de código Gray dos máscaras consecutivas difieren en un único bit, que es el que
+     * indica {@link PowerSet#grayCodeChangedElement(long)}.
+     */
+    public void testGrayCodeOrder() {
+        PrimitiveIterator.OfLong masks = PowerSet.maskIterator(12, true);
+        long previous = masks.nextLong();
+        assertEquals(0L, previous);
+        long index = 1;
+        while (masks.hasNext()) {
+            long mask = masks.nextLong();
+            long changed = mask ^ previous;
+            assertEquals(1, Long.bitCount(changed));
+            assertEquals(Long.numberOfTrailingZeros(changed), PowerSet.grayCodeChangedElement(index));
+            assertEquals(PowerSet.grayCode(index), mask);
+            previous = mask;
+            index++;
+        }
+        assertEquals(1L << 12, index);
+    }
+
+    /**
+     * {@link PowerSet#toSet(long)} devuelve los elementos de los bits activos, y recorrer todas
+     * las máscaras produce los mismos subconjuntos que el iterador de conjuntos.
+     */
+    public void testToSet() {
+        Set<Integer> elements = new TreeSet<>(Arrays.asList(3, 5, 8, 13, 21));
+        PowerSet<Integer> powerSet = new PowerSet<>(elements);
+        assertTrue(powerSet.toSet(0L).isEmpty());
+        assertEquals(elements, powerSet.toSet((1L << 5) - 1));
+        assertEquals(new TreeSet<>(Arrays.asList(3, 8, 21)), powerSet.toSet(0b10101L));
+
+        HashSet<Set<Integer>> fromMasks = new HashSet<>();
+        powerSet.masks(true).forEach(mask -> fromMasks.add(powerSet.toSet(mask)));
+        HashSet<Set<Integer>> fromIterator = new HashSet<>();
+        for (Set<Integer> subset : new PowerSet<>(elements)) {
+            fromIterator.add(subset);
+        }
+        assertEquals(32, fromMasks.size());
+        assertEquals(fromIterator, fromMasks);
+    }
+
+    /**
+     * Dividir el spliterator repetidamente produce trozos que, juntos, recorren cada máscara
+     * exactamente una vez, con tamaños estimados exactos.
+     */
+    public void testSplittingCoversEveryMaskOnce() {
+        for (boolean grayCode : new boolean[]{false, true}) {
+            int size = 11;
+            ArrayList<Spliterator.OfLong> pending = new ArrayList<>();
+            ArrayList<Spliterator.OfLong> leaves = new ArrayList<>();
+            pending.add(PowerSet.spliterator(size, grayCode));
+            while (!pending.isEmpty()) {
+                Spliterator.OfLong part = pending.remove(pending.size() - 1);
+                long before = part.estimateSize();
+                Spliterator.OfLong prefix = part.estimateSize() > 7 ? part.trySplit() : null;
+                if (prefix == null) {
+                    leaves.add(part);
+                } else {
+                    assertEquals(before, prefix.estimateSize() + part.estimateSize());
+                    pending.add(prefix);
+                    pending.add(part);
+                }
+            }
+            assertTrue(leaves.size() > 1);
+            int[] seen = new int[1 << size];
+            for (int k = 0; k < leaves.size(); k++) {
+                Spliterator.OfLong leaf = leaves.get(k);
+                long expected = leaf.estimateSize();
+                long[] count = new long[1];
+                // Alterna los dos modos de recorrido para probar ambos.
+                if (k % 2 == 0) {
+                    leaf.forEachRemaining((long mask) -> {
+                        seen[(int) mask]++;
+                        count[0]++;
+                    });
+                } else {
+                    while (leaf.tryAdvance((long mask) -> {
+                        seen[(int) mask]++;
+                        count[0]++;
+                    })) {
+                        // Avanza hasta agotar el trozo.
+                    }
+                }
+                assertEquals(expected, count[0]);
+                assertEquals(0L, leaf.estimateSize());
+            }
+            for (int mask = 0; mask < seen.length; mask++) {
+                assertEquals(1, seen[mask]);
+            }
+        }
+    }
+
+    /**
+     * Un rango de un único índice no se divide.
+     */
+    public void testSingleMaskDoesNotSplit() {
+        SubsetMaskSpliterator spliterator = PowerSet.spliterator(0, true);
+        assertNull(spliterator.trySplit());
+        assertEquals(1L, spliterator.estimateSize());
+    }
+}
@@ -0,0 +1,151 @@
+package es.ull.esit.utilities;
+
+import java.util.Random;
+
+/**
+ * Versión original (densa) de Bellman-Ford y generadores de grafos, usados como referencia por las
+ * pruebas de {@link BellmanFord}, {@link CSRGraph} y {@link DAGShortestPath}.
+ * <p>
+ * Relaja todas las aristas de la matriz {@code nodes - 1} veces en orden de filas, sin atajos, y
+ * comprueba con una pasada adicional si queda alguna arista relajable (ciclo negativo).
+ */
+final class ReferenceBellmanFord {
+
+    static final int NO_EDGE = Integer.MAX_VALUE; ///< Valor de la matriz que indica ausencia de arista.
+
+    private final int[] distances; ///< Distancia mínima desde el nodo 0 hasta cada nodo.
+    private final int[] predecessors; ///< Predecesor de cada nodo, o -1 si no tiene.
+    private final boolean negativeCycle; ///< Indica si queda alguna arista relajable.
+
+    /**
+     * Ejecuta el algoritmo sobre una matriz de distancias desde el nodo 0.
+     *
+     * @param distanceMatrix Matriz de distancias ({@link #NO_EDGE} si no hay arista).
+     */
+    ReferenceBellmanFord(int[][] distanceMatrix) {
+        int nodes = distanceMatrix.length;
+        this.distances = new int[nodes];
+        this.predecessors = new int[nodes];
+        for (int i = 0; i < nodes; i++) {
+            this.distances[i] = BellmanFord.INFINITY;
+            this.predecessors[i] = -1;
+        }
+        this.distances[0] = 0;
+        for (int k = 0; k < nodes - 1; k++) {
+            for (int u = 0; u < nodes; u++) {
+                for (int v = 0; v < nodes; v++) {
+                    if (this.relaxable(distanceMatrix, u, v)) {
+                        this.distances[v] = this.distances[u] + distanceMatrix[u][v];
+                        this.predecessors[v] = u;
+                    }
+                }
+            }
+        }
+        boolean cycle = false;
+        for (int u = 0; u < nodes && !cycle; u++) {
+            for (int v = 0; v < nodes && !cycle; v++) {
+                cycle = this.relaxable(distanceMatrix, u, v);
+            }
+        }
+        this.negativeCycle = cycle;
+    }
+
+    /**
+     * Indica si la arista (u, v) mejora la distancia de v. Solo se relajan aristas que salen de
+     * nodos alcanzados, de modo que los no alcanzables conservan el valor infinito.
+     */
+    private boolean relaxable(int[][] distanceMatrix, int u, int v) {
+        return u != v && distanceMatrix[u][v] != NO_EDGE && this.distances[u] != BellmanFord.INFINITY
+                && this.distances[v] > this.distances[u] + distanceMatrix[u][v];
+    }
+
+    /**
+     * Obtiene las distancias mínimas desde el nodo 0.
+     *
+     * @return Arreglo de distancias.
+     */
+    int[] getDistances() {
+        return this.distances;
+    }
+
+    /**
+     * Obtiene el predecesor de cada nodo.
+     *
+     * @return Arreglo de predecesores (-1 si el nodo no tiene).
+     */
+    int[] getPredecessors() {
+        return this.predecessors;
+    }
+
+    /**
+     * Indica si existe un ciclo negativo alcanzable desde el nodo 0.
+     *
+     * @return true si existe un ciclo negativo.
+     */
+    boolean hasNegativeCycle() {
+        return this.negativeCycle;
+    }
+
+    /**
+     * Crea una matriz sin aristas y con la diagonal a cero.
+     *
+     * @param nodes Número de nodos.
+     * @return Matriz de distancias.
+     */
+    static int[][] emptyMatrix(int nodes) {
+        int[][] matrix = new int[nodes][nodes];
+        for (int i = 0; i < nodes; i++) {
+            for (int j = 0; j < nodes; j++) {
+                matrix[i][j] = i == j ? 0 : NO_EDGE;
+            }
+        }
+        return matrix;
+    }
+
+    /**
+     * Genera un grafo acíclico aleatorio: solo hay aristas de un nodo a otro de índice mayor, y la
+     * cadena 0 → 1 → ... → n-1 garantiza que todos los nodos son alcanzables. Los pesos pueden ser
+     * negativos.
+     *
+     * @param nodes Número de nodos.
+     * @param random Generador de números aleatorios.
+     * @return Matriz de distancias.
+     */
+    static int[][] randomDAG(int nodes, Random random) {
+        int[][] matrix = ReferenceBellmanFord.emptyMatrix(nodes);
+        for (int i = 0; i < nodes; i++) {
+            for (int j = i + 1; j < nodes; j++) {
+                if (j == i + 1 || random.nextInt(3) == 0) {
+                    matrix[i][j] = random.nextInt(201) - 100;
+                }
+            }
+        }
+        return matrix;
+    }
+
+    /**
+     * Genera un grafo aleatorio con ciclos y sin ciclos negativos. Los pesos no negativos se
+     * modifican con un potencial por nodo ({@code w + p(u) - p(v)}), lo que introduce aristas
+     * negativas sin cambiar el coste de ningún ciclo. El ciclo 0 → 1 → ... → n-1 → 0 garantiza que
+     * todos los nodos son alcanzables.
+     *
+     * @param nodes Número de nodos.
+     * @param random Generador de números aleatorios.
+     * @return Matriz de distancias.
+     */
+    static int[][] randomCyclic(int nodes, Random random) {
+        int[] potential = new int[nodes];
+        for (int i = 0; i < nodes; i++) {
+            potential[i] = random.nextInt(101) - 50;
+        }
+        int[][] matrix = ReferenceBellmanFord.emptyMatrix(nodes);
+        for (int i = 0; i < nodes; i++) {
+            for (int j = 0; j < nodes; j++) {
+                if (i != j && (j == (i + 1) % nodes || random.nextInt(3) == 0)) {
+                    matrix[i][j] = random.nextInt(101) + potential[i] - potential[j];
+                }
+            }
+        }
+        return matrix;
+    }
+}
@@ -0,0 +1,56 @@
+package top;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+/**
+ * Pruebas del redondeo de las representaciones compactas de la matriz de distancias.
+ */
+public class DistanceMatrixTest extends TestCase {
+
+    /**
+     * Las matrices en precisión simple y cuantizada nunca deben guardar una distancia menor que la
+     * original, y el error debe quedar por debajo de su precisión.
+     */
+    public void testCompactMatricesRoundUp() {
+        int size = 50;
+        double maxDistance = 150.0;
+        FloatDistanceMatrix floats = new FloatDistanceMatrix(size);
+        ShortDistanceMatrix shorts = new ShortDistanceMatrix(size, maxDistance);
+        OffHeapDistanceMatrix offHeap = new OffHeapDistanceMatrix(size);
+        double[][] distances = new double[size][size];
+        Random random = new Random(9);
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < i; j++) {
+                distances[i][j] = random.nextDouble() * maxDistance;
+                floats.setDistance(i, j, distances[i][j]);
+                shorts.setDistance(j, i, distances[i][j]);
+                offHeap.setDistance(i, j, distances[i][j]);
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < i; j++) {
+                double distance = distances[i][j];
+                for (DistanceProvider provider : new DistanceProvider[]{floats, offHeap}) {
+                    assertTrue(provider.getDistance(i, j) >= distance);
+                    assertTrue(provider.getDistance(j, i) - distance <= Math.ulp((float) distance));
+                }
+                assertTrue(shorts.getDistance(i, j) >= distance);
+                assertTrue(shorts.getDistance(i, j) - distance <= shorts.getStep() * (1 + 1e-9));
+            }
+        }
+    }
+
+    /**
+     * Una distancia representable exactamente se guarda sin cambios.
+     */
+    public void testExactValuesAreKept() {
+        FloatDistanceMatrix floats = new FloatDistanceMatrix(2);
+        floats.setDistance(1, 0, 12.5);
+        assertEquals(12.5, floats.getDistance(0, 1), 0.0);
+        ShortDistanceMatrix shorts = new ShortDistanceMatrix(2, 65535.0);
+        shorts.setDistance(1, 0, 1234.0);
+        assertEquals(1234.0, shorts.getDistance(0, 1), 0.0);
+    }
+}
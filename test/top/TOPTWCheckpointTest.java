@@ -0,0 +1,188 @@
+package top;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+/**
+ * Pruebas de la escritura y lectura de puntos de control y de la reanudación de GRASP a partir de
+ * ellos.
+ */
+public class TOPTWCheckpointTest extends TestCase {
+
+    private static final String INSTANCE = "Instances/TOPTW/c101.txt";
+
+    /**
+     * Un punto de control escrito y leído de nuevo debe conservar todos sus campos, y la escritura no
+     * debe dejar el fichero temporal.
+     */
+    public void testRoundTrip() throws IOException {
+        TOPTW problem = TOPTWReader.readProblem(INSTANCE);
+        String instance = TOPTWCheckpoint.getInstanceId(INSTANCE);
+        ArrayList<ArrayList<Integer>> bestRoutes = this.routes(new Integer[]{0, 5, 3, 0},
+                new Integer[]{0, 7, 0});
+        ArrayList<ArrayList<ArrayList<Integer>>> elite = new ArrayList<>();
+        elite.add(bestRoutes);
+        elite.add(this.routes(new Integer[]{0, 2, 0}, new Integer[]{}));
+        ArrayList<Double> eliteFitness = new ArrayList<>(Arrays.asList(120.0, 40.5));
+        TOPTWCheckpoint written = new TOPTWCheckpoint(instance, problem.getPOIs(), problem.getVehicles(),
+                problem.getMaxTimePerRoute(), true, -42L, 500, 3, 137, 0x123456789ABCDEFL, 9876.25, 120.0,
+                4321L, bestRoutes, elite, eliteFitness);
+
+        File file = File.createTempFile("toptw-checkpoint", ".ckpt");
+        try {
+            written.write(file);
+            assertFalse(new File(file.getPath() + ".tmp").exists());
+            TOPTWCheckpoint read = TOPTWCheckpoint.read(file);
+            assertEquals(500, read.getMaxIterations());
+            assertEquals(3, read.getMaxSizeRCL());
+            assertEquals(137, read.getIteration());
+            assertEquals(0x123456789ABCDEFL, read.getRandomState());
+            assertEquals(9876.25, read.getFitnessSum(), 0.0);
+            assertEquals(120.0, read.getBestFitness(), 0.0);
+            assertEquals(4321L, read.getElapsedTime());
+            assertEquals(bestRoutes, read.getBestRoutes());
+            assertEquals(elite, read.getElite());
+            assertEquals(eliteFitness, read.getEliteFitness());
+            assertTrue(read.isSameInstance(instance, problem));
+            assertTrue(read.matches(instance, problem, true, -42L, 500, 3));
+            assertFalse(read.matches(instance, problem, true, 42L, 500, 3));
+            assertFalse(read.matches(instance, problem, false, -42L, 500, 3));
+            assertFalse(read.matches(instance, problem, true, -42L, 501, 3));
+            assertFalse(read.matches(instance, problem, true, -42L, 500, 4));
+            problem.setVehicles(problem.getVehicles() + 1);
+            assertFalse(read.isSameInstance(instance, problem));
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * Un fichero que no es un punto de control debe rechazarse con una {@link IOException}.
+     */
+    public void testInvalidFile() throws IOException {
+        File file = File.createTempFile("toptw-checkpoint", ".ckpt");
+        try {
+            FileOutputStream out = new FileOutputStream(file);
+            try {
+                out.write(new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+            } finally {
+                out.close();
+            }
+            try {
+                TOPTWCheckpoint.read(file);
+                fail("An invalid checkpoint should be rejected");
+            } catch (IOException e) {
+                // Esperado.
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * Un GRASP con semilla fija que muere a mitad de la ejecución y se reanuda desde su último punto
+     * de control debe terminar con el mismo resultado que una ejecución sin interrupciones: mismo
+     * número de iteraciones, fitness medio, mejor solución y conjunto élite.
+     */
+    public void testResumeMatchesUninterruptedRun() throws IOException {
+        TOPTWGRASP uninterrupted = this.createGRASP(null);
+        uninterrupted.setEarlyTermination(false);
+        uninterrupted.GRASP(100, 3);
+
+        File file = File.createTempFile("toptw-checkpoint", ".ckpt");
+        assertTrue(file.delete());
+        try {
+            TOPTWGRASP killed = this.createGRASP(new KilledGRASP(37));
+            killed.setCheckpoint(file, 10);
+            killed.setEarlyTermination(false);
+            try {
+                killed.GRASP(100, 3);
+                fail("The run should have been killed");
+            } catch (Killed e) {
+                // El proceso muere durante la iteración 37: el último punto de control es el de la 30.
+            }
+            assertEquals(30, TOPTWCheckpoint.read(file).getIteration());
+
+            TOPTWGRASP resumed = this.createGRASP(null);
+            resumed.setCheckpoint(file, 10);
+            resumed.setEarlyTermination(false);
+            resumed.GRASP(100, 3);
+            assertFalse(file.exists());
+            assertEquals(uninterrupted.getIterations(), resumed.getIterations());
+            assertEquals(uninterrupted.getAverageFitness(), resumed.getAverageFitness(), 0.0);
+            assertEquals(uninterrupted.getBestFitness(), resumed.getBestFitness(), 0.0);
+            assertEquals(uninterrupted.getBestRoutes(), resumed.getBestRoutes());
+            assertEquals(uninterrupted.getElite(), resumed.getElite());
+            assertEquals(uninterrupted.getEliteFitness(), resumed.getEliteFitness());
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * Configura un GRASP silencioso con semilla fija y conjunto élite sobre la instancia de prueba.
+     *
+     * @param grasp GRASP a configurar, o null para crear uno nuevo.
+     * @return El GRASP configurado.
+     */
+    private TOPTWGRASP createGRASP(TOPTWGRASP grasp) {
+        if (grasp == null) {
+            grasp = new TOPTWGRASP(new TOPTWSolution(TOPTWReader.readProblem(INSTANCE)));
+        }
+        grasp.setVerbose(false);
+        grasp.setInstancePath(INSTANCE);
+        grasp.setSeed(7L);
+        grasp.setEliteSize(3);
+        return grasp;
+    }
+
+    /**
+     * Construye una lista de rutas.
+     *
+     * @param routes Clientes de cada ruta.
+     * @return Rutas.
+     */
+    private ArrayList<ArrayList<Integer>> routes(Integer[]... routes) {
+        ArrayList<ArrayList<Integer>> result = new ArrayList<>();
+        for (Integer[] route : routes) {
+            result.add(new ArrayList<>(Arrays.asList(route)));
+        }
+        return result;
+    }
+
+    /** Excepción que simula la muerte del proceso durante una iteración. */
+    private static class Killed extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+    }
+
+    /** GRASP que muere al construir la solución de una iteración dada. */
+    private static class KilledGRASP extends TOPTWGRASP {
+
+        private final int killIteration; ///< Iteración en la que muere.
+        private int iteration; ///< Iteraciones construidas hasta el momento.
+
+        /**
+         * Constructor de la clase KilledGRASP.
+         *
+         * @param killIteration Iteración en la que muere.
+         */
+        KilledGRASP(int killIteration) {
+            super(new TOPTWSolution(TOPTWReader.readProblem(INSTANCE)));
+            this.killIteration = killIteration;
+            this.iteration = 0;
+        }
+
+        @Override
+        public void computeGreedySolution(int maxSizeRCL) {
+            if (this.iteration++ == this.killIteration) {
+                throw new Killed();
+            }
+            super.computeGreedySolution(maxSizeRCL);
+        }
+    }
+}
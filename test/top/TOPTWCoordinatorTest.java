@@ -0,0 +1,72 @@
+package top;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+
+import junit.framework.TestCase;
+
+/**
+ * Pruebas de la ejecución repetida del coordinador sobre un mismo directorio de intercambio.
+ */
+public class TOPTWCoordinatorTest extends TestCase {
+
+    private static final String INSTANCE = "Instances/TOPTW/c101.txt";
+
+    /**
+     * Una segunda ejecución con otra semilla en el mismo directorio no debe usar la mejor solución
+     * global de la primera. Antes de la segunda ejecución se deja en el directorio una mejor solución
+     * global que alcanza la cota superior, como la que deja una ejecución anterior en las instancias
+     * fáciles: los trabajadores deben iterar igualmente.
+     */
+    public void testRerunIgnoresPreviousIncumbent() throws IOException {
+        File directory = this.createDirectory();
+        try {
+            TOPTWCoordinator coordinator = new TOPTWCoordinator(INSTANCE, 2, directory, new ArrayList<String>());
+            coordinator.setVerbose(false);
+            coordinator.run(20, 3, 1L);
+            assertEquals(20, coordinator.getIterations());
+            assertTrue(coordinator.getBestFitness() > 0.0);
+
+            TOPTW problem = TOPTWReader.readProblem(INSTANCE);
+            double upperBound = new TOPTWUpperBound(problem).getUpperBound();
+            new TOPTWCheckpoint(TOPTWCheckpoint.getInstanceId(INSTANCE), problem.getPOIs(), problem.getVehicles(),
+                    problem.getMaxTimePerRoute(), true, 1L, 10, 3, 10, 0L, 0.0, upperBound, 0L,
+                    coordinator.getBestRoutes(), new ArrayList<ArrayList<ArrayList<Integer>>>(),
+                    new ArrayList<Double>()).write(TOPTWCoordinator.getIncumbentFile(directory));
+
+            coordinator.run(20, 3, 2L);
+            assertEquals(20, coordinator.getIterations());
+            assertTrue(coordinator.getBestFitness() > 0.0);
+        } finally {
+            this.deleteDirectory(directory);
+        }
+    }
+
+    /**
+     * Crea un directorio de intercambio vacío.
+     *
+     * @return Directorio temporal.
+     * @throws IOException Si no se puede crear.
+     */
+    private File createDirectory() throws IOException {
+        File directory = File.createTempFile("toptw-workers", "");
+        assertTrue(directory.delete() && directory.mkdir());
+        return directory;
+    }
+
+    /**
+     * Elimina un directorio de intercambio y sus ficheros.
+     *
+     * @param directory Directorio a eliminar.
+     */
+    private void deleteDirectory(File directory) {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+}
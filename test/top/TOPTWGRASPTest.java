@@ -0,0 +1,44 @@
+package top;
+
+import junit.framework.TestCase;
+
+/**
+ * Pruebas de la reutilización de un mismo GRASP con distintos parámetros de la instancia.
+ */
+public class TOPTWGRASPTest extends TestCase {
+
+    private static final String INSTANCE = "Instances/TOPTW/c101.txt";
+
+    /**
+     * Un GRASP reutilizado tras cambiar el tiempo máximo por ruta debe usar la cota de los parámetros
+     * actuales y no la de la ejecución anterior. Reproduce las peticiones
+     * {@code SOLVE c101.txt 300 3 - 150} y {@code SOLVE c101.txt 300 3 - -} sobre el mismo espacio de
+     * trabajo de {@link TOPTWServer}, con semilla fija: la segunda debe coincidir con una ejecución
+     * sobre un GRASP nuevo.
+     */
+    public void testUpperBoundFollowsMaxTime() {
+        TOPTW problem = TOPTWReader.readProblem(INSTANCE);
+        double maxTime = problem.getMaxTimePerRoute();
+        TOPTWGRASP reused = new TOPTWGRASP(new TOPTWSolution(problem));
+        reused.setVerbose(false);
+
+        problem.setMaxTimePerRoute(150);
+        reused.setSeed(1);
+        reused.GRASP(300, 3);
+        double shortBound = reused.getUpperBound();
+
+        problem.setMaxTimePerRoute(maxTime);
+        reused.setSeed(1);
+        reused.GRASP(300, 3);
+        double bound = new TOPTWUpperBound(problem).getUpperBound();
+        assertTrue(bound > shortBound);
+        assertEquals(bound, reused.getUpperBound(), 0.0);
+
+        TOPTWGRASP fresh = new TOPTWGRASP(new TOPTWSolution(problem));
+        fresh.setVerbose(false);
+        fresh.setSeed(1);
+        fresh.GRASP(300, 3);
+        assertEquals(fresh.getIterations(), reused.getIterations());
+        assertEquals(fresh.getBestFitness(), reused.getBestFitness(), 0.0);
+    }
+}